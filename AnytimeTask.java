@@ -0,0 +1,94 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Anytime solving of a board, used by Solver.solveAnytime
+ * Weighted IDA* passes are run with decreasing weight, every pass searches only solutions
+ * shorter than the best one found so far. The first pass returns a solution fast,
+ * the later ones improve it until the time limit passes or the solution is proved optimal:
+ * by the last pass with weight 1 or by a pass which searched everything below the best solution
+ */
+final class AnytimeTask {
+    // weight above 1 is halved after every pass, close weights are replaced by 1
+    private static final double WEIGHT_DECREASE = 0.5;
+    private static final double MIN_WEIGHT_STEP = 0.25;
+
+    private final Board initialBoard;
+    private final SolverConfiguration configuration;
+    private final Consumer<SolveResult> listener;
+
+    /**
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search, weight is the weight of the first pass
+     * @param listener receiver of every improved solution, null if only the final result is needed
+     */
+    AnytimeTask(Board initialBoard, SolverConfiguration configuration, Consumer<SolveResult> listener) {
+        if (initialBoard == null || configuration == null) {
+            throw new IllegalArgumentException();
+        }
+        this.initialBoard = initialBoard;
+        this.configuration = configuration;
+        this.listener = listener;
+    }
+
+    /**
+     * Runs passes until the optimal solution is found or the time limit passes
+     * @return result with the best found solution, lower bound tells how far from optimal it can be
+     */
+    SolveResult run() {
+        long timeLimitMillis = this.configuration.getTimeLimitMillis();
+        long deadline = System.currentTimeMillis() + timeLimitMillis;
+        double weight = this.configuration.getWeight();
+        SolveResult best = null;
+        int lowerBound = -1;
+        long createdNodes = 0;
+        List<IterationStats> iterations = new ArrayList<>();
+        SolveStatus stopReason = null;
+
+        while (true) {
+            long remainingMillis = deadline - System.currentTimeMillis();
+            if (timeLimitMillis > 0 && remainingMillis <= 0) {
+                stopReason = SolveStatus.TIMED_OUT;
+                break;
+            }
+            // pass with weight 1 is plain IDA* on the configured engine, its thresholds stay below
+            // the best solution until the optimal one is found, so it does not need the upper bound.
+            // Interrupted caller stops the running pass, which ends with CANCELLED status
+            int upperBound = best == null || weight == 1.0 ? Integer.MAX_VALUE : best.getMoves();
+            SolveResult result = new SolveTask(this.initialBoard, this.configuration, weight, upperBound,
+                    timeLimitMillis == 0 ? 0 : remainingMillis).run();
+            createdNodes += result.getCreatedNodes();
+            iterations.addAll(result.getIterations());
+            lowerBound = Math.max(lowerBound, result.getLowerBound());
+
+            if (result.getStatus() == SolveStatus.UNSOLVABLE) {
+                return result;
+            }
+            if (result.getStatus() == SolveStatus.EXHAUSTED) {
+                // nothing shorter than the best solution exists
+                lowerBound = best.getMoves();
+                break;
+            }
+            if (result.getStatus() != SolveStatus.SOLVED) {
+                stopReason = result.getStatus();
+                break;
+            }
+            best = new SolveResult(SolveStatus.SOLVED, result.getMoves(), result.getPath(),
+                    Math.min(lowerBound, result.getMoves()), createdNodes, new ArrayList<>(iterations));
+            if (this.listener != null) {
+                this.listener.accept(best);
+            }
+            if (best.isOptimal()) {
+                return best;
+            }
+            weight = weight - 1.0 <= MIN_WEIGHT_STEP ? 1.0 : 1.0 + (weight - 1.0) * WEIGHT_DECREASE;
+        }
+
+        if (best == null) {
+            return new SolveResult(stopReason, -1, null, lowerBound, createdNodes, iterations);
+        }
+        return new SolveResult(SolveStatus.SOLVED, best.getMoves(), best.getPath(),
+                Math.min(lowerBound, best.getMoves()), createdNodes, iterations);
+    }
+}
@@ -1,9 +1,9 @@
-import java.io.BufferedInputStream;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.file.Paths;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Scanner;
 
 /**
  * Main application class
@@ -21,33 +21,93 @@ public class Application {
     private static final boolean RUN_SOLVER = true;
     private static final boolean RUN_SPEED_TESTS = false;
     private static final int SPEED_TEST_ITERATIONS = 100;
+    // prints statistics of every iteration and progress of long iterations
+    private static final boolean SHOW_SEARCH_PROGRESS = false;
+    private static final long PROGRESS_INTERVAL_MILLIS = 5 * MILLIS_IN_SECOND;
+    // prunes redundant move sequences, the pruner is learned on first use and kept in fsm directory
+    private static final boolean MOVE_PRUNING = false;
+    // memory of the database of boards near the goal with exact distances, 0 disables it
+    private static final int PERIMETER_MEGABYTES = 0;
+    // boards with more tiles are solved by rules, optimal search would not end in reasonable time
+    private static final int MAX_OPTIMAL_TILES = 36;
+    // with --checkpoint progress of the search is saved to the file, --resume continues from it after a restart
+    private static final String CHECKPOINT_FILE = "search.checkpoint";
+    private static final String CHECKPOINT_OPTION = "--checkpoint";
+    private static final String RESUME_OPTION = "--resume";
+    // how the solution is written: only moves, every board or nothing
+    private static final SolutionOutput SOLUTION_OUTPUT = SolutionOutput.BOARDS;
+    // batch mode properties
+    private static final String BATCH_OPTION = "--batch";
+    private static final int BATCH_WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final int BATCH_WINDOW = 4 * BATCH_WORKERS;
+    private static final SolutionOutput BATCH_SOLUTION_OUTPUT = SolutionOutput.NONE;
+    // every puzzle is stopped after this time, so one hard board does not hold back results of the others
+    private static final long BATCH_TIME_LIMIT_MILLIS = MILLIS_IN_MINUTE;
+    // server mode properties
+    private static final String SERVER_OPTION = "--server";
+    private static final int SERVER_WORKERS = Runtime.getRuntime().availableProcessors();
+    private static final int SERVER_QUEUE_CAPACITY = 4 * SERVER_WORKERS;
+    private static final long SERVER_TIME_LIMIT_MILLIS = MILLIS_IN_MINUTE;
+    // solutions of the server survive restarts in this directory
+    private static final String SERVER_CACHE_DIRECTORY = "cache";
+    private static final int SERVER_CACHE_CAPACITY = 100_000;
+    // distributed mode properties, workers connect to the coordinator
+    private static final String COORDINATOR_OPTION = "--coordinator";
+    private static final String WORKER_OPTION = "--worker";
 
 
     /**
      * Main application function
-     * @param args external input - path to file with the board
+     * @param args external input - path to file with the board,
+     *             or --checkpoint and path to file with the board, to save progress of the search,
+     *             or --resume and path to file with the board searched before,
+     *             or --batch and path to file with many boards,
+     *             or --server and port on localhost,
+     *             or --coordinator, port and path to file with the board searched by workers,
+     *             or --worker, host and port of the coordinator
      */
     public static void main(String[] args) {
 
-        // File reading
-        Scanner input;
+        if (args.length > 1 && args[0].equals(BATCH_OPTION)) {
+            batchSolver(args[1]);
+            return;
+        }
+        if (args.length > 1 && args[0].equals(SERVER_OPTION)) {
+            server(Integer.parseInt(args[1]));
+            return;
+        }
+        if (args.length > 2 && args[0].equals(COORDINATOR_OPTION)) {
+            coordinator(Integer.parseInt(args[1]), args[2]);
+            return;
+        }
+        if (args.length > 2 && args[0].equals(WORKER_OPTION)) {
+            try {
+                SearchWorker.main(new String[] {args[1], args[2]});
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
+
+        boolean resume = args.length > 1 && args[0].equals(RESUME_OPTION);
+        boolean checkpoint = resume || args.length > 1 && args[0].equals(CHECKPOINT_OPTION);
+        String path = checkpoint ? args[1] : args[0];
+
+        // File reading, the first board of the file is solved
         Board initial;
-        File file = new File(args[0]);
-        try {
-            input = new Scanner(new BufferedInputStream(new FileInputStream(file)), "UTF-8");
-            int n = input.nextInt();
-            int[][] blocks = new int[n][n];
-            for (int i = 0; i < n; i++)
-                for (int j = 0; j < n; j++)
-                    blocks[i][j] = input.nextInt();
-            initial = new Board(blocks);
+        try (PuzzleReader reader = new PuzzleReader(path)) {
+            initial = reader.next();
+            if (initial == null) {
+                System.out.println("No puzzle in the file " + path);
+                return;
+            }
         } catch (Exception e) {
             System.out.println("Something gone wrong with file reading: " + e);
             return;
         }
 
         // solve the problem and time measure
-        if (RUN_SOLVER) { problemSolver(initial); }
+        if (RUN_SOLVER) { problemSolver(initial, checkpoint, resume); }
 
         // time speed tests
         if (RUN_SPEED_TESTS) { timeSpeedTests(initial); }
@@ -56,10 +116,21 @@ public class Application {
     /**
      * Function which solving the problem and prints the result to console
      * @param board initial board - input to the program
+     * @param checkpoint true to save progress of the search to the checkpoint file
+     * @param resume true to continue from the checkpoint of the board
      */
-    private static void problemSolver(Board board) {
+    private static void problemSolver(Board board, boolean checkpoint, boolean resume) {
+        SolverConfiguration configuration = new SolverConfiguration(HEURISTICS, engineFor(board))
+                .setMovePruning(MOVE_PRUNING)
+                .setPerimeterDatabaseSize(PERIMETER_MEGABYTES);
+        if (checkpoint) {
+            configuration.setCheckpointFile(Paths.get(CHECKPOINT_FILE)).setResume(resume);
+        }
+        if (SHOW_SEARCH_PROGRESS) {
+            configuration.setMetricsSink(new ConsoleMetricsSink(System.out, PROGRESS_INTERVAL_MILLIS));
+        }
         Instant start = Instant.now();
-        Solver solver = new Solver(board, HEURISTICS);
+        Solver solver = new Solver(board, configuration);
         Instant finish = Instant.now();
         long timeElapsed = Duration.between(start, finish).toMillis();
         printSolvingTime(timeElapsed);
@@ -67,12 +138,105 @@ public class Application {
         // print number of created nodes
         solver.printNumberOfCreatedNodes();
 
-        if (!solver.isSolvable())
-            System.out.println("No solution possible");
-        else {
-            System.out.println("Minimum number of moves = " + solver.getMoves() + "\n");
-            for (Board puzzles : solver.getSolution())
-                System.out.println(puzzles);
+        printResult(solver.getResult());
+    }
+
+    /**
+     * @param board initial board
+     * @return optimal search engine, or rules for boards too big for optimal search
+     */
+    private static SearchEngine engineFor(Board board) {
+        return board.rows() * board.columns() > MAX_OPTIMAL_TILES ? SearchEngine.RULE_BASED : SearchEngine.IN_PLACE;
+    }
+
+    /**
+     * Function prints the solution, or why there is none
+     * @param result result of solving
+     */
+    private static void printResult(SolveResult result) {
+        switch (result.getStatus()) {
+            case SOLVED:
+                System.out.println((result.isOptimal() ? "Minimum number of moves = " : "Number of moves = ")
+                        + result.getMoves() + "\n");
+                PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+                result.getPath().write(output, SOLUTION_OUTPUT);
+                output.flush();
+                break;
+            case UNSOLVABLE:
+                System.out.println("No solution possible");
+                break;
+            default:
+                // stopped search has no solution, only a bound on its length
+                System.out.println("Search stopped: " + result.getStatus()
+                        + ", lower bound = " + result.getLowerBound());
+        }
+    }
+
+    /**
+     * Function which solves all puzzles from the file and prints results in input order
+     * @param path path to file with many boards
+     */
+    private static void batchSolver(String path) {
+        BatchSolver batchSolver = new BatchSolver(
+                board -> new SolverConfiguration(HEURISTICS, engineFor(board)).setMovePruning(MOVE_PRUNING)
+                        .setPerimeterDatabaseSize(PERIMETER_MEGABYTES)
+                        .setTimeLimitMillis(BATCH_TIME_LIMIT_MILLIS),
+                BATCH_WORKERS, BATCH_WINDOW, BATCH_SOLUTION_OUTPUT);
+        PrintWriter output = new PrintWriter(new BufferedWriter(new OutputStreamWriter(System.out)));
+        Instant start = Instant.now();
+        try (PuzzleReader reader = new PuzzleReader(path)) {
+            long puzzles = batchSolver.solve(reader, output);
+            System.out.println("Puzzles: " + puzzles);
+        } catch (Exception e) {
+            System.out.println("Something gone wrong with file reading: " + e);
+        }
+        printSolvingTime(Duration.between(start, Instant.now()).toMillis());
+    }
+
+    /**
+     * Function which runs the solver server until the process is killed
+     * @param port port on localhost
+     */
+    private static void server(int port) {
+        try {
+            SolverConfiguration configuration = new SolverConfiguration(HEURISTICS, SearchEngine.IN_PLACE)
+                    .setMovePruning(MOVE_PRUNING)
+                    .setTimeLimitMillis(SERVER_TIME_LIMIT_MILLIS)
+                    .setSolutionCache(SolutionCache.open(Paths.get(SERVER_CACHE_DIRECTORY), SERVER_CACHE_CAPACITY));
+            SolverServer server = new SolverServer(configuration, port, SERVER_WORKERS, SERVER_QUEUE_CAPACITY);
+            server.start();
+            System.out.println("Solver server listening on localhost:" + server.getPort());
+            Thread.currentThread().join();
+        } catch (Exception e) {
+            System.out.println("Something gone wrong with the server: " + e);
+        }
+    }
+
+    /**
+     * Function which solves the first board of the file on worker processes, started with --worker
+     * The coordinator accepts workers on all addresses, the search waits until the first one connects
+     * @param port port on which workers are accepted
+     * @param path path to file with the board
+     */
+    private static void coordinator(int port, String path) {
+        try (SearchCoordinator coordinator = new SearchCoordinator(port, null);
+             PuzzleReader reader = new PuzzleReader(path)) {
+            Board board = reader.next();
+            if (board == null) {
+                System.out.println("No puzzle in the file " + path);
+                return;
+            }
+            System.out.println("Coordinator waiting for workers on port " + coordinator.getPort());
+            SolverConfiguration configuration = new SolverConfiguration(HEURISTICS, SearchEngine.DISTRIBUTED)
+                    .setMovePruning(MOVE_PRUNING)
+                    .setCoordinator(coordinator);
+            Instant start = Instant.now();
+            Solver solver = new Solver(board, configuration);
+            printSolvingTime(Duration.between(start, Instant.now()).toMillis());
+            solver.printNumberOfCreatedNodes();
+            printResult(solver.getResult());
+        } catch (Exception e) {
+            System.out.println("Something gone wrong with the coordinator: " + e);
         }
     }
 
@@ -82,24 +246,20 @@ public class Application {
      */
     private static void timeSpeedTests(Board board) {
         long sumTime = 0;
-        long sumCreatedNodesOriginal = 0;
-        long sumCreatedNodesTwin = 0;
+        long sumCreatedNodes = 0;
         for (int i = 0; i < SPEED_TEST_ITERATIONS; i++) {
             System.out.println("Iteration " + (i+1) + " started");
             Instant start = Instant.now();
             Solver solver = new Solver(board, HEURISTICS);
             Instant finish = Instant.now();
             sumTime += Duration.between(start, finish).toMillis();
-            sumCreatedNodesOriginal += solver.createdNodesOriginal();
-            sumCreatedNodesTwin += solver.createdNodesTwin();
+            sumCreatedNodes += solver.createdNodes();
         }
         System.out.println();
         sumTime = sumTime/SPEED_TEST_ITERATIONS;
-        sumCreatedNodesOriginal = sumCreatedNodesOriginal/SPEED_TEST_ITERATIONS;
-        sumCreatedNodesTwin = sumCreatedNodesTwin/SPEED_TEST_ITERATIONS;
+        sumCreatedNodes = sumCreatedNodes/SPEED_TEST_ITERATIONS;
         System.out.println("Average Time: " + sumTime);
-        System.out.println("Average created nodes from original board: " + sumCreatedNodesOriginal);
-        System.out.println("Average created nodes from twin board: " + sumCreatedNodesTwin);
+        System.out.println("Average created nodes: " + sumCreatedNodes);
     }
 
     /**
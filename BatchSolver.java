@@ -0,0 +1,199 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+
+/**
+ * Solves many puzzles from a stream on a bounded pool of workers
+ * At most window puzzles are read ahead of the oldest unfinished one, so the reader waits
+ * for the workers instead of loading the whole file. Results are written in input order
+ * as soon as all earlier puzzles are finished. Heuristic tables are created once per
+ * dimension and shared by all workers, see Heuristics
+ */
+public class BatchSolver {
+    private final Function<Board, SolverConfiguration> configurations;
+    private final int workers;
+    private final int window;
+    private final SolutionOutput solutionOutput;
+
+    /**
+     * @param configuration options used for every puzzle
+     * @param workers number of puzzles solved at the same time
+     * @param window maximal number of puzzles read but not written yet, at least workers
+     * @param solutionOutput how every solution is written after its summary line
+     */
+    public BatchSolver(SolverConfiguration configuration, int workers, int window, SolutionOutput solutionOutput) {
+        this(configuration == null ? null : board -> configuration, workers, window, solutionOutput);
+    }
+
+    /**
+     * @param configurations options of every puzzle chosen by its board, e.g. the engine by the board size
+     * @param workers number of puzzles solved at the same time
+     * @param window maximal number of puzzles read but not written yet, at least workers
+     * @param solutionOutput how every solution is written after its summary line
+     */
+    public BatchSolver(Function<Board, SolverConfiguration> configurations, int workers, int window,
+                       SolutionOutput solutionOutput) {
+        if (configurations == null || solutionOutput == null) {
+            throw new IllegalArgumentException();
+        }
+        if (workers < 1) {
+            throw new IllegalArgumentException("Number of workers has to be positive: " + workers);
+        }
+        if (window < workers) {
+            throw new IllegalArgumentException("Window can not be smaller than number of workers: " + window);
+        }
+        this.configurations = configurations;
+        this.workers = workers;
+        this.window = window;
+        this.solutionOutput = solutionOutput;
+    }
+
+    /**
+     * Solves all puzzles from the reader and writes results to the output
+     * Boards with wrong tiles are reported as errors of their puzzles, other input errors
+     * end the batch after results of all puzzles read before are written
+     * @param reader source of puzzles
+     * @param output destination of results
+     * @return number of puzzles, including boards with wrong tiles
+     * @throws IOException if the input can not be read
+     */
+    long solve(PuzzleReader reader, PrintWriter output) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(this.workers);
+        ArrayDeque<Future<Result>> pending = new ArrayDeque<>(this.window);
+        long id = 0;
+        try {
+            while (true) {
+                Board board = null;
+                IOException invalid = null;
+                try {
+                    board = reader.next();
+                } catch (PuzzleReader.InvalidBoardException e) {
+                    // the board is reported in its line, next boards are read as usual
+                    invalid = e;
+                } catch (IOException e) {
+                    // the rest of the input can not be read, puzzles read before it are written first
+                    while (!pending.isEmpty()) {
+                        write(pending.removeFirst(), output);
+                    }
+                    output.println("Puzzle " + (id+1) + ": error: " + e.getMessage());
+                    throw e;
+                }
+                if (board == null && invalid == null) {
+                    break;
+                }
+                // back-pressure, the oldest puzzle has to be written before the next one is read
+                if (pending.size() == this.window) {
+                    write(pending.removeFirst(), output);
+                    flushIfBlocked(pending, output);
+                }
+                final long puzzleId = ++id;
+                final Board puzzle = board;
+                pending.addLast(invalid != null
+                        ? CompletableFuture.completedFuture(new Result(puzzleId, null, invalid, 0))
+                        : pool.submit(() -> solve(puzzleId, puzzle)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.removeFirst(), output);
+                flushIfBlocked(pending, output);
+            }
+        } finally {
+            for (Future<Result> future : pending) {
+                future.cancel(true);
+            }
+            pool.shutdownNow();
+            output.flush();
+        }
+        return id;
+    }
+
+    /**
+     * @param id number of the puzzle in the input, counted from 1
+     * @param board initial board
+     * @return result of solving
+     */
+    private Result solve(long id, Board board) {
+        Instant start = Instant.now();
+        try {
+            Solver solver = new Solver(board, this.configurations.apply(board));
+            return new Result(id, solver, null, Duration.between(start, Instant.now()).toMillis());
+        } catch (RuntimeException e) {
+            return new Result(id, null, e, Duration.between(start, Instant.now()).toMillis());
+        }
+    }
+
+    /**
+     * Waits for the result and writes it
+     * @param future result of the oldest pending puzzle
+     * @param output destination of results
+     */
+    private void write(Future<Result> future, PrintWriter output) {
+        Result result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch solving interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch solving failed", e.getCause());
+        }
+        output.print("Puzzle " + result.id + ": ");
+        if (result.error != null) {
+            output.println("error: " + result.error.getMessage());
+            return;
+        }
+        SolveResult solveResult = result.solver.getResult();
+        switch (solveResult.getStatus()) {
+            case SOLVED:
+                output.println("moves = " + solveResult.getMoves()
+                        + ", created nodes = " + solveResult.getCreatedNodes()
+                        + ", time = " + result.time + " ms");
+                solveResult.getPath().write(output, this.solutionOutput);
+                break;
+            case UNSOLVABLE:
+                output.println("no solution possible, time = " + result.time + " ms");
+                break;
+            default:
+                // stopped search has no path, only a bound on the length of the solution
+                output.println(solveResult.getStatus() + ", lower bound = " + solveResult.getLowerBound()
+                        + ", created nodes = " + solveResult.getCreatedNodes()
+                        + ", time = " + result.time + " ms");
+        }
+    }
+
+    /**
+     * Flushes the output when the next result is not ready yet, so finished results are visible
+     * while the batch is running without flushing after every puzzle
+     * @param pending results in input order
+     * @param output destination of results
+     */
+    private static void flushIfBlocked(ArrayDeque<Future<Result>> pending, PrintWriter output) {
+        if (pending.isEmpty() || !pending.peekFirst().isDone()) {
+            output.flush();
+        }
+    }
+
+    /**
+     * Result of one puzzle
+     */
+    private static final class Result {
+        private final long id;
+        private final Solver solver;
+        private final Exception error;
+        private final long time;
+
+        Result(long id, Solver solver, Exception error, long time) {
+            this.id = id;
+            this.solver = solver;
+            this.error = error;
+            this.time = time;
+        }
+    }
+}
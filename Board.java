@@ -1,45 +1,104 @@
 import java.util.ArrayList;
-import java.util.Random;
+import java.util.Arrays;
 
 public final class Board {
-    private static final Random random = new Random();
-    private final int n;
-    private final int m;
+    private final BoardShape shape;
+    // tiles of boards up to BoardShape.MAX_SMALL_TILES tiles as unsigned bytes, otherwise null
+    private final byte[] smallBoard;
+    // tiles of bigger boards, otherwise null
     private final int[] board;
     private int hamming;
     private int manhattan;
     private int zeroPosition;
-    private Board twin;
 
     /**
-     * Construct a board from an n-by-n array of blocks
+     * Construct a board from a rows-by-columns array of blocks, usually n-by-n
      * @param blocks int 2D array with puzzles values
      */
     public Board(int[][] blocks) {
         // (where blocks[i][j] = block in row i, column j)
-        this.n = blocks.length;
-        this.m = this.n*this.n;
-        this.board = new int [this.m];
-        for (int i=0; i<n; i++) {
-            for (int j=0; j<n; j++) {
-                this.board[j+i*n] = blocks[i][j];
+        this(BoardShape.of(blocks.length, blocks.length == 0 ? 0 : blocks[0].length), flatten(blocks));
+    }
+
+    /**
+     * Create a square board from 1D array, used only in package
+     * @param blocks int 1D array with puzzles values
+     */
+    Board (int[] blocks) {
+        this(BoardShape.square(dimensionOf(blocks.length)), blocks);
+    }
+
+    /**
+     * Create a board from 1D array, used only in package
+     * @param rows number of rows
+     * @param columns number of columns
+     * @param blocks int 1D array with puzzles values in row order
+     */
+    Board(int rows, int columns, int[] blocks) {
+        this(BoardShape.of(rows, columns), blocks);
+    }
+
+    /**
+     * Create a board of given shape from 1D array, used only in package
+     * @param shape shape of the board
+     * @param blocks int 1D array with puzzles values in row order
+     */
+    Board(BoardShape shape, int[] blocks) {
+        if (blocks.length != shape.size()) {
+            throw new IllegalArgumentException(blocks.length + " tiles do not fill a " + shape + " board");
+        }
+        this.shape = shape;
+        if (shape.isSmall()) {
+            this.smallBoard = new byte[blocks.length];
+            this.board = null;
+            for (int i=0; i<blocks.length; i++) {
+                this.smallBoard[i] = (byte) blocks[i];
             }
+        } else {
+            this.smallBoard = null;
+            this.board = blocks.clone();
         }
         setupBoardProperties();
     }
 
     /**
-     * Create a board from 1D array, used only in class
-     * @param blocks int 1D array with puzzles values
+     * Neighbouring board with properties updated from the moved tile
+     */
+    private Board(BoardShape shape, byte[] smallBoard, int[] board, int hamming, int manhattan, int zeroPosition) {
+        this.shape = shape;
+        this.smallBoard = smallBoard;
+        this.board = board;
+        this.hamming = hamming;
+        this.manhattan = manhattan;
+        this.zeroPosition = zeroPosition;
+    }
+
+    /**
+     * @param blocks rows of the board, all of the same length
+     * @return tiles in row order
      */
-    private Board (int[] blocks) {
-        this.m = blocks.length;
-        this.n = (int) Math.sqrt((double)m);
-        this.board = new int [this.m];
-        for (int i=0; i<this.m; i++) {
-            this.board[i] = blocks[i];
+    private static int[] flatten(int[][] blocks) {
+        int columns = blocks.length == 0 ? 0 : blocks[0].length;
+        int[] tiles = new int[blocks.length*columns];
+        for (int i=0; i<blocks.length; i++) {
+            if (blocks[i].length != columns) {
+                throw new IllegalArgumentException("Row " + i + " has " + blocks[i].length + " instead of " + columns + " blocks");
+            }
+            System.arraycopy(blocks[i], 0, tiles, i*columns, columns);
         }
-        setupBoardProperties();
+        return tiles;
+    }
+
+    /**
+     * @param m number of tiles of a square board
+     * @return board dimension n
+     */
+    private static int dimensionOf(int m) {
+        int n = (int) Math.round(Math.sqrt((double) m));
+        if (n*n != m) {
+            throw new IllegalArgumentException(m + " tiles do not make a square board");
+        }
+        return n;
     }
 
     /**
@@ -49,21 +108,17 @@ public final class Board {
     private void setupBoardProperties() {
         int hamming = 0;
         int manhattan = 0;
-        int zeroPosition = this.m-1;
-        for (int i=0; i<this.m; i++) {
+        int m = this.shape.size();
+        int zeroPosition = m-1;
+        for (int i=0; i<m; i++) {
+            int tile = tile(i);
             //finding zero
-            if (this.board[i] == 0) { zeroPosition = i; }
+            if (tile == 0) { zeroPosition = i; }
             else {
                 // Hamming
-                if ((i+1) != this.board[i]) { hamming++; }
+                if ((i+1) != tile) { hamming++; }
                 // Manhattan
-                // where the point is
-                int x1 = (this.board[i]-1)/n;
-                int y1 = (this.board[i]-1)%n;
-                // where it should be
-                int x2 = i/n;
-                int y2 = i%n;
-                manhattan += Math.abs(x1-x2) + Math.abs(y1-y2);
+                manhattan += this.shape.distance(tile, i);
             }
         }
         this.hamming = hamming;
@@ -72,10 +127,43 @@ public final class Board {
     }
 
     /**
-     * @return board dimension n
+     * @param position position in row order
+     * @return tile at the position
+     */
+    private int tile(int position) {
+        return this.smallBoard != null ? this.smallBoard[position] & 0xFF : this.board[position];
+    }
+
+    /**
+     * @return board dimension n of a square board
+     * @throws IllegalStateException for rectangular boards, see rows and columns
      */
     public int dimension() {
-        return n;
+        if (!this.shape.isSquare()) {
+            throw new IllegalStateException("Board " + this.shape + " is not square");
+        }
+        return this.shape.rows();
+    }
+
+    /**
+     * @return number of rows
+     */
+    public int rows() {
+        return this.shape.rows();
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int columns() {
+        return this.shape.columns();
+    }
+
+    /**
+     * @return shape shared by all boards of the size
+     */
+    BoardShape shape() {
+        return this.shape;
     }
 
     /**
@@ -97,13 +185,15 @@ public final class Board {
      * @return distance from solution in given heuristics
      */
     public int distanceFromSolution(Heuristics heuristics) {
-        if (heuristics.equals(Heuristics.HAMMING)) {
-            return this.hamming;
-        }
-        if (heuristics.equals(Heuristics.MANHATTAN)) {
-            return this.manhattan;
-        }
-        return -1;
+        return distanceFromSolution(heuristics.forShape(this.shape.rows(), this.shape.columns()));
+    }
+
+    /**
+     * @param heuristic given heuristic implementation
+     * @return distance from solution in given heuristic
+     */
+    public int distanceFromSolution(Heuristic heuristic) {
+        return heuristic.evaluate(toArray());
     }
 
     /**
@@ -114,24 +204,29 @@ public final class Board {
     }
 
     /**
-     * function which create new twin Board and return it
-     * @return a board that is obtained by exchanging any pair of blocks
+     * Function checks solvability using permutation parity
+     * Every move swaps the blank with a tile and moves the blank by one cell,
+     * so the parity of the permutation (with the blank as the last tile) has to be
+     * the parity of the blank distance from its goal corner.
+     * The parity is counted from cycles, in linear time for boards of any size and shape
+     * @return true if the goal board can be reached from this board
      */
-    public Board twin() {
-        if (this.twin == null) {
-            int x = 0;
-            int y = 0;
-            while (this.board[x]==this.board[y] || this.board[x]==0 || this.board[y]==0) {
-                x = random.nextInt(this.m);
-                y = random.nextInt(this.m);
+    public boolean isSolvable() {
+        int m = this.shape.size();
+        boolean[] visited = new boolean[m];
+        int transpositions = 0;
+        for (int i=0; i<m; i++) {
+            int cycle = 0;
+            for (int position=i; !visited[position]; cycle++) {
+                visited[position] = true;
+                int tile = tile(position);
+                position = tile == 0 ? m-1 : tile-1;
             }
-            int[] newBoard = this.board.clone();
-            int temp = newBoard[x];
-            newBoard[x] = newBoard[y];
-            newBoard[y] = temp;
-            this.twin = new Board(newBoard);
+            if (cycle > 0) { transpositions += cycle-1; }
         }
-        return this.twin;
+        int columns = this.shape.columns();
+        int blankDistance = (this.shape.rows()-1 - this.zeroPosition/columns) + (columns-1 - this.zeroPosition%columns);
+        return (transpositions + blankDistance) % 2 == 0;
     }
 
     /**
@@ -144,59 +239,102 @@ public final class Board {
         if (object == null) {return false;}
         if (object.getClass() != this.getClass()) {return false;}
         Board other = (Board)object;
-        if (other.dimension() != this.dimension()) {return false;}
+        if (other.shape != this.shape) {return false;}
         if (other.hamming() != this.hamming()) {return false;}
         if (other.manhattan() != this.manhattan()) {return false;}
-        for (int i=0; i < this.m; i++) {
-            if (other.board[i] != this.board[i]) {return false;}
+        return this.smallBoard != null ? Arrays.equals(other.smallBoard, this.smallBoard)
+                : Arrays.equals(other.board, this.board);
+    }
+
+    /**
+     * @return hash code consistent with equals, the same for both tile encodings
+     */
+    @Override
+    public int hashCode() {
+        int hash = 1;
+        for (int i=0; i<this.shape.size(); i++) {
+            hash = 31*hash + tile(i);
         }
-        return true;
+        return hash;
+    }
+
+    /**
+     * @return packed encoding of the board, see PackedBoard
+     */
+    long[] packed() {
+        return PackedBoard.pack(toArray());
     }
 
     /**
      * Function which creates neighbouring boards and return them
+     * Tiles are copied once per neighbour and distances are updated from the moved tile
      * @return all neighboring boards
      */
     public Iterable<Board> neighbors() {
-        ArrayList<Board> neighbors = new ArrayList<>();
-        int x0 = (this.zeroPosition)/n;
-        int y0 = (this.zeroPosition)%n;
-        if (y0 != 0) {
-            int[] newBoard = copyBoard();
-            newBoard[this.zeroPosition] = newBoard[this.zeroPosition-1];
-            newBoard[this.zeroPosition-1] = 0;
-            neighbors.add(new Board(newBoard));
-        }
-        if (y0 != this.n-1) {
-            int[] newBoard = copyBoard();
-            newBoard[this.zeroPosition] = newBoard[this.zeroPosition+1];
-            newBoard[this.zeroPosition+1] = 0;
-            neighbors.add(new Board(newBoard));
+        ArrayList<Board> neighbors = new ArrayList<>(4);
+        for (int direction=PuzzleState.LEFT; direction<=PuzzleState.DOWN; direction++) {
+            Board neighbor = neighbor(direction);
+            if (neighbor != null) {
+                neighbors.add(neighbor);
+            }
         }
-        if (x0 != 0) {
-            int[] newBoard = copyBoard();
-            newBoard[this.zeroPosition] = newBoard[this.zeroPosition-this.n];
-            newBoard[this.zeroPosition-this.n] = 0;
-            neighbors.add(new Board(newBoard));
+        return neighbors;
+    }
+
+    /**
+     * @param direction direction of the blank move, see PuzzleState
+     * @return board after the move, null if the blank can not move there
+     */
+    Board neighbor(int direction) {
+        int target = this.shape.neighbor(this.zeroPosition, direction);
+        if (target == BoardShape.NO_NEIGHBOR) { return null; }
+        int tile = tile(target);
+        byte[] smallBoard = null;
+        int[] board = null;
+        if (this.smallBoard != null) {
+            smallBoard = this.smallBoard.clone();
+            smallBoard[this.zeroPosition] = (byte) tile;
+            smallBoard[target] = 0;
+        } else {
+            board = this.board.clone();
+            board[this.zeroPosition] = tile;
+            board[target] = 0;
         }
-        if (x0 != this.n-1) {
-            int[] newBoard = copyBoard();
-            newBoard[this.zeroPosition] = newBoard[this.zeroPosition+this.n];
-            newBoard[this.zeroPosition+this.n] = 0;
-            neighbors.add(new Board(newBoard));
+        return new Board(this.shape, smallBoard, board,
+                this.hamming + HammingHeuristic.change(tile, target, this.zeroPosition),
+                this.manhattan + this.shape.distance(tile, this.zeroPosition) - this.shape.distance(tile, target),
+                target);
+    }
+
+    /**
+     * @return position of the blank in row order
+     */
+    int zeroPosition() {
+        return this.zeroPosition;
+    }
+
+    /**
+     * @return 1D copy of board, used by the in-place search
+     */
+    int[] toArray() {
+        if (this.board != null) {
+            return this.board.clone();
         }
-        return neighbors;
+        int[] tiles = new int[this.smallBoard.length];
+        TileLanes.get().widen(this.smallBoard, tiles);
+        return tiles;
     }
 
     /**
-     * @return 1D copy of board
+     * Copies tiles without allocation, used by ChildBatch
+     * @param destination array of at least as many ints as tiles
      */
-    private int[] copyBoard() {
-        int[] newBoard = new int[this.m];
-        for (int i=0; i<this.m; i++) {
-            newBoard[i] = this.board[i];
+    void copyTo(int[] destination) {
+        if (this.board != null) {
+            System.arraycopy(this.board, 0, destination, 0, this.board.length);
+        } else {
+            TileLanes.get().widen(this.smallBoard, destination);
         }
-        return newBoard;
     }
 
     /**
@@ -204,13 +342,31 @@ public final class Board {
      */
     public String toString() {
         StringBuilder output = new StringBuilder();
-        output.append(this.n + "\n");
-        for (int i=0; i < this.n; i++ ) {
-            for (int j=0; j<this.n; j++) {
-                output.append(String.format("%2d ", this.board[j+i*this.n]));
+        appendTo(output);
+        return output.toString();
+    }
+
+    /**
+     * Appends string representation of this board
+     * The first line is the dimension n, or rows x columns for rectangular boards,
+     * tiles are padded to the width of the biggest tile, at least two characters
+     * @param output destination of the text
+     */
+    void appendTo(StringBuilder output) {
+        output.append(this.shape).append('\n');
+        int columns = this.shape.columns();
+        int digits = this.shape.digits();
+        for (int i=0; i < this.shape.rows(); i++ ) {
+            for (int j=0; j<columns; j++) {
+                int tile = tile(j+i*columns);
+                for (int limit=10, width=1; width<digits; limit*=10, width++) {
+                    if (tile < limit) {
+                        output.append(' ');
+                    }
+                }
+                output.append(tile).append(' ');
             }
-            output.append("\n");
+            output.append('\n');
         }
-        return output.toString();
     }
 }
@@ -0,0 +1,192 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Geometry of boards with given number of rows and columns, shared by all boards of the size
+ * Neighbours of every position and Manhattan distances of every tile from every position
+ * are precomputed, so moves and heuristics read tables instead of dividing by the width.
+ * Boards up to MAX_SMALL_TILES tiles store one byte per tile, bigger boards fall back to ints
+ */
+final class BoardShape {
+    private static final ConcurrentHashMap<Long, BoardShape> SHAPES = new ConcurrentHashMap<>();
+    // tiles of boards with at most this many tiles fit into unsigned bytes
+    static final int MAX_SMALL_TILES = 1 << 8;
+    // biggest board with the Manhattan table, 4 MB of ints, bigger boards compute the distance
+    private static final int MAX_TABLE_TILES = 1 << 10;
+    // marks impossible move in the neighbour table
+    static final int NO_NEIGHBOR = -1;
+
+    private final int rows;
+    private final int columns;
+    private final int size;
+    private final int digits;
+    // neighbors[position*4 + direction], NO_NEIGHBOR if the blank can not move there
+    private final int[] neighbors;
+    // distances[tile*size + position], null for boards bigger than MAX_TABLE_TILES
+    private final int[] distances;
+    // goalRows[tile] and goalColumns[tile] locate position tile-1, so position p is read at p+1, the blank reads 0
+    private final int[] goalRows;
+    private final int[] goalColumns;
+
+    /**
+     * @param rows number of rows
+     * @param columns number of columns
+     * @return shape shared by all boards of the size
+     */
+    static BoardShape of(int rows, int columns) {
+        if (rows < 2 || columns < 2) {
+            throw new IllegalArgumentException("Board " + rows + "x" + columns + " has less than 2 rows or columns");
+        }
+        return SHAPES.computeIfAbsent((long) rows << 32 | columns, key -> new BoardShape(rows, columns));
+    }
+
+    /**
+     * @param n board dimension
+     * @return shape of n-by-n boards
+     */
+    static BoardShape square(int n) {
+        return of(n, n);
+    }
+
+    /**
+     * @param rows number of rows
+     * @param columns number of columns
+     */
+    private BoardShape(int rows, int columns) {
+        this.rows = rows;
+        this.columns = columns;
+        this.size = Math.multiplyExact(rows, columns);
+        this.digits = Math.max(2, Integer.toString(this.size-1).length());
+        this.neighbors = new int[this.size*4];
+        for (int position=0; position<this.size; position++) {
+            int row = position / columns;
+            int column = position % columns;
+            this.neighbors[position*4 + PuzzleState.LEFT] = column > 0 ? position-1 : NO_NEIGHBOR;
+            this.neighbors[position*4 + PuzzleState.RIGHT] = column < columns-1 ? position+1 : NO_NEIGHBOR;
+            this.neighbors[position*4 + PuzzleState.UP] = row > 0 ? position-columns : NO_NEIGHBOR;
+            this.neighbors[position*4 + PuzzleState.DOWN] = row < rows-1 ? position+columns : NO_NEIGHBOR;
+        }
+        this.goalRows = new int[this.size+1];
+        this.goalColumns = new int[this.size+1];
+        for (int position=0; position<this.size; position++) {
+            this.goalRows[position+1] = position / columns;
+            this.goalColumns[position+1] = position % columns;
+        }
+        if (this.size > MAX_TABLE_TILES) {
+            this.distances = null;
+            return;
+        }
+        this.distances = new int[this.size*this.size];
+        for (int tile=1; tile<this.size; tile++) {
+            for (int position=0; position<this.size; position++) {
+                this.distances[tile*this.size + position] = computeDistance(tile, position);
+            }
+        }
+    }
+
+    /**
+     * @return number of rows
+     */
+    int rows() {
+        return this.rows;
+    }
+
+    /**
+     * @return number of columns
+     */
+    int columns() {
+        return this.columns;
+    }
+
+    /**
+     * @return number of tiles including the blank
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @return true if the board has as many rows as columns
+     */
+    boolean isSquare() {
+        return this.rows == this.columns;
+    }
+
+    /**
+     * @return true if tiles of the board are stored in bytes
+     */
+    boolean isSmall() {
+        return this.size <= MAX_SMALL_TILES;
+    }
+
+    /**
+     * @return characters used by one tile in text output, at least two
+     */
+    int digits() {
+        return this.digits;
+    }
+
+    /**
+     * @param position blank position
+     * @param direction direction of the blank move, see PuzzleState
+     * @return position of the tile swapped with the blank or NO_NEIGHBOR
+     */
+    int neighbor(int position, int direction) {
+        return this.neighbors[position*4 + direction];
+    }
+
+    /**
+     * @return neighbour table, neighbors[position*4 + direction], shared and not to be changed
+     */
+    int[] neighbors() {
+        return this.neighbors;
+    }
+
+    /**
+     * @return Manhattan table, distances[tile*size + position], shared and not to be changed,
+     * null for boards computing the distance
+     */
+    int[] distances() {
+        return this.distances;
+    }
+
+    /**
+     * @return goal rows of tiles, the row of position p at index p+1, shared and not to be changed
+     */
+    int[] goalRows() {
+        return this.goalRows;
+    }
+
+    /**
+     * @return goal columns of tiles, the column of position p at index p+1, shared and not to be changed
+     */
+    int[] goalColumns() {
+        return this.goalColumns;
+    }
+
+    /**
+     * @param tile tile value, not blank
+     * @param position position on the board
+     * @return Manhattan distance of the tile from its goal position
+     */
+    int distance(int tile, int position) {
+        return this.distances != null ? this.distances[tile*this.size + position] : computeDistance(tile, position);
+    }
+
+    /**
+     * @param tile tile value, not blank
+     * @param position position on the board
+     * @return Manhattan distance of the tile from its goal position
+     */
+    private int computeDistance(int tile, int position) {
+        return Math.abs((tile-1)/this.columns - position/this.columns)
+                + Math.abs((tile-1)%this.columns - position%this.columns);
+    }
+
+    /**
+     * @return dimension n of square boards or rows x columns
+     */
+    @Override
+    public String toString() {
+        return isSquare() ? Integer.toString(this.rows) : this.rows + "x" + this.columns;
+    }
+}
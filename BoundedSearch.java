@@ -0,0 +1,355 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Depth first search bounded by threshold, working on a single mutable PuzzleState
+ * One object is used by one thread only, sequential and parallel engines share it
+ */
+final class BoundedSearch {
+    static final int FOUND = -1;
+    private static final int[] SEARCH_ORDER = {
+            PuzzleState.DOWN, PuzzleState.UP, PuzzleState.RIGHT, PuzzleState.LEFT};
+
+    private final Board initialBoard;
+    private final PuzzleState state;
+    private final SearchResult searchResult;
+    // shared by all searches of one solver, null when disabled
+    private final TranspositionTable table;
+    // machine rejecting redundant move sequences, null when only moves back are rejected
+    private final MovePruner pruner;
+    // exact distances of boards near the goal, null when disabled
+    private final PerimeterDatabase perimeter;
+    // every move changes the Manhattan distance by one, so all solutions have its parity
+    private final int solutionParity;
+    // pruner state of the node from which search starts
+    private int startPruneState;
+    // key of the table when it holds pruner states next to packed boards
+    private final long[] key;
+    private int[] path;
+    private int[] childCosts;
+    private long createdNodes;
+    private final SearchCounters counters;
+
+    /**
+     * Constructor - setup initial variables
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     */
+    BoundedSearch(Board initial, Heuristic heuristic, SearchResult searchResult) {
+        this(initial, heuristic, searchResult, null, null);
+    }
+
+    /**
+     * Constructor - setup initial variables
+     * When both table and pruner are used, the table key contains the pruner state,
+     * because moves allowed below a board depend on it
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table used to prune duplicates, null to disable it
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     */
+    BoundedSearch(Board initial, Heuristic heuristic, SearchResult searchResult,
+                  TranspositionTable table, MovePruner pruner) {
+        this(initial, heuristic, searchResult, table, pruner, null);
+    }
+
+    /**
+     * Constructor - setup initial variables
+     * Boards whose heuristic is within the perimeter radius are looked up in the perimeter database,
+     * a found board ends its branch with the exact distance, a missing one is more than radius moves away
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table used to prune duplicates, null to disable it
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     * @param perimeter exact distances of boards near the goal, null to disable it
+     */
+    BoundedSearch(Board initial, Heuristic heuristic, SearchResult searchResult,
+                  TranspositionTable table, MovePruner pruner, PerimeterDatabase perimeter) {
+        this.initialBoard = initial;
+        this.state = new PuzzleState(initial, heuristic);
+        this.searchResult = searchResult;
+        this.table = table;
+        this.pruner = pruner;
+        this.perimeter = perimeter;
+        this.solutionParity = initial.manhattan() & 1;
+        this.startPruneState = pruner == null ? 0 : pruner.start();
+        this.key = table != null && pruner != null ? new long[this.state.packed().length + 1] : null;
+        this.counters = new SearchCounters(searchResult);
+        this.path = new int[0];
+        this.childCosts = new int[0];
+        this.createdNodes = 0L;
+    }
+
+    /**
+     * @return number of nodes created by this search
+     */
+    long getCreatedNodes() {
+        return this.createdNodes;
+    }
+
+    /**
+     * Adds statistics counted since last call to the metrics of the search
+     */
+    void flushCounters() {
+        this.counters.flush();
+    }
+
+    /**
+     * @return mutable state of the search
+     */
+    PuzzleState getState() {
+        return this.state;
+    }
+
+    /**
+     * Makes sure that buffers are big enough for given threshold
+     * @param threshold for step cost
+     */
+    void prepare(int threshold) {
+        // nodes deeper than threshold are never entered
+        int depth = Math.max(threshold, 0) + 1;
+        if (this.path.length < depth) {
+            this.path = new int[depth];
+            this.childCosts = new int[4*depth];
+        }
+    }
+
+    /**
+     * Makes given moves from the initial board, used to start search from subtree root
+     * @param moves directions of blank moves
+     */
+    void applyPrefix(int[] moves) {
+        for (int i=0; i<moves.length; i++) {
+            this.path[i] = moves[i];
+            this.state.move(moves[i]);
+            if (this.pruner != null) {
+                this.startPruneState = this.pruner.next(this.startPruneState, moves[i]);
+            }
+        }
+    }
+
+    /**
+     * Recursive DFS with specific threshold, current node is kept in the state
+     * Children are explored in the same order as in the stack based DeepFirstSearch
+     * @param moves number of moves from initial board
+     * @param threshold for step cost
+     * @param lastDirection direction of the move which leads to current node
+     * @return new threshold value or FOUND if solution is found
+     */
+    int search(int moves, int threshold, int lastDirection) {
+        return search(moves, threshold, lastDirection, this.startPruneState, -1, Integer.MAX_VALUE, null);
+    }
+
+    /**
+     * Expands the tree to given depth and collects roots of subtrees on that depth
+     * Nodes above split depth are handled as in the normal search
+     * @param threshold for step cost
+     * @param splitDepth depth on which subtrees are collected
+     * @param frontier list to which move prefixes of subtrees are added
+     * @return new threshold value of expanded part or FOUND if solution is found
+     */
+    int expand(int threshold, int splitDepth, List<int[]> frontier) {
+        return search(0, threshold, PuzzleState.NO_DIRECTION, this.startPruneState, -1, splitDepth, frontier);
+    }
+
+    /**
+     * @param moves number of moves from initial board
+     * @param threshold for step cost
+     * @param lastDirection direction of the move which leads to current node
+     * @param pruneState pruner state after moves leading to current node
+     * @param parentBound lower bound of the distance from the parent to the goal, -1 if unknown
+     * @param splitDepth depth on which nodes are collected instead of searched
+     * @param frontier list for collected nodes, null when nothing is collected
+     * @return new threshold value or FOUND if solution is found
+     */
+    private int search(int moves, int threshold, int lastDirection, int pruneState, int parentBound,
+                       int splitDepth, List<int[]> frontier) {
+        // check if problem has been already solved or the search is stopped
+        if (this.searchResult.isFinished()) {
+            return FOUND;
+        }
+        // check if problem is solved
+        if (this.state.isGoal()) {
+            saveSolution(moves);
+            return FOUND;
+        }
+        if (moves == splitDepth) {
+            int[] prefix = new int[moves];
+            System.arraycopy(this.path, 0, prefix, 0, moves);
+            frontier.add(prefix);
+            return Integer.MAX_VALUE;
+        }
+        int reverse = lastDirection == PuzzleState.NO_DIRECTION
+                ? PuzzleState.NO_DIRECTION : PuzzleState.opposite(lastDirection);
+        // transposition table is not used while the frontier is collected, all subtrees are needed
+        boolean useTable = this.table != null && frontier == null;
+        int bound = this.state.distanceFromSolution();
+        // boards farther than the radius by heuristic are not in the perimeter
+        if (this.perimeter != null && bound <= this.perimeter.radius()) {
+            int distance = this.perimeter.distance(this.state.packed());
+            if (distance == PerimeterDatabase.OUTSIDE) {
+                bound = this.perimeter.radius() + 1;
+                if (((moves + bound) & 1) != this.solutionParity) {
+                    bound++;
+                }
+            } else if (moves + distance <= threshold) {
+                finishFromPerimeter(moves, distance);
+                return FOUND;
+            } else {
+                bound = distance;
+            }
+            if (moves + bound > threshold) {
+                this.counters.cutoffs++;
+                return moves + bound;
+            }
+        }
+        if (useTable) {
+            long data = this.table.probe(key(pruneState));
+            if (data != TranspositionTable.EMPTY) {
+                if (TranspositionTable.threshold(data) == threshold && TranspositionTable.moves(data) <= moves) {
+                    // board is already searched in this iteration with no more moves
+                    this.counters.tablePrunes++;
+                    return TranspositionTable.isComplete(data)
+                            ? Math.max(moves + TranspositionTable.bound(data), threshold + 1) : threshold + 1;
+                }
+                bound = Math.max(bound, TranspositionTable.bound(data));
+                if (moves + bound > threshold) {
+                    this.counters.tablePrunes++;
+                    return moves + bound;
+                }
+            }
+            this.table.store(key(pruneState), moves, bound, threshold, false);
+        }
+        // costs of all children are calculated before any of them is explored
+        this.counters.expanded(moves);
+        int newThreshold = Integer.MAX_VALUE;
+        int offset = moves*4;
+        for (int direction=0; direction<4; direction++) {
+            int cost = childCost(direction, reverse, pruneState, moves);
+            this.childCosts[offset + direction] = cost;
+            if (cost == Integer.MAX_VALUE) { continue; }
+            this.counters.generatedNodes++;
+            if (cost <= threshold) {
+                this.createdNodes++;
+            } else {
+                this.counters.cutoffs++;
+                if (cost < newThreshold) {
+                    newThreshold = cost;
+                }
+            }
+        }
+        for (int direction : SEARCH_ORDER) {
+            if (this.childCosts[offset + direction] > threshold) { continue; }
+            this.path[moves] = direction;
+            this.state.move(direction);
+            int childState = this.pruner == null ? 0 : this.pruner.next(pruneState, direction);
+            int result = search(moves+1, threshold, direction, childState, bound, splitDepth, frontier);
+            this.state.undo(direction);
+            if (result == FOUND) {
+                return FOUND;
+            }
+            if (result < newThreshold) {
+                newThreshold = result;
+            }
+        }
+        if (useTable) {
+            storeBound(moves, threshold, reverse, pruneState, parentBound, bound, newThreshold);
+        }
+        return newThreshold;
+    }
+
+    /**
+     * Stores bound learned from fully searched subtree of the current node
+     * The subtree does not contain the way back to the parent,
+     * so the learned bound is limited by the bound of the parent plus one move
+     * @param moves number of moves to the current node
+     * @param threshold for step cost
+     * @param reverse direction which leads back to the parent
+     * @param pruneState pruner state of the current node
+     * @param parentBound lower bound of the distance from the parent to the goal, -1 if unknown
+     * @param bound lower bound of the distance from the current node known before the search
+     * @param newThreshold smallest cost exceeding threshold found in the subtree
+     */
+    private void storeBound(int moves, int threshold, int reverse, int pruneState, int parentBound,
+                            int bound, int newThreshold) {
+        int learned = newThreshold == Integer.MAX_VALUE ? Integer.MAX_VALUE : newThreshold - moves;
+        if (reverse != PuzzleState.NO_DIRECTION) {
+            if (parentBound < 0) {
+                parentBound = this.state.distanceAfterMove(reverse);
+            }
+            learned = Math.min(learned, parentBound + 1);
+        }
+        this.table.store(key(pruneState), moves, Math.max(bound, learned), threshold, true);
+    }
+
+    /**
+     * @param pruneState pruner state of the current node
+     * @return key of the current node in the transposition table
+     */
+    private long[] key(int pruneState) {
+        if (this.key == null) {
+            return this.state.packed();
+        }
+        long[] packed = this.state.packed();
+        System.arraycopy(packed, 0, this.key, 0, packed.length);
+        this.key[packed.length] = pruneState;
+        return this.key;
+    }
+
+    /**
+     * @param direction direction of the blank move
+     * @param reverse direction which would lead back to the parent
+     * @param pruneState pruner state of the current node
+     * @param moves number of moves to the current node
+     * @return cost of the child or Integer.MAX_VALUE if the child does not exist or is pruned
+     */
+    private int childCost(int direction, int reverse, int pruneState, int moves) {
+        if (direction == reverse || !this.state.canMove(direction)) {
+            return Integer.MAX_VALUE;
+        }
+        if (this.pruner != null && this.pruner.next(pruneState, direction) == MovePruner.PRUNED) {
+            return Integer.MAX_VALUE;
+        }
+        return this.state.distanceAfterMove(direction) + moves + 1;
+    }
+
+    /**
+     * Completes the path from the current board by moves to boards one move closer to the goal
+     * and saves the solution, the state is restored afterwards
+     * @param moves number of moves to the current board
+     * @param distance exact distance of the current board from the goal
+     */
+    private void finishFromPerimeter(int moves, int distance) {
+        int length = moves;
+        for (int remaining = distance; remaining > 0; remaining--) {
+            for (int direction=0; direction<4; direction++) {
+                if (!this.state.canMove(direction)) { continue; }
+                this.state.move(direction);
+                if (this.perimeter.distance(this.state.packed()) == remaining - 1) {
+                    this.path[length++] = direction;
+                    break;
+                }
+                this.state.undo(direction);
+            }
+        }
+        saveSolution(length);
+        while (length > moves) {
+            this.state.undo(this.path[--length]);
+        }
+    }
+
+    /**
+     * save data when final step is found, only the first finder saves it
+     * @param moves number of moves to the final board
+     */
+    private void saveSolution(int moves) {
+        if (!this.searchResult.setProblemIsSolved(moves)) {
+            return;
+        }
+        this.searchResult.setSolution(new SolutionPath(this.initialBoard, this.path, moves));
+        this.searchResult.setMoves(moves);
+    }
+}
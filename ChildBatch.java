@@ -0,0 +1,59 @@
+/**
+ * Children of one board generated together, used by Step for every expanded node
+ * Tiles of the parent are copied once into a reused int buffer and evaluated once,
+ * distances of all children are then computed by the evaluator from the moved tile,
+ * instead of copying and fully evaluating every child board.
+ * The child equal to the grandparent is the only one with its blank position, so it is
+ * rejected by comparing positions. Buffers are reused, so one batch is used by one thread only
+ */
+final class ChildBatch {
+    private final int[] tiles;
+    private final int[] directions = new int[4];
+    private final int[] distances = new int[4];
+
+    /**
+     * @param shape shape of the boards
+     */
+    ChildBatch(BoardShape shape) {
+        this.tiles = new int[shape.size()];
+    }
+
+    /**
+     * Generates children of the board, replacing children of the previous board
+     * @param parent expanded board
+     * @param heuristic heuristic of the distances
+     * @param skippedBlank blank position of the grandparent, BoardShape.NO_NEIGHBOR to keep all children
+     * @return number of generated children
+     */
+    int generate(Board parent, Heuristic heuristic, int skippedBlank) {
+        parent.copyTo(this.tiles);
+        Heuristic.Evaluator evaluator = heuristic.newEvaluator(this.tiles);
+        BoardShape shape = parent.shape();
+        int zeroPosition = parent.zeroPosition();
+        int size = 0;
+        for (int direction=PuzzleState.LEFT; direction<=PuzzleState.DOWN; direction++) {
+            int target = shape.neighbor(zeroPosition, direction);
+            if (target == BoardShape.NO_NEIGHBOR || target == skippedBlank) { continue; }
+            this.directions[size] = direction;
+            this.distances[size] = evaluator.distanceAfterMove(this.tiles[target], target, zeroPosition);
+            size++;
+        }
+        return size;
+    }
+
+    /**
+     * @param child index of the child, below the number of generated children
+     * @return direction of the blank move leading to the child, see PuzzleState
+     */
+    int direction(int child) {
+        return this.directions[child];
+    }
+
+    /**
+     * @param child index of the child, below the number of generated children
+     * @return distance of the child from the goal in the heuristic
+     */
+    int distance(int child) {
+        return this.distances[child];
+    }
+}
@@ -0,0 +1,56 @@
+import java.io.PrintStream;
+import java.util.List;
+
+/**
+ * Prints progress of the running iteration periodically and statistics of every finished iteration
+ */
+public class ConsoleMetricsSink implements MetricsSink {
+    private final PrintStream output;
+    private final long progressIntervalMillis;
+
+    /**
+     * @param output stream to which statistics are printed
+     * @param progressIntervalMillis period of progress lines in milliseconds, 0 to print only finished iterations
+     */
+    public ConsoleMetricsSink(PrintStream output, long progressIntervalMillis) {
+        if (output == null || progressIntervalMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.output = output;
+        this.progressIntervalMillis = progressIntervalMillis;
+    }
+
+    @Override
+    public long progressIntervalMillis() {
+        return this.progressIntervalMillis;
+    }
+
+    @Override
+    public void progress(IterationStats current) {
+        long remaining = current.getEstimatedRemainingMillis();
+        this.output.println("Searching bound " + current.getThreshold()
+                + ": " + current.getExpandedNodes() + " nodes"
+                + ", " + current.getNodesPerSecond() + " nodes/s"
+                + ", max depth " + current.getMaxDepth()
+                + (remaining < 0 ? "" : ", about " + remaining + " ms to the end of the iteration"));
+    }
+
+    @Override
+    public void iterationFinished(IterationStats stats) {
+        this.output.println("Finished " + stats);
+    }
+
+    @Override
+    public void searchFinished(int moves, List<IterationStats> iterations) {
+        long nodes = 0;
+        long reexpanded = 0;
+        long time = 0;
+        for (IterationStats stats : iterations) {
+            nodes += stats.getExpandedNodes();
+            reexpanded += stats.getReexpandedNodes();
+            time += stats.getTimeNanos();
+        }
+        this.output.println("Search finished: " + moves + " moves, " + iterations.size() + " iterations, "
+                + nodes + " expanded nodes, " + reexpanded + " re-expanded, " + time / 1_000_000 + " ms");
+    }
+}
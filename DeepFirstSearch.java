@@ -1,24 +1,67 @@
-import java.util.ArrayList;
-import java.util.Collections;
+import java.util.Arrays;
 import java.util.Stack;
 
 public class DeepFirstSearch extends Thread{
+    // cut off costs are counted up to so many above the threshold, higher ones in the last bucket
+    private static final int COST_HISTOGRAM_SIZE = 32;
+
     private Step initialStep;
     private SearchResult searchResult;
-    private boolean isOriginal;
     private long createdNodes;
+    private SearchCounters counters;
+    // length of the best known solution, steps which can not lead to a shorter one are pruned
+    private int upperBound;
+    // target growth of expanded nodes between iterations, 0 when the next threshold is the smallest cut off cost
+    private final double thresholdGrowth;
+    // numbers of cut off children by their cost above the threshold, null when thresholdGrowth is 0
+    private final long[] cutoffCosts;
+    // shortest solution found in the running iteration, kept until no shorter one can exist
+    private Step bestStep;
+    // children buffer reused by every expansion of this thread
+    private final ChildBatch batch;
+
+    /**
+     * DFS construtor - setup initial variables
+     * @param initial initial step, from which program start searching
+     * @param searchResult reference to search results object related to Solver
+     */
+    DeepFirstSearch(Step initial, SearchResult searchResult) {
+        this(initial, searchResult, Integer.MAX_VALUE);
+    }
 
     /**
      * DFS construtor - setup initial variables
+     * When every step below the upper bound is searched without solution,
+     * the search is stopped with EXHAUSTED status
      * @param initial initial step, from which program start searching
      * @param searchResult reference to search results object related to Solver
-     * @param isOriginal - true if searching is from initial Board
+     * @param upperBound length of the best known solution, Integer.MAX_VALUE if there is none
      */
-    DeepFirstSearch(Step initial, SearchResult searchResult, boolean isOriginal) {
+    DeepFirstSearch(Step initial, SearchResult searchResult, int upperBound) {
+        this(initial, searchResult, upperBound, 0);
+    }
+
+    /**
+     * DFS construtor - setup initial variables
+     * With threshold growth the next threshold is predicted as in IDA*_CR: costs of cut off children
+     * are counted and the threshold is raised to the cost at which the next iteration is expected
+     * to expand thresholdGrowth times more nodes. Such iteration can meet a longer solution first,
+     * so it goes on as branch and bound below the best found solution and ends with the shortest one
+     * @param initial initial step, from which program start searching
+     * @param searchResult reference to search results object related to Solver
+     * @param upperBound length of the best known solution, Integer.MAX_VALUE if there is none
+     * @param thresholdGrowth target growth of expanded nodes between iterations, above 1, or 0 to raise
+     *                        the threshold to the smallest cut off cost
+     */
+    DeepFirstSearch(Step initial, SearchResult searchResult, int upperBound, double thresholdGrowth) {
         this.initialStep = initial;
+        this.upperBound = upperBound;
         this.searchResult = searchResult;
-        this.isOriginal = isOriginal;
         this.createdNodes = 1L;
+        this.counters = new SearchCounters(searchResult);
+        this.thresholdGrowth = thresholdGrowth;
+        this.cutoffCosts = thresholdGrowth == 0 ? null : new long[COST_HISTOGRAM_SIZE];
+        this.batch = new ChildBatch(initial.getBoard().shape());
     }
 
     /**
@@ -26,48 +69,105 @@ public class DeepFirstSearch extends Thread{
      */
     @Override
     public void run() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
         int threshold = -1;
-        while(!this.searchResult.IsProblemSolved()) {
-            threshold = deepFirstSearch(initialStep, threshold);
+        // every solution is at least so long, the initial step is searched in the first iteration
+        int searchedBound = this.initialStep.getCost();
+        while(!this.searchResult.isFinished()) {
+            metrics.startIteration(threshold);
+            long expandedNodes = metrics.getTotalExpandedNodes();
+            int newThreshold = deepFirstSearch(initialStep, threshold, searchedBound);
+            this.counters.flush();
+            metrics.finishIteration();
+            if (this.bestStep != null) {
+                // the iteration searched every step which could lead to a shorter solution
+                saveSolution(this.bestStep);
+            } else if (newThreshold == Integer.MAX_VALUE) {
+                // nothing exceeded the threshold, all steps below the upper bound are searched
+                this.searchResult.stop(SolveStatus.EXHAUSTED);
+            } else if (newThreshold != -1) {
+                searchedBound = newThreshold;
+                this.searchResult.setSearchedBound(newThreshold);
+                threshold = this.cutoffCosts == null ? newThreshold
+                        : predictThreshold(threshold, metrics.getTotalExpandedNodes() - expandedNodes);
+            }
         }
-        if (!this.isOriginal) {
-            this.searchResult.setCreatedTwinBoardNodes(this.createdNodes);
-            return;
+        this.searchResult.setCreatedNodes(this.createdNodes);
+    }
+
+    /**
+     * Chooses the threshold of the next iteration from cut off costs of the finished one
+     * Every cut off child with cost not above the new threshold is expanded in the next iteration,
+     * so the threshold is the smallest cost at which they reach the target growth of expanded nodes
+     * @param threshold threshold of the finished iteration
+     * @param expandedNodes nodes expanded by the finished iteration
+     * @return threshold of the next iteration, the highest cut off cost if the target is not reached
+     */
+    private int predictThreshold(int threshold, long expandedNodes) {
+        double target = (this.thresholdGrowth - 1.0) * expandedNodes;
+        long nodes = 0;
+        int newThreshold = Integer.MAX_VALUE;
+        for (int i=0; i<COST_HISTOGRAM_SIZE; i++) {
+            if (this.cutoffCosts[i] == 0) { continue; }
+            nodes += this.cutoffCosts[i];
+            newThreshold = threshold + i + 1;
+            if (nodes >= target) { break; }
         }
-        this.searchResult.setCreatedOriginalBoardNodes(this.createdNodes);
+        Arrays.fill(this.cutoffCosts, 0);
+        return newThreshold;
     }
 
     /**
      * Function realising DFS with specific threshold
-     * if solution is found new threshold is equal to -1
+     * if solution is found new threshold is equal to -1, solutions longer than searchedBound
+     * are kept as the best step and the search goes on for shorter ones
      * @param step which is the beginning of the search
      * @param threshold for step cost
+     * @param searchedBound smallest cost not searched by previous iterations, no solution is shorter
      * @return new threshold value
      */
-    private int deepFirstSearch(Step step, int threshold) {
+    private int deepFirstSearch(Step step, int threshold, int searchedBound) {
         Stack<Step> stack = new Stack<>();
         stack.push(step);
         int newThreshold = Integer.MAX_VALUE;
         while (!stack.isEmpty()) {
-            // check if problem has been already solved
-            if (this.searchResult.IsProblemSolved()) {
+            // check if problem has been already solved or the search is stopped
+            if (this.searchResult.isFinished()) {
                 return -1;
             }
             // check if problem is solved
             Step s = stack.pop();
+            if (s.getLowerBound() >= this.upperBound) {
+                // pushed before a shorter solution was found
+                this.counters.cutoffs++;
+                continue;
+            }
             if (s.getBoard().isGoal()) {
-                saveSolution(s);
-                return -1;
+                if (s.getMoves() <= searchedBound) {
+                    saveSolution(s);
+                    return -1;
+                }
+                this.bestStep = s;
+                this.upperBound = s.getMoves();
+                continue;
             }
             // add to stack children of steps
-            for (Step i : s.nextSteps()) {
-                if (i.getCost() <= threshold) {
+            this.counters.expanded(s.getMoves());
+            for (Step i : s.nextSteps(this.batch)) {
+                this.counters.generatedNodes++;
+                if (i.getLowerBound() >= this.upperBound) {
+                    this.counters.cutoffs++;
+                } else if (i.getCost() <= threshold) {
                     stack.push(i);
                     this.createdNodes++;
                 } else {
+                    this.counters.cutoffs++;
                     if (i.getCost() < newThreshold) {
                         newThreshold = i.getCost();
                     }
+                    if (this.cutoffCosts != null) {
+                        this.cutoffCosts[Math.min(i.getCost() - threshold - 1, COST_HISTOGRAM_SIZE - 1)]++;
+                    }
                 }
             }
         }
@@ -79,19 +179,15 @@ public class DeepFirstSearch extends Thread{
      * @param finalStep step with final Board
      */
     private void saveSolution(Step finalStep) {
-        this.searchResult.setProblemIsSolved();
-        if (!this.isOriginal) {
+        if (!this.searchResult.setProblemIsSolved(finalStep.getMoves())) {
             return;
         }
-        Step parent = finalStep;
-        ArrayList<Board> solution = new ArrayList<>();
-        while (parent != null) {
-            solution.add(parent.getBoard());
-            parent = parent.getParent();
+        int[] directions = new int[finalStep.getMoves()];
+        for (Step step = finalStep; step.getParent() != null; step = step.getParent()) {
+            directions[step.getMoves()-1] = PuzzleState.direction(step.getParent().getBoard().zeroPosition(),
+                    step.getBoard().zeroPosition());
         }
-        Collections.reverse(solution);
-        this.searchResult.setSolution(solution);
+        this.searchResult.setSolution(new SolutionPath(this.initialStep.getBoard(), directions, directions.length));
         this.searchResult.setMoves(finalStep.getMoves());
-        this.searchResult.setPuzzlesAreSolvable();
     }
 }
@@ -0,0 +1,83 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Distributed IDA* search
+ * In every threshold iteration the root is expanded to the split depth as in ParallelDeepFirstSearch,
+ * subtrees below it are sent by SearchCoordinator to worker processes. All subtrees of one iteration
+ * use the same threshold, so the first found solution is optimal.
+ * Workers build the heuristic from the Heuristics constant, the root uses the same one,
+ * own heuristic implementations of the configuration can not be sent to other processes and are rejected
+ */
+public class DistributedSearch extends Thread {
+    private final Board initialBoard;
+    private final Heuristics heuristics;
+    private final SearchResult searchResult;
+    private final MovePruner pruner;
+    private final SearchCoordinator coordinator;
+    private final int splitDepth;
+
+    /**
+     * Distributed DFS constructor - setup initial variables
+     * @param initial initial board, from which program start searching
+     * @param heuristics chosen heuristics, the same on the root and on workers
+     * @param searchResult reference to search results object related to Solver
+     * @param pruner machine rejecting redundant move sequences, null to disable it on the root and workers
+     * @param coordinator coordinator with connected workers
+     * @param splitDepth depth to which the root is expanded in every iteration
+     */
+    DistributedSearch(Board initial, Heuristics heuristics, SearchResult searchResult, MovePruner pruner,
+                      SearchCoordinator coordinator, int splitDepth) {
+        this.initialBoard = initial;
+        this.heuristics = heuristics;
+        this.searchResult = searchResult;
+        this.pruner = pruner;
+        this.coordinator = coordinator;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Main thread function - override thread's run
+     */
+    @Override
+    public void run() {
+        Heuristic heuristic = this.heuristics.forShape(this.initialBoard.rows(), this.initialBoard.columns());
+        BoundedSearch rootSearch = new BoundedSearch(this.initialBoard, heuristic, this.searchResult,
+                null, this.pruner);
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        long solve = this.coordinator.newSolve();
+        String board = this.heuristics.name() + " " + (this.pruner != null) + " " + boardMessage();
+        int threshold = -1;
+        while (!this.searchResult.isFinished()) {
+            rootSearch.prepare(threshold);
+            metrics.startIteration(threshold);
+            List<int[]> frontier = new ArrayList<>();
+            int newThreshold = rootSearch.expand(threshold, this.splitDepth, frontier);
+            rootSearch.flushCounters();
+            if (newThreshold == BoundedSearch.FOUND) {
+                metrics.finishIteration();
+                break;
+            }
+            int result = this.coordinator.searchIteration(solve, board, this.initialBoard, threshold,
+                    frontier, this.searchResult);
+            metrics.finishIteration();
+            if (result == BoundedSearch.FOUND) {
+                break;
+            }
+            threshold = Math.min(newThreshold, result);
+        }
+        this.searchResult.setCreatedNodes(this.searchResult.getCreatedNodes() + rootSearch.getCreatedNodes());
+    }
+
+    /**
+     * @return board as RxC and tiles in row order
+     */
+    private String boardMessage() {
+        StringBuilder message = new StringBuilder()
+                .append(this.initialBoard.rows()).append('x').append(this.initialBoard.columns());
+        for (int tile : this.initialBoard.toArray()) {
+            message.append(' ').append(tile);
+        }
+        return message.toString();
+    }
+}
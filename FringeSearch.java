@@ -0,0 +1,347 @@
+import java.util.Arrays;
+
+/**
+ * Fringe Search
+ * States are kept in a cache with the number of moves they were reached with, so like A* no state is
+ * expanded twice with the same moves, and like IDA* the fringe is visited in passes bounded by a threshold
+ * without any priority queue. The now list is searched depth first, children and states above the threshold
+ * go to the later list, which becomes the now list of the next pass with the smallest f above the old threshold.
+ * States replaced in the cache by a shorter path are skipped when they are taken from the lists.
+ * When the cache and the lists would use more than the memory limit, the cache is dropped
+ * and the search goes on as IDA* from the threshold of the running pass
+ */
+public class FringeSearch extends Thread {
+    // data of a state: moves << 32 | heuristic << 8 | last direction, NO_DIRECTION is stored as 0xFF
+    private static final int MOVES_SHIFT = 32;
+    private static final int DISTANCE_SHIFT = 8;
+    private static final long DIRECTION_MASK = 0xFF;
+    private static final int[] SEARCH_ORDER = {
+            PuzzleState.DOWN, PuzzleState.UP, PuzzleState.RIGHT, PuzzleState.LEFT};
+
+    private final Board initialBoard;
+    private final Heuristic heuristic;
+    private final SearchResult searchResult;
+    private final TranspositionTable table;
+    private final MovePruner pruner;
+    private final PerimeterDatabase perimeter;
+    private final long memoryLimitBytes;
+    private final BoardShape shape;
+    private final int words;
+    // one state in the lists is its words followed by its data
+    private final int stride;
+    private final int[] wordOf;
+    private final int[] shiftOf;
+    private final SearchCounters counters;
+    // dropped when the memory limit is reached
+    private OffHeapStateTable cache;
+    private long[] now;
+    private int nowSize;
+    private long[] later;
+    private int laterSize;
+    // smallest f of states added to the later list in the running pass
+    private int laterThreshold;
+    private final long[] state;
+    private final long[] child;
+    private final int[] tiles;
+    private long createdNodes;
+
+    /**
+     * Fringe search constructor - setup initial variables
+     * Table, pruner and perimeter are used by IDA* after the memory limit is reached
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table of IDA*, null to disable it
+     * @param pruner machine rejecting redundant move sequences of IDA*, null to disable it
+     * @param perimeter exact distances of boards near the goal for IDA*, null to disable it
+     * @param memoryLimitBytes memory of the cache and lists after which IDA* is used
+     */
+    FringeSearch(Board initial, Heuristic heuristic, SearchResult searchResult, TranspositionTable table,
+                 MovePruner pruner, PerimeterDatabase perimeter, long memoryLimitBytes) {
+        this.initialBoard = initial;
+        this.heuristic = heuristic;
+        this.searchResult = searchResult;
+        this.table = table;
+        this.pruner = pruner;
+        this.perimeter = perimeter;
+        this.memoryLimitBytes = memoryLimitBytes;
+        this.shape = initial.shape();
+        int m = this.shape.size();
+        this.words = PackedBoard.words(m);
+        this.stride = this.words + 1;
+        this.wordOf = new int[m];
+        this.shiftOf = new int[m];
+        for (int i=0; i<m; i++) {
+            this.wordOf[i] = PackedBoard.wordOf(i, m);
+            this.shiftOf[i] = PackedBoard.shiftOf(i, m);
+        }
+        this.counters = new SearchCounters(searchResult);
+        this.state = new long[this.stride];
+        this.child = new long[this.stride];
+        this.tiles = new int[m];
+    }
+
+    /**
+     * Main thread function - override thread's run
+     */
+    @Override
+    public void run() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        int distance = this.initialBoard.distanceFromSolution(this.heuristic);
+        this.cache = new OffHeapStateTable(this.words);
+        this.now = new long[16 * this.stride];
+        this.later = new long[16 * this.stride];
+        long[] root = Arrays.copyOf(this.initialBoard.packed(), this.stride);
+        root[this.words] = data(0, distance, PuzzleState.NO_DIRECTION);
+        this.cache.insert(this.cache.find(root, 0, PackedBoard.hash(root, 0, this.words)), root, 0, root[this.words]);
+        this.now = push(this.now, this.nowSize, root);
+        this.nowSize += this.stride;
+        this.createdNodes = 1L;
+
+        int threshold = distance;
+        while (!this.searchResult.isFinished()) {
+            metrics.startIteration(threshold);
+            int newThreshold = searchPass(threshold);
+            this.counters.flush();
+            metrics.finishIteration();
+            if (newThreshold == BoundedSearch.FOUND) {
+                break;
+            }
+            if (this.cache == null) {
+                searchIterative(threshold);
+                break;
+            }
+            if (newThreshold == Integer.MAX_VALUE) {
+                // nothing is left in the lists, every state was searched
+                this.searchResult.stop(SolveStatus.EXHAUSTED);
+                break;
+            }
+            long[] list = this.now;
+            this.now = this.later;
+            this.nowSize = this.laterSize;
+            this.later = list;
+            this.laterSize = 0;
+            threshold = newThreshold;
+        }
+        this.searchResult.setCreatedNodes(this.createdNodes);
+    }
+
+    /**
+     * One pass over the now list, states above the threshold are moved to the later list
+     * @param threshold for step cost
+     * @return smallest cost exceeding threshold, FOUND if solution is found or the search is stopped,
+     *         any other value when the memory limit is reached and the cache was dropped
+     */
+    private int searchPass(int threshold) {
+        this.laterThreshold = Integer.MAX_VALUE;
+        while (this.nowSize > 0) {
+            if (this.searchResult.isFinished()) {
+                return BoundedSearch.FOUND;
+            }
+            this.nowSize -= this.stride;
+            System.arraycopy(this.now, this.nowSize, this.state, 0, this.stride);
+            long data = this.state[this.words];
+            if (this.cache.get(this.state, 0, PackedBoard.hash(this.state, 0, this.words)) != data) {
+                // reached again by a shorter path after it was added to the list
+                continue;
+            }
+            int f = moves(data) + distance(data);
+            if (f > threshold) {
+                this.laterThreshold = Math.min(this.laterThreshold, f);
+                this.later = push(this.later, this.laterSize, this.state);
+                this.laterSize += this.stride;
+                continue;
+            }
+            if (!expand(threshold)) {
+                return BoundedSearch.FOUND;
+            }
+            if (this.cache == null) {
+                return threshold;
+            }
+        }
+        return this.laterThreshold;
+    }
+
+    /**
+     * Expands the state, children are added to the now list or to the later list if they exceed threshold
+     * The cache is dropped when a new state would exceed the memory limit
+     * @param threshold for step cost
+     * @return false if the state is the goal
+     */
+    private boolean expand(int threshold) {
+        long data = this.state[this.words];
+        int moves = moves(data);
+        int m = this.tiles.length;
+        long tileMask = (1L << PackedBoard.bitsPerTile(m)) - 1;
+        int zeroPosition = -1;
+        int hamming = 0;
+        for (int position=0; position<m; position++) {
+            int tile = (int) ((this.state[this.wordOf[position]] >>> this.shiftOf[position]) & tileMask);
+            this.tiles[position] = tile;
+            if (tile == 0) { zeroPosition = position; }
+            else if (tile != position+1) { hamming++; }
+        }
+        if (hamming == 0) {
+            saveSolution(moves);
+            return false;
+        }
+        this.counters.expanded(moves);
+        Heuristic.Evaluator evaluator = this.heuristic.newEvaluator(this.tiles);
+        int reverse = direction(data) == PuzzleState.NO_DIRECTION
+                ? PuzzleState.NO_DIRECTION : PuzzleState.opposite(direction(data));
+        // the now list is a stack, children pushed in reverse order are searched in SEARCH_ORDER
+        for (int i=SEARCH_ORDER.length-1; i>=0; i--) {
+            int direction = SEARCH_ORDER[i];
+            int target = this.shape.neighbor(zeroPosition, direction);
+            if (direction == reverse || target == BoardShape.NO_NEIGHBOR) {
+                continue;
+            }
+            this.counters.generatedNodes++;
+            int tile = this.tiles[target];
+            int distance = evaluator.distanceAfterMove(tile, target, zeroPosition);
+            System.arraycopy(this.state, 0, this.child, 0, this.words);
+            this.child[this.wordOf[target]] -= (long) tile << this.shiftOf[target];
+            this.child[this.wordOf[zeroPosition]] += (long) tile << this.shiftOf[zeroPosition];
+            this.child[this.words] = data(moves + 1, distance, direction);
+            long slot = this.cache.find(this.child, 0, PackedBoard.hash(this.child, 0, this.words));
+            if (slot >= 0) {
+                if (moves(this.cache.data(slot)) <= moves + 1) {
+                    this.counters.tablePrunes++;
+                    continue;
+                }
+                this.cache.setData(slot, this.child[this.words]);
+            } else {
+                if (memoryBytes() > this.memoryLimitBytes) {
+                    dropCache();
+                    return true;
+                }
+                this.cache.insert(slot, this.child, 0, this.child[this.words]);
+                this.createdNodes++;
+            }
+            if (moves + 1 + distance > threshold) {
+                this.counters.cutoffs++;
+                this.laterThreshold = Math.min(this.laterThreshold, moves + 1 + distance);
+                this.later = push(this.later, this.laterSize, this.child);
+                this.laterSize += this.stride;
+            } else {
+                this.now = push(this.now, this.nowSize, this.child);
+                this.nowSize += this.stride;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return memory of the cache after one more state and of both lists with one more state
+     */
+    private long memoryBytes() {
+        return this.cache.bytesAfterInsert() + 8L * (this.now.length + this.later.length + this.stride);
+    }
+
+    /**
+     * Frees the cache and the lists, their direct and heap memory is released by the garbage collector
+     */
+    private void dropCache() {
+        this.cache = null;
+        this.now = null;
+        this.later = null;
+        this.nowSize = 0;
+        this.laterSize = 0;
+    }
+
+    /**
+     * IDA* iterations after the memory limit was reached, as in InPlaceDeepFirstSearch
+     * @param threshold threshold of the interrupted pass, every solution has at least so many moves
+     */
+    private void searchIterative(int threshold) {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        BoundedSearch search = new BoundedSearch(this.initialBoard, this.heuristic, this.searchResult,
+                this.table, this.pruner, this.perimeter);
+        while (!this.searchResult.isFinished()) {
+            search.prepare(threshold);
+            metrics.startIteration(threshold);
+            threshold = search.search(0, threshold, PuzzleState.NO_DIRECTION);
+            search.flushCounters();
+            metrics.finishIteration();
+        }
+        this.createdNodes += search.getCreatedNodes();
+    }
+
+    /**
+     * @param list now or later list
+     * @param size used length of the list
+     * @param state state appended to the list
+     * @return the list or its bigger copy
+     */
+    private long[] push(long[] list, int size, long[] state) {
+        if (size + this.stride > list.length) {
+            list = Arrays.copyOf(list, Math.max(2 * list.length, size + this.stride));
+        }
+        System.arraycopy(state, 0, list, size, this.stride);
+        return list;
+    }
+
+    /**
+     * Follows last moves stored with states from the goal in state back to the initial board
+     * @param moves number of moves to the goal
+     */
+    private void saveSolution(int moves) {
+        if (!this.searchResult.setProblemIsSolved(moves)) {
+            return;
+        }
+        long[] board = Arrays.copyOf(this.state, this.words);
+        int[] tiles = PackedBoard.unpack(board, this.shape.size());
+        int zeroPosition = this.shape.size() - 1;
+        int[] directions = new int[moves];
+        int length = 0;
+        for (long data = this.state[this.words]; direction(data) != PuzzleState.NO_DIRECTION; ) {
+            int direction = direction(data);
+            directions[length++] = direction;
+            int parentPosition = this.shape.neighbor(zeroPosition, PuzzleState.opposite(direction));
+            tiles[zeroPosition] = tiles[parentPosition];
+            tiles[parentPosition] = 0;
+            zeroPosition = parentPosition;
+            board = PackedBoard.pack(tiles);
+            data = this.cache.get(board, 0, PackedBoard.hash(board));
+        }
+        for (int i=0; i<length/2; i++) {
+            int direction = directions[i];
+            directions[i] = directions[length-1-i];
+            directions[length-1-i] = direction;
+        }
+        this.searchResult.setSolution(new SolutionPath(this.initialBoard, directions, length));
+        this.searchResult.setMoves(moves);
+    }
+
+    /**
+     * @return data of a state stored in the cache and the lists
+     */
+    private static long data(int moves, int distance, int direction) {
+        return (long) moves << MOVES_SHIFT | (long) distance << DISTANCE_SHIFT | (direction & DIRECTION_MASK);
+    }
+
+    /**
+     * @param data data of a state
+     * @return number of moves from the initial board
+     */
+    private static int moves(long data) {
+        return (int) (data >>> MOVES_SHIFT);
+    }
+
+    /**
+     * @param data data of a state
+     * @return heuristic distance of the state
+     */
+    private static int distance(long data) {
+        return (int) (data >>> DISTANCE_SHIFT) & 0xFFFFFF;
+    }
+
+    /**
+     * @param data data of a state
+     * @return direction of the last move, NO_DIRECTION for the initial board
+     */
+    private static int direction(long data) {
+        int direction = (int) (data & DIRECTION_MASK);
+        return direction == DIRECTION_MASK ? PuzzleState.NO_DIRECTION : direction;
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Number of tiles out of place
+ */
+final class HammingHeuristic implements Heuristic {
+    private static final HammingHeuristic INSTANCE = new HammingHeuristic();
+
+    /**
+     * The distance does not depend on the size and shape of the board
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static HammingHeuristic instance() {
+        return INSTANCE;
+    }
+
+    private HammingHeuristic() {
+    }
+
+    @Override
+    public int evaluate(int[] tiles) {
+        return TileLanes.get().hamming(tiles);
+    }
+
+    @Override
+    public Evaluator newEvaluator(int[] tiles) {
+        return new HammingEvaluator(evaluate(tiles));
+    }
+
+    /**
+     * @param tile moved tile
+     * @param from position of the tile before the move
+     * @param to position of the tile after the move
+     * @return change of the hamming distance
+     */
+    static int change(int tile, int from, int to) {
+        int change = 0;
+        if (from+1 == tile) { change++; }
+        if (to+1 == tile) { change--; }
+        return change;
+    }
+
+    private static final class HammingEvaluator implements Evaluator {
+        private int hamming;
+
+        HammingEvaluator(int hamming) {
+            this.hamming = hamming;
+        }
+
+        @Override
+        public int distance() {
+            return this.hamming;
+        }
+
+        @Override
+        public int distanceAfterMove(int tile, int from, int to) {
+            return this.hamming + change(tile, from, to);
+        }
+
+        @Override
+        public void move(int tile, int from, int to) {
+            this.hamming += change(tile, from, to);
+        }
+    }
+}
@@ -0,0 +1,460 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Hash distributed A* (HDA*)
+ * Every state is owned by the thread chosen by the hash of its packed board. The owner keeps
+ * the state in its own OffHeapStateTable and open list, so no state is expanded twice with the same
+ * number of moves and threads never lock each other. Generated states of other owners are collected
+ * in per-owner batches and sent to lock-free mailboxes.
+ *
+ * The first found solution is only an incumbent, the search ends when no thread has a state
+ * with f = moves + heuristic below it and no batch is on the way. The end is detected by one counter
+ * of running threads plus sent and not yet received batches: it can reach zero only when nothing is left.
+ * Memory grows with every stored state, unlike IDA* which repeats the tree in every iteration instead
+ */
+public class HashDistributedSearch extends Thread {
+    // states in one batch sent to another thread
+    private static final int BATCH_STATES = 128;
+    // expansions after which all incomplete batches are sent
+    private static final int SEND_INTERVAL = 64;
+    private static final int SPINS_BEFORE_PARK = 256;
+    private static final long PARK_NANOS = 50_000;
+    // data of a state: moves << 32 | heuristic << 8 | last direction, NO_DIRECTION is stored as 0xFF
+    private static final int MOVES_SHIFT = 32;
+    private static final int DISTANCE_SHIFT = 8;
+    private static final long DIRECTION_MASK = 0xFF;
+
+    private final Board initialBoard;
+    private final Heuristic heuristic;
+    private final SearchResult searchResult;
+    private final BoardShape shape;
+    private final int words;
+    // one state in open lists and batches is its words followed by its data
+    private final int stride;
+    private final int[] wordOf;
+    private final int[] shiftOf;
+    private final Worker[] workers;
+    // running workers plus batches sent and not yet received, zero ends the search
+    private final AtomicLong activity = new AtomicLong();
+    // moves of the best found solution
+    private final AtomicInteger bestMoves = new AtomicInteger(Integer.MAX_VALUE);
+
+    /**
+     * HDA* constructor - setup initial variables
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards, states reached later by a shorter path are opened again
+     * @param searchResult reference to search results object related to Solver
+     * @param threads number of worker threads
+     */
+    HashDistributedSearch(Board initial, Heuristic heuristic, SearchResult searchResult, int threads) {
+        this.initialBoard = initial;
+        this.heuristic = heuristic;
+        this.searchResult = searchResult;
+        this.shape = initial.shape();
+        int m = this.shape.size();
+        this.words = PackedBoard.words(m);
+        this.stride = this.words + 1;
+        this.wordOf = new int[m];
+        this.shiftOf = new int[m];
+        for (int i=0; i<m; i++) {
+            this.wordOf[i] = PackedBoard.wordOf(i, m);
+            this.shiftOf[i] = PackedBoard.shiftOf(i, m);
+        }
+        this.workers = new Worker[threads];
+        for (int i=0; i<threads; i++) {
+            this.workers[i] = new Worker(i);
+        }
+    }
+
+    /**
+     * Main thread function - override thread's run
+     */
+    @Override
+    public void run() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        int distance = this.initialBoard.distanceFromSolution(this.heuristic);
+        metrics.startIteration(distance);
+        long[] root = Arrays.copyOf(this.initialBoard.packed(), this.stride);
+        root[this.words] = data(0, distance, PuzzleState.NO_DIRECTION);
+        this.workers[owner(PackedBoard.hash(root, 0, this.words))].receive(root, 0);
+
+        this.activity.set(this.workers.length);
+        Thread[] threads = new Thread[this.workers.length];
+        for (int i=0; i<threads.length; i++) {
+            threads[i] = new Thread(this.workers[i], "hda-worker-" + i);
+            threads[i].setDaemon(true);
+            threads[i].start();
+        }
+        long createdNodes = 0;
+        for (int i=0; i<threads.length; i++) {
+            joinUninterruptibly(threads[i]);
+            createdNodes += this.workers[i].createdNodes;
+        }
+        metrics.finishIteration();
+        this.searchResult.setCreatedNodes(Math.max(1L, createdNodes));
+
+        int moves = this.bestMoves.get();
+        if (moves == Integer.MAX_VALUE || !this.searchResult.setProblemIsSolved(moves)) {
+            return;
+        }
+        this.searchResult.setSolution(solution());
+        this.searchResult.setMoves(moves);
+    }
+
+    /**
+     * Search is stopped through SearchResult, so the workers always end
+     * @param thread worker thread
+     */
+    private static void joinUninterruptibly(Thread thread) {
+        boolean interrupted = false;
+        while (thread.isAlive()) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Follows last moves stored with states from the goal back to the initial board,
+     * called when all workers ended
+     * @return moves of the best found solution
+     */
+    private SolutionPath solution() {
+        Worker finder = null;
+        for (Worker worker : this.workers) {
+            if (worker.goal != null && (finder == null || moves(worker.goal[this.words]) < moves(finder.goal[this.words]))) {
+                finder = worker;
+            }
+        }
+        long[] board = Arrays.copyOf(finder.goal, this.words);
+        int[] tiles = PackedBoard.unpack(board, this.shape.size());
+        int zeroPosition = blank(tiles);
+        int[] directions = new int[moves(finder.goal[this.words])];
+        int length = 0;
+        for (long data = finder.goal[this.words]; direction(data) != PuzzleState.NO_DIRECTION; ) {
+            int direction = direction(data);
+            directions[length++] = direction;
+            int parentPosition = this.shape.neighbor(zeroPosition, PuzzleState.opposite(direction));
+            tiles[zeroPosition] = tiles[parentPosition];
+            tiles[parentPosition] = 0;
+            zeroPosition = parentPosition;
+            board = PackedBoard.pack(tiles);
+            long hash = PackedBoard.hash(board);
+            data = this.workers[owner(hash)].table.get(board, 0, hash);
+        }
+        for (int i=0; i<length/2; i++) {
+            int direction = directions[i];
+            directions[i] = directions[length-1-i];
+            directions[length-1-i] = direction;
+        }
+        return new SolutionPath(this.initialBoard, directions, length);
+    }
+
+    /**
+     * @param hash hash of the packed board
+     * @return index of the thread owning the state, from the high bits which the tables do not use
+     */
+    private int owner(long hash) {
+        return (int) (((hash >>> 32) * this.workers.length) >>> 32);
+    }
+
+    /**
+     * @param tiles tiles in row order
+     * @return position of the blank
+     */
+    private static int blank(int[] tiles) {
+        for (int i=0; i<tiles.length; i++) {
+            if (tiles[i] == 0) { return i; }
+        }
+        return -1;
+    }
+
+    /**
+     * @return data of a state stored in tables, open lists and batches
+     */
+    private static long data(int moves, int distance, int direction) {
+        return (long) moves << MOVES_SHIFT | (long) distance << DISTANCE_SHIFT | (direction & DIRECTION_MASK);
+    }
+
+    /**
+     * @param data data of a state
+     * @return number of moves from the initial board
+     */
+    private static int moves(long data) {
+        return (int) (data >>> MOVES_SHIFT);
+    }
+
+    /**
+     * @param data data of a state
+     * @return heuristic distance of the state
+     */
+    private static int distance(long data) {
+        return (int) (data >>> DISTANCE_SHIFT) & 0xFFFFFF;
+    }
+
+    /**
+     * @param data data of a state
+     * @return direction of the last move, NO_DIRECTION for the initial board
+     */
+    private static int direction(long data) {
+        int direction = (int) (data & DIRECTION_MASK);
+        return direction == DIRECTION_MASK ? PuzzleState.NO_DIRECTION : direction;
+    }
+
+    /**
+     * One owner thread: its table, open list bucketed by f and mailbox
+     */
+    private final class Worker implements Runnable {
+        private final int index;
+        private final OffHeapStateTable table = new OffHeapStateTable(words);
+        private final ConcurrentLinkedQueue<long[]> mailbox = new ConcurrentLinkedQueue<>();
+        // open[f] holds states with given f one after another, the last one is expanded first
+        private long[][] open = new long[64][];
+        private int[] openSizes = new int[64];
+        private int lowest = Integer.MAX_VALUE;
+        private final long[][] outgoing = new long[workers.length][];
+        private final int[] outgoingSizes = new int[workers.length];
+        private final long[] state = new long[stride];
+        private final long[] child = new long[stride];
+        private final int[] tiles = new int[shape.size()];
+        private final SearchCounters counters = new SearchCounters(searchResult);
+        // packed goal with its data, null if this thread found no solution
+        private long[] goal;
+        private long createdNodes;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        @Override
+        public void run() {
+            int expansions = 0;
+            while (!searchResult.isFinished()) {
+                long[] batch;
+                while ((batch = this.mailbox.poll()) != null) {
+                    for (int offset=0; offset<batch.length; offset+=stride) {
+                        receive(batch, offset);
+                    }
+                    activity.decrementAndGet();
+                }
+                if (pop()) {
+                    expand();
+                    if (++expansions % SEND_INTERVAL == 0) {
+                        sendAll();
+                    }
+                    continue;
+                }
+                sendAll();
+                if (!waitForWork()) {
+                    break;
+                }
+            }
+            this.counters.flush();
+        }
+
+        /**
+         * Idle thread is not counted as running until a batch arrives
+         * @return true if a batch arrived, false if the search ended
+         */
+        private boolean waitForWork() {
+            activity.decrementAndGet();
+            for (int spins=0; ; spins++) {
+                if (!this.mailbox.isEmpty()) {
+                    activity.incrementAndGet();
+                    return true;
+                }
+                if (activity.get() == 0 || searchResult.isFinished()) {
+                    return false;
+                }
+                if (spins < SPINS_BEFORE_PARK) {
+                    Thread.onSpinWait();
+                } else {
+                    LockSupport.parkNanos(PARK_NANOS);
+                }
+            }
+        }
+
+        /**
+         * Adds state to the table and the open list unless it is known with at most as many moves
+         * @param states array holding the state
+         * @param offset index of the first word of the state
+         */
+        void receive(long[] states, int offset) {
+            long data = states[offset + words];
+            int moves = moves(data);
+            int f = moves + distance(data);
+            if (f >= bestMoves.get()) {
+                this.counters.cutoffs++;
+                return;
+            }
+            long slot = this.table.find(states, offset, PackedBoard.hash(states, offset, words));
+            if (slot >= 0) {
+                if (moves(this.table.data(slot)) <= moves) {
+                    this.counters.tablePrunes++;
+                    return;
+                }
+                this.table.setData(slot, data);
+            } else {
+                this.table.insert(slot, states, offset, data);
+                this.createdNodes++;
+            }
+            push(f, states, offset);
+        }
+
+        /**
+         * @param f moves plus heuristic of the state
+         * @param states array holding the state
+         * @param offset index of the first word of the state
+         */
+        private void push(int f, long[] states, int offset) {
+            if (f >= this.open.length) {
+                int length = Math.max(f + 1, this.open.length * 2);
+                this.open = Arrays.copyOf(this.open, length);
+                this.openSizes = Arrays.copyOf(this.openSizes, length);
+            }
+            long[] bucket = this.open[f];
+            int size = this.openSizes[f];
+            if (bucket == null || bucket.length < size + stride) {
+                bucket = Arrays.copyOf(bucket == null ? new long[0] : bucket, Math.max(16 * stride, 2 * (size + stride)));
+                this.open[f] = bucket;
+            }
+            System.arraycopy(states, offset, bucket, size, stride);
+            this.openSizes[f] = size + stride;
+            this.lowest = Math.min(this.lowest, f);
+        }
+
+        /**
+         * Takes the state with the lowest f below the best solution into state,
+         * states replaced later by a shorter path are skipped
+         * @return true if there is a state to expand
+         */
+        private boolean pop() {
+            int best = bestMoves.get();
+            while (this.lowest < Math.min(best, this.open.length)) {
+                int size = this.openSizes[this.lowest];
+                if (size == 0) {
+                    this.lowest++;
+                    continue;
+                }
+                size -= stride;
+                this.openSizes[this.lowest] = size;
+                System.arraycopy(this.open[this.lowest], size, this.state, 0, stride);
+                long stored = this.table.get(this.state, 0, PackedBoard.hash(this.state, 0, words));
+                if (stored == this.state[words]) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Expands the popped state, goal states become the incumbent solution
+         */
+        private void expand() {
+            long data = this.state[words];
+            int moves = moves(data);
+            int m = this.tiles.length;
+            long tileMask = (1L << PackedBoard.bitsPerTile(m)) - 1;
+            int zeroPosition = -1;
+            int hamming = 0;
+            for (int position=0; position<m; position++) {
+                int tile = (int) ((this.state[wordOf[position]] >>> shiftOf[position]) & tileMask);
+                this.tiles[position] = tile;
+                if (tile == 0) { zeroPosition = position; }
+                else if (tile != position+1) { hamming++; }
+            }
+            if (hamming == 0) {
+                foundGoal(moves);
+                return;
+            }
+            this.counters.expanded(moves);
+            Heuristic.Evaluator evaluator = heuristic.newEvaluator(this.tiles);
+            int reverse = direction(data) == PuzzleState.NO_DIRECTION
+                    ? PuzzleState.NO_DIRECTION : PuzzleState.opposite(direction(data));
+            for (int direction=PuzzleState.LEFT; direction<=PuzzleState.DOWN; direction++) {
+                int target = shape.neighbor(zeroPosition, direction);
+                if (direction == reverse || target == BoardShape.NO_NEIGHBOR) {
+                    continue;
+                }
+                this.counters.generatedNodes++;
+                int tile = this.tiles[target];
+                int distance = evaluator.distanceAfterMove(tile, target, zeroPosition);
+                if (moves + 1 + distance >= bestMoves.get()) {
+                    this.counters.cutoffs++;
+                    continue;
+                }
+                System.arraycopy(this.state, 0, this.child, 0, words);
+                this.child[wordOf[target]] -= (long) tile << shiftOf[target];
+                this.child[wordOf[zeroPosition]] += (long) tile << shiftOf[zeroPosition];
+                this.child[words] = data(moves + 1, distance, direction);
+                int owner = owner(PackedBoard.hash(this.child, 0, words));
+                if (owner == this.index) {
+                    receive(this.child, 0);
+                } else {
+                    send(owner, this.child);
+                }
+            }
+        }
+
+        /**
+         * @param moves moves of the goal state in state, it is kept if it is better than the incumbent
+         */
+        private void foundGoal(int moves) {
+            int best = bestMoves.get();
+            while (moves < best) {
+                if (bestMoves.compareAndSet(best, moves)) {
+                    this.goal = this.state.clone();
+                    return;
+                }
+                best = bestMoves.get();
+            }
+        }
+
+        /**
+         * @param owner index of the owning thread
+         * @param state state appended to the batch of the owner
+         */
+        private void send(int owner, long[] state) {
+            long[] batch = this.outgoing[owner];
+            if (batch == null) {
+                batch = new long[BATCH_STATES * stride];
+                this.outgoing[owner] = batch;
+            }
+            System.arraycopy(state, 0, batch, this.outgoingSizes[owner], stride);
+            this.outgoingSizes[owner] += stride;
+            if (this.outgoingSizes[owner] == batch.length) {
+                flush(owner);
+            }
+        }
+
+        /**
+         * Sends all incomplete batches
+         */
+        private void sendAll() {
+            for (int owner=0; owner<this.outgoing.length; owner++) {
+                if (this.outgoingSizes[owner] > 0) {
+                    flush(owner);
+                }
+            }
+        }
+
+        /**
+         * @param owner index of the thread receiving the batch, the batch is counted before it is visible
+         */
+        private void flush(int owner) {
+            long[] batch = Arrays.copyOf(this.outgoing[owner], this.outgoingSizes[owner]);
+            this.outgoingSizes[owner] = 0;
+            activity.incrementAndGet();
+            workers[owner].mailbox.add(batch);
+        }
+    }
+}
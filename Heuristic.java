@@ -0,0 +1,52 @@
+/**
+ * Heuristic estimating number of moves from a board to the goal
+ * Implementations keep only immutable, precomputed tables, so one object
+ * can be shared by many solvers and threads. Mutable per-search data is kept
+ * in evaluators, which support incremental evaluation of single moves
+ */
+public interface Heuristic {
+
+    /**
+     * Full evaluation of the board
+     * @param tiles tiles in row order, 0 is the blank
+     * @return estimated number of moves to the goal
+     */
+    int evaluate(int[] tiles);
+
+    /**
+     * Creates evaluator following the given tiles array
+     * The array is owned by the caller, which has to call Evaluator.move
+     * before it changes the array
+     * @param tiles tiles in row order, 0 is the blank
+     * @return new evaluator used by one thread only
+     */
+    Evaluator newEvaluator(int[] tiles);
+
+    /**
+     * Incremental evaluation of one search state
+     */
+    interface Evaluator {
+
+        /**
+         * @return estimated number of moves to the goal for current tiles
+         */
+        int distance();
+
+        /**
+         * Distance after the move, calculated without making the move
+         * @param tile moved tile
+         * @param from position of the tile before the move
+         * @param to position of the tile after the move, current blank position
+         * @return estimated number of moves after the move
+         */
+        int distanceAfterMove(int tile, int from, int to);
+
+        /**
+         * Updates evaluator before the tile is moved in the tiles array
+         * @param tile moved tile
+         * @param from position of the tile before the move
+         * @param to position of the tile after the move, current blank position
+         */
+        void move(int tile, int from, int to);
+    }
+}
@@ -1,7 +1,75 @@
 /**
  * Possible heuristics in N Puzzles Problem
+ * Every constant creates the Heuristic implementation for given board dimension,
+ * precomputed tables are shared by all solvers in the JVM.
+ * Manhattan, Hamming and linear conflicts also support rectangular boards
  */
 public enum Heuristics {
-    MANHATTAN,
-    HAMMING
+    MANHATTAN {
+        @Override
+        public Heuristic forDimension(int n) {
+            return ManhattanHeuristic.forDimension(n);
+        }
+
+        @Override
+        public Heuristic forShape(int rows, int columns) {
+            return ManhattanHeuristic.forShape(BoardShape.of(rows, columns));
+        }
+    },
+    HAMMING {
+        @Override
+        public Heuristic forDimension(int n) {
+            return HammingHeuristic.instance();
+        }
+
+        @Override
+        public Heuristic forShape(int rows, int columns) {
+            return HammingHeuristic.instance();
+        }
+    },
+    // additive disjoint pattern database, boards up to 5x5, see PatternDatabase
+    PATTERN_DATABASE {
+        @Override
+        public Heuristic forDimension(int n) {
+            return PatternDatabase.forDimension(n);
+        }
+    },
+    // Manhattan distance with linear conflicts, see LinearConflictHeuristic
+    LINEAR_CONFLICT {
+        @Override
+        public Heuristic forDimension(int n) {
+            return LinearConflictHeuristic.forDimension(n);
+        }
+
+        @Override
+        public Heuristic forShape(int rows, int columns) {
+            return LinearConflictHeuristic.forShape(BoardShape.of(rows, columns));
+        }
+    },
+    // walking distance, boards up to 4x4, see WalkingDistanceHeuristic
+    WALKING_DISTANCE {
+        @Override
+        public Heuristic forDimension(int n) {
+            return WalkingDistanceHeuristic.forDimension(n);
+        }
+    };
+
+    /**
+     * @param n board dimension
+     * @return heuristic implementation for boards of given dimension
+     */
+    public abstract Heuristic forDimension(int n);
+
+    /**
+     * @param rows number of rows
+     * @param columns number of columns
+     * @return heuristic implementation for boards of given shape
+     * @throws IllegalArgumentException if the heuristic supports only square boards and the shape is not square
+     */
+    public Heuristic forShape(int rows, int columns) {
+        if (rows != columns) {
+            throw new IllegalArgumentException(this + " supports only square boards, not " + rows + "x" + columns);
+        }
+        return forDimension(rows);
+    }
 }
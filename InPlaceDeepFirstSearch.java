@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IDA* search working on a single mutable PuzzleState
+ * Moves are made and undone in place and the path is kept in a primitive array,
+ * so no boards or steps are created during searching.
+ * With a checkpoint file every iteration is split into root subtrees searched one after another,
+ * progress is saved after a subtree when the checkpoint interval has passed, see SearchCheckpoint
+ */
+public class InPlaceDeepFirstSearch extends Thread {
+    // depth of root subtrees counted by checkpoints, hundreds of subtrees per iteration,
+    // so a resumed search repeats only a small part of the iteration
+    static final int CHECKPOINT_SPLIT_DEPTH = 8;
+
+    private final Board initialBoard;
+    private final Heuristic heuristic;
+    private final TranspositionTable table;
+    private final MovePruner pruner;
+    private final PerimeterDatabase perimeter;
+    private final BoundedSearch search;
+    private final SearchResult searchResult;
+    // null when progress is not saved
+    private final Path checkpointFile;
+    private final long checkpointIntervalNanos;
+    // saved progress from which the search continues, null to start from the first iteration
+    private final SearchCheckpoint resumeFrom;
+
+    /**
+     * DFS constructor - setup initial variables
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table, null to disable it
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     */
+    InPlaceDeepFirstSearch(Board initial, Heuristic heuristic, SearchResult searchResult,
+                           TranspositionTable table, MovePruner pruner) {
+        this(initial, heuristic, searchResult, table, pruner, null, null, 0, null);
+    }
+
+    /**
+     * DFS constructor saving progress to the checkpoint file
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table, null to disable it
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     * @param perimeter exact distances of boards near the goal, null to disable it
+     * @param checkpointFile file to which progress is saved, null to disable checkpoints
+     * @param checkpointIntervalMillis minimal time between two checkpoints
+     * @param resumeFrom progress loaded from the checkpoint file, null to start from the first iteration
+     */
+    InPlaceDeepFirstSearch(Board initial, Heuristic heuristic, SearchResult searchResult,
+                           TranspositionTable table, MovePruner pruner, PerimeterDatabase perimeter,
+                           Path checkpointFile, long checkpointIntervalMillis, SearchCheckpoint resumeFrom) {
+        this.initialBoard = initial;
+        this.heuristic = heuristic;
+        this.table = table;
+        this.pruner = pruner;
+        this.perimeter = perimeter;
+        this.search = new BoundedSearch(initial, heuristic, searchResult, table, pruner, perimeter);
+        this.searchResult = searchResult;
+        this.checkpointFile = checkpointFile;
+        this.checkpointIntervalNanos = checkpointIntervalMillis * 1_000_000L;
+        this.resumeFrom = resumeFrom;
+    }
+
+    /**
+     * Main thread function - override thread's run
+     */
+    @Override
+    public void run() {
+        if (this.checkpointFile != null) {
+            runWithCheckpoints();
+            return;
+        }
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        int threshold = -1;
+        while (!this.searchResult.isFinished()) {
+            this.search.prepare(threshold);
+            metrics.startIteration(threshold);
+            threshold = this.search.search(0, threshold, PuzzleState.NO_DIRECTION);
+            this.search.flushCounters();
+            metrics.finishIteration();
+        }
+        this.searchResult.setCreatedNodes(1L + this.search.getCreatedNodes());
+    }
+
+    /**
+     * Iterations are split into root subtrees as in ParallelDeepFirstSearch, but searched in order,
+     * searched subtrees of a resumed iteration are skipped
+     */
+    private void runWithCheckpoints() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        String key = SearchCheckpoint.key(this.initialBoard, this.heuristic, this.pruner != null);
+        // the root is expanded without the table and the perimeter, so subtrees come in the same order in every run
+        BoundedSearch rootSearch = new BoundedSearch(this.initialBoard, this.heuristic, this.searchResult,
+                null, this.pruner);
+        int threshold = -1;
+        int completedSubtrees = 0;
+        int newThreshold = Integer.MAX_VALUE;
+        long createdNodes = 1L;
+        if (this.resumeFrom != null) {
+            threshold = this.resumeFrom.getThreshold();
+            completedSubtrees = this.resumeFrom.getCompletedSubtrees();
+            newThreshold = this.resumeFrom.getNewThreshold();
+            createdNodes = this.resumeFrom.getCreatedNodes();
+            metrics.add(this.resumeFrom.getExpandedNodes(), 0, 0, 0, 0);
+        }
+        long lastCheckpoint = System.nanoTime();
+        while (!this.searchResult.isFinished()) {
+            rootSearch.prepare(threshold);
+            metrics.startIteration(threshold);
+            List<int[]> frontier = new ArrayList<>();
+            newThreshold = Math.min(newThreshold, rootSearch.expand(threshold, CHECKPOINT_SPLIT_DEPTH, frontier));
+            rootSearch.flushCounters();
+            for (int i=completedSubtrees; i<frontier.size() && !this.searchResult.isFinished(); i++) {
+                int[] prefix = frontier.get(i);
+                BoundedSearch subtreeSearch = new BoundedSearch(this.initialBoard, this.heuristic, this.searchResult,
+                        this.table, this.pruner, this.perimeter);
+                subtreeSearch.prepare(threshold);
+                subtreeSearch.applyPrefix(prefix);
+                int lastDirection = prefix.length == 0 ? PuzzleState.NO_DIRECTION : prefix[prefix.length-1];
+                int result = subtreeSearch.search(prefix.length, threshold, lastDirection);
+                subtreeSearch.flushCounters();
+                createdNodes += subtreeSearch.getCreatedNodes();
+                if (result != BoundedSearch.FOUND) {
+                    newThreshold = Math.min(newThreshold, result);
+                } else if (!this.searchResult.IsProblemSolved()) {
+                    // stopped search saves its progress, the interrupted subtree is searched again on resume
+                    saveCheckpoint(new SearchCheckpoint(key, threshold, i, newThreshold,
+                            createdNodes + rootSearch.getCreatedNodes(), metrics.getTotalExpandedNodes()));
+                    break;
+                }
+                if (System.nanoTime() - lastCheckpoint >= this.checkpointIntervalNanos) {
+                    saveCheckpoint(new SearchCheckpoint(key, threshold, i + 1, newThreshold,
+                            createdNodes + rootSearch.getCreatedNodes(), metrics.getTotalExpandedNodes()));
+                    lastCheckpoint = System.nanoTime();
+                }
+            }
+            metrics.finishIteration();
+            threshold = newThreshold;
+            completedSubtrees = 0;
+            newThreshold = Integer.MAX_VALUE;
+        }
+        this.searchResult.setCreatedNodes(createdNodes + rootSearch.getCreatedNodes());
+        if (this.searchResult.IsProblemSolved()) {
+            try {
+                Files.deleteIfExists(this.checkpointFile);
+            } catch (IOException e) {
+                // the old checkpoint only repeats the search of the solved board
+            }
+        }
+    }
+
+    /**
+     * @param checkpoint progress of the search
+     */
+    private void saveCheckpoint(SearchCheckpoint checkpoint) {
+        try {
+            checkpoint.save(this.checkpointFile);
+        } catch (IOException e) {
+            // the search goes on, the next checkpoint tries again
+        }
+    }
+}
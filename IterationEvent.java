@@ -0,0 +1,45 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight recorder event of one finished threshold iteration, see JfrMetricsSink
+ */
+@Name("npuzzle.Iteration")
+@Label("IDA* Iteration")
+@Category("N Puzzle")
+@Description("Statistics of one threshold iteration of IDA*")
+@StackTrace(false)
+class IterationEvent extends Event {
+    @Label("Threshold")
+    int threshold;
+
+    @Label("Expanded Nodes")
+    long expandedNodes;
+
+    @Label("Re-expanded Nodes")
+    long reexpandedNodes;
+
+    @Label("Generated Nodes")
+    long generatedNodes;
+
+    @Label("Cutoffs")
+    long cutoffs;
+
+    @Label("Table Prunes")
+    long tablePrunes;
+
+    @Label("Max Depth")
+    int maxDepth;
+
+    @Label("Iteration Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long iterationTime;
+
+    @Label("Nodes Per Second")
+    long nodesPerSecond;
+}
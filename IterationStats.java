@@ -0,0 +1,126 @@
+/**
+ * Statistics of one threshold iteration of IDA*
+ * Finished iterations are passed to MetricsSink.iterationFinished,
+ * the running iteration is passed to MetricsSink.progress with counters collected so far
+ */
+public final class IterationStats {
+    private final int threshold;
+    private final long expandedNodes;
+    private final long reexpandedNodes;
+    private final long generatedNodes;
+    private final long cutoffs;
+    private final long tablePrunes;
+    private final int maxDepth;
+    private final long timeNanos;
+    private final long estimatedNodes;
+
+    IterationStats(int threshold, long expandedNodes, long reexpandedNodes, long generatedNodes, long cutoffs,
+                   long tablePrunes, int maxDepth, long timeNanos, long estimatedNodes) {
+        this.threshold = threshold;
+        this.expandedNodes = expandedNodes;
+        this.reexpandedNodes = reexpandedNodes;
+        this.generatedNodes = generatedNodes;
+        this.cutoffs = cutoffs;
+        this.tablePrunes = tablePrunes;
+        this.maxDepth = maxDepth;
+        this.timeNanos = timeNanos;
+        this.estimatedNodes = estimatedNodes;
+    }
+
+    /**
+     * @return threshold (bound of f = g + h) of the iteration
+     */
+    public int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * @return number of nodes whose children were generated
+     */
+    public long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Every node expanded by the previous iteration has cost below its threshold, so it is expanded again
+     * by this one. Nodes pruned by a transposition table are counted too, so the number is an estimate
+     * @return number of expanded nodes already expanded by the previous iteration, 0 for the first one
+     */
+    public long getReexpandedNodes() {
+        return this.reexpandedNodes;
+    }
+
+    /**
+     * @return number of generated children, with children above threshold
+     */
+    public long getGeneratedNodes() {
+        return this.generatedNodes;
+    }
+
+    /**
+     * @return number of children not entered because their cost exceeds threshold
+     */
+    public long getCutoffs() {
+        return this.cutoffs;
+    }
+
+    /**
+     * @return number of nodes pruned by the transposition table
+     */
+    public long getTablePrunes() {
+        return this.tablePrunes;
+    }
+
+    /**
+     * @return deepest expanded node, in moves from the initial board
+     */
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    /**
+     * @return time of the iteration in nanoseconds
+     */
+    public long getTimeNanos() {
+        return this.timeNanos;
+    }
+
+    /**
+     * @return expanded nodes per second
+     */
+    public long getNodesPerSecond() {
+        return this.timeNanos == 0 ? 0 : this.expandedNodes * 1_000_000_000L / this.timeNanos;
+    }
+
+    /**
+     * Expected size of the iteration, the growth of the last two iterations is assumed
+     * @return estimated number of expanded nodes of the whole iteration, 0 if unknown
+     */
+    public long getEstimatedNodes() {
+        return this.estimatedNodes;
+    }
+
+    /**
+     * @return estimated time to the end of the iteration in milliseconds, -1 if unknown
+     */
+    public long getEstimatedRemainingMillis() {
+        long nodesPerSecond = getNodesPerSecond();
+        if (this.estimatedNodes == 0 || nodesPerSecond == 0) {
+            return -1;
+        }
+        return Math.max(0, this.estimatedNodes - this.expandedNodes) * 1000 / nodesPerSecond;
+    }
+
+    @Override
+    public String toString() {
+        return "bound " + this.threshold
+                + ": expanded " + this.expandedNodes
+                + ", re-expanded " + this.reexpandedNodes
+                + ", generated " + this.generatedNodes
+                + ", cutoffs " + this.cutoffs
+                + ", table prunes " + this.tablePrunes
+                + ", max depth " + this.maxDepth
+                + ", " + this.timeNanos / 1_000_000 + " ms"
+                + ", " + getNodesPerSecond() + " nodes/s";
+    }
+}
@@ -0,0 +1,25 @@
+/**
+ * Commits a flight recorder event for every finished iteration
+ * Events are recorded only when a recording with npuzzle.Iteration enabled is running,
+ * e.g. java -XX:StartFlightRecording:filename=search.jfr
+ */
+public class JfrMetricsSink implements MetricsSink {
+
+    @Override
+    public void iterationFinished(IterationStats stats) {
+        IterationEvent event = new IterationEvent();
+        if (!event.isEnabled()) {
+            return;
+        }
+        event.threshold = stats.getThreshold();
+        event.expandedNodes = stats.getExpandedNodes();
+        event.reexpandedNodes = stats.getReexpandedNodes();
+        event.generatedNodes = stats.getGeneratedNodes();
+        event.cutoffs = stats.getCutoffs();
+        event.tablePrunes = stats.getTablePrunes();
+        event.maxDepth = stats.getMaxDepth();
+        event.iterationTime = stats.getTimeNanos();
+        event.nodesPerSecond = stats.getNodesPerSecond();
+        event.commit();
+    }
+}
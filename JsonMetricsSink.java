@@ -0,0 +1,55 @@
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes summary of every finished search as one line of JSON
+ * Searches of many solvers sharing the sink are written as separate lines
+ */
+public class JsonMetricsSink implements MetricsSink {
+    private final PrintWriter output;
+
+    /**
+     * @param output destination of JSON lines, flushed after every search
+     */
+    public JsonMetricsSink(Writer output) {
+        if (output == null) {
+            throw new IllegalArgumentException();
+        }
+        this.output = new PrintWriter(output);
+    }
+
+    @Override
+    public void searchFinished(int moves, List<IterationStats> iterations) {
+        StringBuilder json = new StringBuilder();
+        long nodes = 0;
+        long reexpanded = 0;
+        long time = 0;
+        json.append("{\"moves\":").append(moves).append(",\"iterations\":[");
+        for (int i = 0; i < iterations.size(); i++) {
+            IterationStats stats = iterations.get(i);
+            nodes += stats.getExpandedNodes();
+            reexpanded += stats.getReexpandedNodes();
+            time += stats.getTimeNanos();
+            if (i > 0) { json.append(','); }
+            json.append("{\"threshold\":").append(stats.getThreshold())
+                    .append(",\"expandedNodes\":").append(stats.getExpandedNodes())
+                    .append(",\"reexpandedNodes\":").append(stats.getReexpandedNodes())
+                    .append(",\"generatedNodes\":").append(stats.getGeneratedNodes())
+                    .append(",\"cutoffs\":").append(stats.getCutoffs())
+                    .append(",\"tablePrunes\":").append(stats.getTablePrunes())
+                    .append(",\"maxDepth\":").append(stats.getMaxDepth())
+                    .append(",\"timeNanos\":").append(stats.getTimeNanos())
+                    .append(",\"nodesPerSecond\":").append(stats.getNodesPerSecond())
+                    .append('}');
+        }
+        json.append("],\"expandedNodes\":").append(nodes)
+                .append(",\"reexpandedNodes\":").append(reexpanded)
+                .append(",\"timeNanos\":").append(time)
+                .append('}');
+        synchronized (this.output) {
+            this.output.println(json);
+            this.output.flush();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free histogram of latencies in microseconds
+ * Buckets are logarithmic: every power of two is split into SUB_BUCKETS equal parts,
+ * so percentiles are reported with at most 1/SUB_BUCKETS relative error
+ * and recording is one atomic increment
+ */
+final class LatencyHistogram {
+    private static final int SUB_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BITS;
+    private static final int BUCKETS = (64 - SUB_BITS + 1) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+
+    /**
+     * @param micros recorded latency in microseconds
+     */
+    void record(long micros) {
+        long value = Math.max(0, micros);
+        this.counts.incrementAndGet(bucket(value));
+        this.total.increment();
+        this.sum.add(value);
+    }
+
+    /**
+     * @return number of recorded latencies
+     */
+    long count() {
+        return this.total.sum();
+    }
+
+    /**
+     * @return mean latency in microseconds, 0 if nothing is recorded
+     */
+    long mean() {
+        long count = this.total.sum();
+        return count == 0 ? 0 : this.sum.sum() / count;
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return upper bound of the bucket containing the percentile in microseconds, 0 if nothing is recorded
+     */
+    long percentile(double percentile) {
+        long count = 0;
+        long[] snapshot = new long[BUCKETS];
+        for (int i=0; i<BUCKETS; i++) {
+            snapshot[i] = this.counts.get(i);
+            count += snapshot[i];
+        }
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+        long seen = 0;
+        for (int i=0; i<BUCKETS; i++) {
+            seen += snapshot[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    /**
+     * Values below SUB_BUCKETS have own buckets, bigger ones share the bucket
+     * with values of the same highest bit and the same next SUB_BITS bits
+     * @param value latency
+     * @return index of the bucket
+     */
+    private static int bucket(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) - SUB_BUCKETS);
+    }
+
+    /**
+     * @param bucket index of the bucket
+     * @return largest value of the bucket
+     */
+    private static long upperBound(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+        int shift = bucket / SUB_BUCKETS - 1;
+        long first = (long) (SUB_BUCKETS + bucket % SUB_BUCKETS) << shift;
+        return first + (1L << shift) - 1;
+    }
+}
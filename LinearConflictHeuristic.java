@@ -0,0 +1,198 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Manhattan distance with linear conflicts
+ * Two tiles in their goal row (or column) in reversed order need at least
+ * two extra moves. For every line length the minimal number of tiles which have to leave
+ * the line is precomputed for all line contents, so evaluation of a line is one table read.
+ * Rows and columns of rectangular boards have different lengths and use their own tables
+ */
+final class LinearConflictHeuristic implements Heuristic {
+    private static final ConcurrentHashMap<BoardShape, LinearConflictHeuristic> HEURISTICS = new ConcurrentHashMap<>();
+    // biggest table of line contents, bigger boards compute conflicts directly
+    private static final int MAX_TABLE_SIZE = 1 << 22;
+
+    private final int rows;
+    private final int columns;
+    private final ManhattanHeuristic manhattan;
+    // extra moves for every content of a row and of a column, null if the table would be too big
+    private final byte[] rowTable;
+    private final byte[] columnTable;
+
+    /**
+     * @param n board dimension
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static LinearConflictHeuristic forDimension(int n) {
+        return forShape(BoardShape.square(n));
+    }
+
+    /**
+     * @param shape board shape
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static LinearConflictHeuristic forShape(BoardShape shape) {
+        return HEURISTICS.computeIfAbsent(shape, LinearConflictHeuristic::new);
+    }
+
+    /**
+     * @param shape board shape
+     */
+    private LinearConflictHeuristic(BoardShape shape) {
+        this.rows = shape.rows();
+        this.columns = shape.columns();
+        this.manhattan = ManhattanHeuristic.forShape(shape);
+        this.rowTable = conflictTable(this.columns);
+        this.columnTable = this.rows == this.columns ? this.rowTable : conflictTable(this.rows);
+    }
+
+    /**
+     * @param length number of cells in the line
+     * @return extra moves for every line content, null if the table would be too big
+     */
+    private static byte[] conflictTable(int length) {
+        double tableSize = Math.pow(length+1, length);
+        if (tableSize > MAX_TABLE_SIZE) {
+            return null;
+        }
+        // line content is a number in base length+1, digit length means tile from other line
+        byte[] table = new byte[(int) tableSize];
+        int[] digits = new int[length];
+        for (int code=0; code<table.length; code++) {
+            int rest = code;
+            for (int i=0; i<length; i++) {
+                digits[i] = rest % (length+1);
+                rest /= length+1;
+            }
+            table[code] = (byte) conflicts(digits, length);
+        }
+        return table;
+    }
+
+    /**
+     * Tiles which are not in increasing order have to leave the line,
+     * so the number of such tiles is the line length minus longest increasing subsequence
+     * @param digits goal indexes of tiles in the line, n for tiles from other lines
+     * @param n number of cells in the line
+     * @return number of extra moves caused by the line
+     */
+    private static int conflicts(int[] digits, int n) {
+        int[] longest = new int[n];
+        int count = 0;
+        int best = 0;
+        for (int i=0; i<n; i++) {
+            if (digits[i] == n) { continue; }
+            count++;
+            longest[i] = 1;
+            for (int j=0; j<i; j++) {
+                if (digits[j] < digits[i] && longest[j]+1 > longest[i]) { longest[i] = longest[j]+1; }
+            }
+            best = Math.max(best, longest[i]);
+        }
+        return 2 * (count - best);
+    }
+
+    @Override
+    public int evaluate(int[] tiles) {
+        return newEvaluator(tiles).distance();
+    }
+
+    @Override
+    public Evaluator newEvaluator(int[] tiles) {
+        return new LinearConflictEvaluator(tiles);
+    }
+
+    private final class LinearConflictEvaluator implements Evaluator {
+        private final int[] tiles;
+        private final int[] rowConflicts;
+        private final int[] columnConflicts;
+        private final int[] digits;
+        private int manhattanDistance;
+        private int conflicts;
+
+        /**
+         * @param tiles tiles followed by this evaluator
+         */
+        LinearConflictEvaluator(int[] tiles) {
+            this.tiles = tiles;
+            this.rowConflicts = new int[rows];
+            this.columnConflicts = new int[columns];
+            this.digits = new int[Math.max(rows, columns)];
+            this.manhattanDistance = manhattan.evaluate(tiles);
+            for (int line=0; line<rows; line++) {
+                this.rowConflicts[line] = lineConflicts(line, true, 0, -1, -1);
+                this.conflicts += this.rowConflicts[line];
+            }
+            for (int line=0; line<columns; line++) {
+                this.columnConflicts[line] = lineConflicts(line, false, 0, -1, -1);
+                this.conflicts += this.columnConflicts[line];
+            }
+        }
+
+        /**
+         * Extra moves of one line, with the tile treated as already moved
+         * @param line index of the row or column
+         * @param isRow true for rows, false for columns
+         * @param tile moved tile
+         * @param from position of the tile before the move, -1 for no move
+         * @param to position of the tile after the move, -1 for no move
+         * @return number of extra moves caused by the line
+         */
+        private int lineConflicts(int line, boolean isRow, int tile, int from, int to) {
+            int length = isRow ? columns : rows;
+            int code = 0;
+            for (int i=length-1; i>=0; i--) {
+                int position = isRow ? line*columns + i : i*columns + line;
+                int value = position == from ? 0 : position == to ? tile : this.tiles[position];
+                int digit = length;
+                if (value != 0) {
+                    int goalLine = isRow ? (value-1)/columns : (value-1)%columns;
+                    if (goalLine == line) { digit = isRow ? (value-1)%columns : (value-1)/columns; }
+                }
+                this.digits[i] = digit;
+                code = code*(length+1) + digit;
+            }
+            byte[] table = isRow ? rowTable : columnTable;
+            return table != null ? table[code] : conflicts(this.digits, length);
+        }
+
+        /**
+         * @return change of conflicts after the move, lines are updated when update is true
+         */
+        private int conflictsChange(int tile, int from, int to, boolean update) {
+            int change = 0;
+            int fromRow = from/columns, toRow = to/columns;
+            int fromColumn = from%columns, toColumn = to%columns;
+            change += lineChange(fromRow, true, tile, from, to, update);
+            if (toRow != fromRow) { change += lineChange(toRow, true, tile, from, to, update); }
+            change += lineChange(fromColumn, false, tile, from, to, update);
+            if (toColumn != fromColumn) { change += lineChange(toColumn, false, tile, from, to, update); }
+            return change;
+        }
+
+        private int lineChange(int line, boolean isRow, int tile, int from, int to, boolean update) {
+            int[] lines = isRow ? this.rowConflicts : this.columnConflicts;
+            int value = lineConflicts(line, isRow, tile, from, to);
+            int change = value - lines[line];
+            if (update) { lines[line] = value; }
+            return change;
+        }
+
+        @Override
+        public int distance() {
+            return this.manhattanDistance + this.conflicts;
+        }
+
+        @Override
+        public int distanceAfterMove(int tile, int from, int to) {
+            return this.manhattanDistance + manhattan.change(tile, from, to)
+                    + this.conflicts + conflictsChange(tile, from, to, false);
+        }
+
+        @Override
+        public void move(int tile, int from, int to) {
+            this.manhattanDistance += manhattan.change(tile, from, to);
+            this.conflicts += conflictsChange(tile, from, to, true);
+        }
+    }
+}
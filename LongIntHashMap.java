@@ -0,0 +1,110 @@
+import java.util.Arrays;
+
+/**
+ * Open addressing hash map from long keys to int values
+ * Keys and values are kept in primitive arrays, so no objects are created per entry.
+ * Not thread safe
+ */
+final class LongIntHashMap {
+    private static final long EMPTY = Long.MIN_VALUE;
+    static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private long[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * @param expectedSize number of entries which fit without resizing
+     */
+    LongIntHashMap(int expectedSize) {
+        allocate(Integer.highestOneBit(Math.max(16, expectedSize*2 - 1)) << 1);
+    }
+
+    private void allocate(int capacity) {
+        this.keys = new long[capacity];
+        this.values = new int[capacity];
+        this.mask = capacity-1;
+        Arrays.fill(this.keys, EMPTY);
+    }
+
+    /**
+     * @param key key
+     * @return slot of the key spread over the table
+     */
+    private int slot(long key) {
+        long hash = key * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & this.mask;
+    }
+
+    /**
+     * @param key searched key
+     * @return value of the key or NOT_FOUND
+     */
+    int get(long key) {
+        for (int slot = slot(key); ; slot = (slot+1) & this.mask) {
+            long current = this.keys[slot];
+            if (current == key) { return this.values[slot]; }
+            if (current == EMPTY) { return NOT_FOUND; }
+        }
+    }
+
+    /**
+     * Adds the key if it is not in the map yet
+     * @param key key, Long.MIN_VALUE is not allowed
+     * @param value value for new key
+     * @return previous value of the key or NOT_FOUND if the key was added
+     */
+    int putIfAbsent(long key, int value) {
+        if (key == EMPTY) {
+            throw new IllegalArgumentException("Key " + key + " is reserved");
+        }
+        for (int slot = slot(key); ; slot = (slot+1) & this.mask) {
+            long current = this.keys[slot];
+            if (current == key) { return this.values[slot]; }
+            if (current == EMPTY) {
+                this.keys[slot] = key;
+                this.values[slot] = value;
+                if (++this.size * 2 > this.keys.length) { resize(); }
+                return NOT_FOUND;
+            }
+        }
+    }
+
+    /**
+     * Sets value of the key, adds the key if needed
+     * @param key key, Long.MIN_VALUE is not allowed
+     * @param value new value
+     */
+    void put(long key, int value) {
+        if (putIfAbsent(key, value) == NOT_FOUND) {
+            return;
+        }
+        for (int slot = slot(key); ; slot = (slot+1) & this.mask) {
+            if (this.keys[slot] == key) {
+                this.values[slot] = value;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return number of entries
+     */
+    int size() {
+        return this.size;
+    }
+
+    private void resize() {
+        long[] oldKeys = this.keys;
+        int[] oldValues = this.values;
+        allocate(oldKeys.length * 2);
+        for (int i=0; i<oldKeys.length; i++) {
+            if (oldKeys[i] == EMPTY) { continue; }
+            int slot = slot(oldKeys[i]);
+            while (this.keys[slot] != EMPTY) { slot = (slot+1) & this.mask; }
+            this.keys[slot] = oldKeys[i];
+            this.values[slot] = oldValues[i];
+        }
+    }
+}
@@ -0,0 +1,96 @@
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Sum of Manhattan distances between tiles and their goal positions
+ * Distances of every tile from every position are precomputed by BoardShape,
+ * boards too big for the table compute them from rows and columns.
+ * Full evaluation runs on tile lanes, see TileLanes
+ */
+final class ManhattanHeuristic implements Heuristic {
+    private static final ConcurrentHashMap<BoardShape, ManhattanHeuristic> HEURISTICS = new ConcurrentHashMap<>();
+
+    private final BoardShape shape;
+    private final int m;
+    // distances[tile*m + position], null for boards without the table
+    private final int[] distances;
+
+    /**
+     * @param n board dimension
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static ManhattanHeuristic forDimension(int n) {
+        return forShape(BoardShape.square(n));
+    }
+
+    /**
+     * @param shape board shape
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static ManhattanHeuristic forShape(BoardShape shape) {
+        return HEURISTICS.computeIfAbsent(shape, ManhattanHeuristic::new);
+    }
+
+    /**
+     * @param shape board shape
+     */
+    private ManhattanHeuristic(BoardShape shape) {
+        this.shape = shape;
+        this.m = shape.size();
+        this.distances = shape.distances();
+    }
+
+    /**
+     * @param tile tile value
+     * @param position position on the board
+     * @return Manhattan distance of the tile from its goal position
+     */
+    int distance(int tile, int position) {
+        return this.distances != null ? this.distances[tile*this.m + position] : this.shape.distance(tile, position);
+    }
+
+    /**
+     * @param tile moved tile
+     * @param from position of the tile before the move
+     * @param to position of the tile after the move
+     * @return change of the Manhattan distance
+     */
+    int change(int tile, int from, int to) {
+        if (this.distances == null) {
+            return this.shape.distance(tile, to) - this.shape.distance(tile, from);
+        }
+        return this.distances[tile*this.m + to] - this.distances[tile*this.m + from];
+    }
+
+    @Override
+    public int evaluate(int[] tiles) {
+        return TileLanes.get().manhattan(tiles, this.shape);
+    }
+
+    @Override
+    public Evaluator newEvaluator(int[] tiles) {
+        return new ManhattanEvaluator(evaluate(tiles));
+    }
+
+    private final class ManhattanEvaluator implements Evaluator {
+        private int manhattan;
+
+        ManhattanEvaluator(int manhattan) {
+            this.manhattan = manhattan;
+        }
+
+        @Override
+        public int distance() {
+            return this.manhattan;
+        }
+
+        @Override
+        public int distanceAfterMove(int tile, int from, int to) {
+            return this.manhattan + change(tile, from, to);
+        }
+
+        @Override
+        public void move(int tile, int from, int to) {
+            this.manhattan += change(tile, from, to);
+        }
+    }
+}
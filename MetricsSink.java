@@ -0,0 +1,71 @@
+import java.util.List;
+
+/**
+ * Receiver of search statistics, set by SolverConfiguration.setMetricsSink
+ * One sink can be shared by many solvers, so implementations have to be thread safe.
+ * Methods are called outside of the searching loop and should return quickly
+ */
+public interface MetricsSink {
+
+    /**
+     * @return period of progress calls in milliseconds, 0 if progress is not needed
+     */
+    default long progressIntervalMillis() {
+        return 0;
+    }
+
+    /**
+     * Called periodically from a timer thread while the search is running
+     * @param current statistics of the running iteration collected so far
+     */
+    default void progress(IterationStats current) {
+    }
+
+    /**
+     * Called when all nodes of the iteration are searched or the solution is found
+     * @param stats statistics of the finished iteration
+     */
+    default void iterationFinished(IterationStats stats) {
+    }
+
+    /**
+     * Called once at the end of the search
+     * @param moves number of moves of the solution
+     * @param iterations statistics of all iterations in order
+     */
+    default void searchFinished(int moves, List<IterationStats> iterations) {
+    }
+
+    /**
+     * @param sinks sinks which should receive statistics
+     * @return sink passing all calls to given sinks, progress period is the shortest one
+     */
+    static MetricsSink all(MetricsSink... sinks) {
+        return new MetricsSink() {
+            @Override
+            public long progressIntervalMillis() {
+                long interval = 0;
+                for (MetricsSink sink : sinks) {
+                    long own = sink.progressIntervalMillis();
+                    if (own > 0 && (interval == 0 || own < interval)) { interval = own; }
+                }
+                return interval;
+            }
+
+            @Override
+            public void progress(IterationStats current) {
+                for (MetricsSink sink : sinks) { sink.progress(current); }
+            }
+
+            @Override
+            public void iterationFinished(IterationStats stats) {
+                for (MetricsSink sink : sinks) { sink.iterationFinished(stats); }
+            }
+
+            @Override
+            public void searchFinished(int moves, List<IterationStats> iterations) {
+                for (MetricsSink sink : sinks) { sink.searchFinished(moves, iterations); }
+            }
+        };
+    }
+}
@@ -0,0 +1,130 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Finite state machine rejecting redundant move sequences
+ * Search keeps the state of the machine for every node, a move is made only
+ * when the machine has a transition for it. Rejected sequences are learned
+ * offline by MovePrunerGenerator, e.g. moving back, or the second of two
+ * sequences going around a 2x2 square in opposite directions.
+ * The machine depends only on the board shape, it is generated once and kept in a file
+ */
+final class MovePruner {
+    static final int MAGIC = 0x4E46534D; // "NFSM"
+    static final int VERSION = 1;
+    static final int PRUNED = -1;
+    // longest learned sequence, the 12 moves cycles of the 4x4 board are included
+    static final int DEFAULT_DEPTH = 14;
+    private static final String DIRECTORY_PROPERTY = "npuzzle.fsm.dir";
+    private static final String DEFAULT_DIRECTORY = "fsm";
+    private static final ConcurrentHashMap<BoardShape, MovePruner> PRUNERS = new ConcurrentHashMap<>();
+
+    private final int[] transitions;
+
+    /**
+     * @param transitions next state is transitions[state*4 + direction], PRUNED for rejected moves
+     */
+    MovePruner(int[] transitions) {
+        this.transitions = transitions;
+    }
+
+    /**
+     * Returns machine for given shape, shared by all solvers in the JVM
+     * It is loaded from the file or generated and saved when the file does not exist
+     * @param shape board shape
+     * @return move pruner for boards of given shape
+     */
+    static MovePruner forShape(BoardShape shape) {
+        return PRUNERS.computeIfAbsent(shape, key -> {
+            Path file = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY),
+                    "fsm-" + shape.rows() + "x" + shape.columns() + "-" + DEFAULT_DEPTH + ".bin");
+            try {
+                if (!Files.exists(file)) {
+                    save(MovePrunerGenerator.generate(shape.rows(), shape.columns(), DEFAULT_DEPTH), file);
+                }
+                return load(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Move pruner " + file + " can not be used", e);
+            }
+        });
+    }
+
+    /**
+     * Writes transitions to a temporary file which is renamed at the end,
+     * so other processes never see a partially written file
+     * @param transitions transitions of the machine
+     * @param file path to the file
+     * @throws IOException when file can not be written
+     */
+    static void save(int[] transitions, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeInt(transitions.length);
+                for (int transition : transitions) {
+                    output.writeInt(transition);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param file path to the file
+     * @return loaded machine
+     * @throws IOException when file can not be read or has wrong format
+     */
+    static MovePruner load(Path file) throws IOException {
+        try (DataInputStream input = new DataInputStream(
+                new BufferedInputStream(Files.newInputStream(file), 1 << 16))) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a move pruner file: " + file);
+            }
+            int[] transitions = new int[input.readInt()];
+            for (int i=0; i<transitions.length; i++) {
+                transitions[i] = input.readInt();
+            }
+            return new MovePruner(transitions);
+        }
+    }
+
+    /**
+     * @return state before any move
+     */
+    int start() {
+        return 0;
+    }
+
+    /**
+     * @param state current state
+     * @param direction direction of the blank move
+     * @return state after the move or PRUNED if the move makes a redundant sequence
+     */
+    int next(int state, int direction) {
+        return this.transitions[state*4 + direction];
+    }
+
+    /**
+     * @return number of states of the machine
+     */
+    int stateCount() {
+        return this.transitions.length / 4;
+    }
+}
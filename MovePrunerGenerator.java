@@ -0,0 +1,263 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+
+/**
+ * Learns redundant move sequences and builds the automaton of MovePruner
+ * Move strings are enumerated by breadth first search in lexicographic order and applied
+ * to an unbounded grid. A string is redundant when an earlier string (shorter, or of the same
+ * length and lexicographically smaller) has the same effect on the tiles and the blank and never
+ * leaves the bounding box of the string, so it can be made wherever the redundant one can.
+ * Strings with a redundant substring are not extended, strings which do not fit on the board
+ * are skipped. Redundant strings are compiled into an Aho-Corasick automaton
+ */
+final class MovePrunerGenerator {
+    private static final int DIRECTIONS = 4;
+    // blank offsets of PuzzleState directions
+    static final int[] DX = {-1, 1, 0, 0};
+    static final int[] DY = {0, 0, -1, 1};
+
+    private final int rows;
+    private final int columns;
+    private final int depth;
+    // grid big enough for any string of given depth, blank starts in the middle
+    private final int size;
+    private final int[] grid;
+
+    /**
+     * @param rows number of rows of the board
+     * @param columns number of columns of the board
+     * @param depth length of the longest learned string
+     */
+    private MovePrunerGenerator(int rows, int columns, int depth) {
+        this.rows = rows;
+        this.columns = columns;
+        this.depth = depth;
+        this.size = 2*depth + 1;
+        this.grid = new int[this.size*this.size];
+    }
+
+    /**
+     * @param rows number of rows of the board
+     * @param columns number of columns of the board
+     * @param depth length of the longest learned string
+     * @return transitions of the automaton, next state is transitions[state*4 + direction], -1 if pruned
+     */
+    static int[] generate(int rows, int columns, int depth) {
+        MovePrunerGenerator generator = new MovePrunerGenerator(rows, columns, depth);
+        return buildAutomaton(generator.learn());
+    }
+
+    /**
+     * Breadth first search over move strings
+     * @return redundant strings, none of them contains another one
+     */
+    private List<int[]> learn() {
+        List<int[]> redundant = new ArrayList<>();
+        HashSet<String> redundantKeys = new HashSet<>();
+        // effect of a string -> bounding boxes of kept strings with that effect
+        HashMap<String, List<int[]>> effects = new HashMap<>();
+        List<int[]> level = new ArrayList<>();
+        level.add(new int[0]);
+        effects.computeIfAbsent(effect(new int[0]), key -> new ArrayList<>()).add(boundingBox(new int[0]));
+
+        for (int length=1; length<=this.depth && !level.isEmpty(); length++) {
+            List<int[]> nextLevel = new ArrayList<>();
+            for (int[] prefix : level) {
+                for (int direction=0; direction<DIRECTIONS; direction++) {
+                    int[] moves = Arrays.copyOf(prefix, length);
+                    moves[length-1] = direction;
+                    if (hasRedundantSuffix(moves, redundantKeys)) { continue; }
+                    int[] box = boundingBox(moves);
+                    // string never fits on the board
+                    if (box[1]-box[0] >= this.columns || box[3]-box[2] >= this.rows) { continue; }
+                    List<int[]> boxes = effects.computeIfAbsent(effect(moves), key -> new ArrayList<>());
+                    if (isCovered(box, boxes)) {
+                        redundant.add(moves);
+                        redundantKeys.add(Arrays.toString(moves));
+                        continue;
+                    }
+                    boxes.add(box);
+                    nextLevel.add(moves);
+                }
+            }
+            level = nextLevel;
+        }
+        return redundant;
+    }
+
+    /**
+     * @param moves move string
+     * @param redundantKeys keys of redundant strings
+     * @return true if a proper suffix of the string is redundant
+     */
+    private static boolean hasRedundantSuffix(int[] moves, HashSet<String> redundantKeys) {
+        for (int start=1; start<moves.length-1; start++) {
+            if (redundantKeys.contains(Arrays.toString(Arrays.copyOfRange(moves, start, moves.length)))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param box bounding box of the new string
+     * @param boxes bounding boxes of earlier strings with the same effect
+     * @return true if an earlier string stays inside the box
+     */
+    private static boolean isCovered(int[] box, List<int[]> boxes) {
+        for (int[] other : boxes) {
+            if (isInside(other, box)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @param inner bounding box
+     * @param outer bounding box
+     * @return true if the inner box lies inside the outer box
+     */
+    static boolean isInside(int[] inner, int[] outer) {
+        return inner[0] >= outer[0] && inner[1] <= outer[1] && inner[2] >= outer[2] && inner[3] <= outer[3];
+    }
+
+    /**
+     * @param moves move string
+     * @return minX, maxX, minY, maxY of blank positions relative to the start
+     */
+    static int[] boundingBox(int[] moves) {
+        int[] box = new int[4];
+        int x = 0, y = 0;
+        for (int move : moves) {
+            x += DX[move];
+            y += DY[move];
+            box[0] = Math.min(box[0], x);
+            box[1] = Math.max(box[1], x);
+            box[2] = Math.min(box[2], y);
+            box[3] = Math.max(box[3], y);
+        }
+        return box;
+    }
+
+    /**
+     * @param moves move string
+     * @return key describing the final blank position and all moved tiles
+     */
+    private String effect(int[] moves) {
+        return effect(moves, this.depth, this.grid);
+    }
+
+    /**
+     * Applies the string to the grid where every cell holds its own index
+     * @param moves move string, at most depth moves
+     * @param depth distance from the middle of the grid to its border
+     * @param grid reused grid of (2*depth + 1)^2 cells
+     * @return key describing the final blank position and all moved tiles
+     */
+    static String effect(int[] moves, int depth, int[] grid) {
+        int size = 2*depth + 1;
+        int center = depth*size + depth;
+        for (int i=0; i<grid.length; i++) {
+            grid[i] = i;
+        }
+        int blank = center;
+        for (int move : moves) {
+            int target = blank + DX[move] + DY[move]*size;
+            grid[blank] = grid[target];
+            grid[target] = center;
+            blank = target;
+        }
+        StringBuilder key = new StringBuilder().append(blank - center);
+        for (int i=0; i<grid.length; i++) {
+            if (grid[i] != i) {
+                key.append(',').append(i).append(':').append(grid[i]);
+            }
+        }
+        return key.toString();
+    }
+
+    /**
+     * Builds automaton which reaches a dead state when the input ends with one of the strings
+     * @param strings redundant strings
+     * @return transitions between live states, -1 for transitions into dead states
+     */
+    private static int[] buildAutomaton(List<int[]> strings) {
+        // trie of the strings
+        List<int[]> children = new ArrayList<>();
+        List<Boolean> terminal = new ArrayList<>();
+        children.add(newNode());
+        terminal.add(false);
+        for (int[] string : strings) {
+            int node = 0;
+            for (int move : string) {
+                if (children.get(node)[move] < 0) {
+                    children.get(node)[move] = children.size();
+                    children.add(newNode());
+                    terminal.add(false);
+                }
+                node = children.get(node)[move];
+            }
+            terminal.set(node, true);
+        }
+
+        // failure links in breadth first order turn the trie into a complete automaton
+        int nodes = children.size();
+        int[] next = new int[nodes*DIRECTIONS];
+        int[] failure = new int[nodes];
+        boolean[] dead = new boolean[nodes];
+        int[] queue = new int[nodes];
+        int head = 0, tail = 0;
+        for (int direction=0; direction<DIRECTIONS; direction++) {
+            int child = children.get(0)[direction];
+            if (child < 0) {
+                next[direction] = 0;
+            } else {
+                next[direction] = child;
+                failure[child] = 0;
+                queue[tail++] = child;
+            }
+        }
+        while (head < tail) {
+            int node = queue[head++];
+            dead[node] = terminal.get(node) || dead[failure[node]];
+            for (int direction=0; direction<DIRECTIONS; direction++) {
+                int child = children.get(node)[direction];
+                if (child < 0) {
+                    next[node*DIRECTIONS + direction] = next[failure[node]*DIRECTIONS + direction];
+                } else {
+                    next[node*DIRECTIONS + direction] = child;
+                    failure[child] = next[failure[node]*DIRECTIONS + direction];
+                    queue[tail++] = child;
+                }
+            }
+        }
+
+        // live states are numbered again, transitions into dead states become -1
+        int[] number = new int[nodes];
+        int live = 0;
+        for (int node=0; node<nodes; node++) {
+            number[node] = dead[node] ? -1 : live++;
+        }
+        int[] transitions = new int[live*DIRECTIONS];
+        for (int node=0; node<nodes; node++) {
+            if (dead[node]) { continue; }
+            for (int direction=0; direction<DIRECTIONS; direction++) {
+                transitions[number[node]*DIRECTIONS + direction] = number[next[node*DIRECTIONS + direction]];
+            }
+        }
+        return transitions;
+    }
+
+    /**
+     * @return children of a new trie node, -1 for missing children
+     */
+    private static int[] newNode() {
+        int[] node = new int[DIRECTIONS];
+        Arrays.fill(node, -1);
+        return node;
+    }
+}
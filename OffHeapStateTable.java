@@ -0,0 +1,184 @@
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Open addressing hash table of packed boards kept outside of the Java heap
+ * Every slot holds the packed words of a board followed by one long of data, data EMPTY marks a free slot.
+ * Slots live in direct buffers of at most MAX_SEGMENT_BYTES, so the table can grow beyond 2 GB
+ * and millions of states add nothing to the work of the garbage collector.
+ * The size of direct memory is limited by -XX:MaxDirectMemorySize, by default the maximal heap size.
+ * The table is used by its owner thread only, other threads may read it after the owner ends
+ */
+final class OffHeapStateTable {
+    static final long EMPTY = 0L;
+    static final long NOT_FOUND = -1L;
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    private static final int INITIAL_CAPACITY = 1 << 16;
+    // the table grows when more than 5/8 of slots are used
+    private static final int LOAD_NUMERATOR = 5;
+    private static final int LOAD_DENOMINATOR = 8;
+
+    private final int words;
+    private final int slotBytes;
+    private final int segmentShift;
+    private final long segmentMask;
+    private ByteBuffer[] segments;
+    private long capacity;
+    private long mask;
+    private long size;
+
+    /**
+     * @param words number of packed words of a board
+     */
+    OffHeapStateTable(int words) {
+        this.words = words;
+        this.slotBytes = 8 * (words + 1);
+        long segmentSlots = Long.highestOneBit(MAX_SEGMENT_BYTES / this.slotBytes);
+        this.segmentShift = Long.numberOfTrailingZeros(segmentSlots);
+        this.segmentMask = segmentSlots - 1;
+        allocate(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of slots, power of two
+     */
+    private void allocate(long capacity) {
+        long segmentSlots = this.segmentMask + 1;
+        int count = (int) ((capacity + segmentSlots - 1) / segmentSlots);
+        this.segments = new ByteBuffer[count];
+        for (int i=0; i<count; i++) {
+            int slots = (int) Math.min(segmentSlots, capacity - i * segmentSlots);
+            this.segments[i] = ByteBuffer.allocateDirect(slots * this.slotBytes).order(ByteOrder.nativeOrder());
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.size = 0;
+    }
+
+    /**
+     * @return number of stored boards
+     */
+    long size() {
+        return this.size;
+    }
+
+    /**
+     * @return bytes of direct memory used by the slots
+     */
+    long bytes() {
+        return this.capacity * this.slotBytes;
+    }
+
+    /**
+     * @return bytes of direct memory used by the slots after one more insert, which may grow the table
+     */
+    long bytesAfterInsert() {
+        return (this.size + 1) * LOAD_DENOMINATOR > this.capacity * LOAD_NUMERATOR ? 2 * bytes() : bytes();
+    }
+
+    /**
+     * @param board array holding packed words of the board
+     * @param offset index of the first word in the array
+     * @param hash hash of the words, see PackedBoard.hash
+     * @return slot of the board, or the free slot where it would be inserted encoded as -slot-2
+     */
+    long find(long[] board, int offset, long hash) {
+        for (long slot = hash & this.mask; ; slot = (slot + 1) & this.mask) {
+            ByteBuffer segment = this.segments[(int) (slot >>> this.segmentShift)];
+            int position = (int) (slot & this.segmentMask) * this.slotBytes;
+            if (segment.getLong(position + 8 * this.words) == EMPTY) {
+                return -slot - 2;
+            }
+            boolean same = true;
+            for (int i=0; i<this.words && same; i++) {
+                same = segment.getLong(position + 8 * i) == board[offset + i];
+            }
+            if (same) {
+                return slot;
+            }
+        }
+    }
+
+    /**
+     * @param board array holding packed words of the board
+     * @param offset index of the first word in the array
+     * @param hash hash of the words, see PackedBoard.hash
+     * @return data of the board or NOT_FOUND
+     */
+    long get(long[] board, int offset, long hash) {
+        long slot = find(board, offset, hash);
+        return slot < 0 ? NOT_FOUND : data(slot);
+    }
+
+    /**
+     * @param slot slot of a stored board
+     * @return data of the board
+     */
+    long data(long slot) {
+        return this.segments[(int) (slot >>> this.segmentShift)]
+                .getLong((int) (slot & this.segmentMask) * this.slotBytes + 8 * this.words);
+    }
+
+    /**
+     * @param slot slot of a stored board
+     * @param data new data of the board, not EMPTY
+     */
+    void setData(long slot, long data) {
+        this.segments[(int) (slot >>> this.segmentShift)]
+                .putLong((int) (slot & this.segmentMask) * this.slotBytes + 8 * this.words, data);
+    }
+
+    /**
+     * Stores new board, slots returned by find before are not valid afterwards
+     * @param free free slot returned by find for the board, encoded as -slot-2
+     * @param board array holding packed words of the board
+     * @param offset index of the first word in the array
+     * @param data data of the board, not EMPTY
+     */
+    void insert(long free, long[] board, int offset, long data) {
+        write(-free - 2, board, offset, data);
+        this.size++;
+        if (this.size * LOAD_DENOMINATOR > this.capacity * LOAD_NUMERATOR) {
+            grow();
+        }
+    }
+
+    /**
+     * @param slot free slot
+     * @param board array holding packed words of the board
+     * @param offset index of the first word in the array
+     * @param data data of the board
+     */
+    private void write(long slot, long[] board, int offset, long data) {
+        ByteBuffer segment = this.segments[(int) (slot >>> this.segmentShift)];
+        int position = (int) (slot & this.segmentMask) * this.slotBytes;
+        for (int i=0; i<this.words; i++) {
+            segment.putLong(position + 8 * i, board[offset + i]);
+        }
+        segment.putLong(position + 8 * this.words, data);
+    }
+
+    /**
+     * Doubles the capacity and inserts all boards again, old buffers are freed by the garbage collector
+     */
+    private void grow() {
+        ByteBuffer[] oldSegments = this.segments;
+        long oldCapacity = this.capacity;
+        long size = this.size;
+        allocate(oldCapacity * 2);
+        long[] board = new long[this.words];
+        for (long slot=0; slot<oldCapacity; slot++) {
+            ByteBuffer segment = oldSegments[(int) (slot >>> this.segmentShift)];
+            int position = (int) (slot & this.segmentMask) * this.slotBytes;
+            long data = segment.getLong(position + 8 * this.words);
+            if (data == EMPTY) {
+                continue;
+            }
+            for (int i=0; i<this.words; i++) {
+                board[i] = segment.getLong(position + 8 * i);
+            }
+            write(-find(board, 0, PackedBoard.hash(board)) - 2, board, 0, data);
+        }
+        this.size = size;
+    }
+}
@@ -0,0 +1,104 @@
+/**
+ * Compact encoding of boards in long words
+ * Every tile takes the smallest number of bits which can hold the biggest tile,
+ * 4 bits for 3x3 and 4x4 boards, so the whole 4x4 board fits in one long.
+ * Bigger boards use several words, a tile never crosses a word boundary
+ */
+final class PackedBoard {
+
+    private PackedBoard() {
+    }
+
+    /**
+     * @param m number of cells on the board
+     * @return number of bits used by one tile
+     */
+    static int bitsPerTile(int m) {
+        return Math.max(1, 32 - Integer.numberOfLeadingZeros(m-1));
+    }
+
+    /**
+     * @param m number of cells on the board
+     * @return number of tiles in one word
+     */
+    static int tilesPerWord(int m) {
+        return 64 / bitsPerTile(m);
+    }
+
+    /**
+     * @param m number of cells on the board
+     * @return number of words of the encoding
+     */
+    static int words(int m) {
+        int tilesPerWord = tilesPerWord(m);
+        return (m + tilesPerWord - 1) / tilesPerWord;
+    }
+
+    /**
+     * @param position cell on the board
+     * @param m number of cells on the board
+     * @return index of the word holding the cell
+     */
+    static int wordOf(int position, int m) {
+        return position / tilesPerWord(m);
+    }
+
+    /**
+     * @param position cell on the board
+     * @param m number of cells on the board
+     * @return shift of the cell inside its word
+     */
+    static int shiftOf(int position, int m) {
+        return (position % tilesPerWord(m)) * bitsPerTile(m);
+    }
+
+    /**
+     * @param tiles tiles in row order
+     * @return packed words of the board
+     */
+    static long[] pack(int[] tiles) {
+        int m = tiles.length;
+        long[] words = new long[words(m)];
+        for (int position=0; position<m; position++) {
+            words[wordOf(position, m)] |= (long) tiles[position] << shiftOf(position, m);
+        }
+        return words;
+    }
+
+    /**
+     * @param words packed words of the board
+     * @param m number of cells on the board
+     * @return tiles in row order
+     */
+    static int[] unpack(long[] words, int m) {
+        int[] tiles = new int[m];
+        long tileMask = (1L << bitsPerTile(m)) - 1;
+        for (int position=0; position<m; position++) {
+            tiles[position] = (int) ((words[wordOf(position, m)] >>> shiftOf(position, m)) & tileMask);
+        }
+        return tiles;
+    }
+
+    /**
+     * @param words packed words of the board
+     * @return 64 bit hash of the board
+     */
+    static long hash(long[] words) {
+        return hash(words, 0, words.length);
+    }
+
+    /**
+     * @param array array holding packed words of the board
+     * @param offset index of the first word
+     * @param length number of words
+     * @return 64 bit hash of the board, the same as of the words alone
+     */
+    static long hash(long[] array, int offset, int length) {
+        long hash = 0;
+        for (int i=offset; i<offset+length; i++) {
+            hash = (hash ^ array[i]) * 0x9E3779B97F4A7C15L;
+            hash ^= hash >>> 29;
+        }
+        return hash;
+    }
+}
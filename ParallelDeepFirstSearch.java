@@ -0,0 +1,127 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Parallel IDA* search
+ * In every threshold iteration the root is expanded to the split depth
+ * and subtrees below it are searched as tasks on a work-stealing ForkJoinPool.
+ * All tasks of one iteration use the same threshold, so the first found solution is optimal
+ */
+public class ParallelDeepFirstSearch extends Thread {
+    private final Board initialBoard;
+    private final Heuristic heuristic;
+    private final SearchResult searchResult;
+    private final TranspositionTable table;
+    private final MovePruner pruner;
+    private final PerimeterDatabase perimeter;
+    private final int threads;
+    private final int splitDepth;
+
+    /**
+     * Parallel DFS constructor - setup initial variables
+     * @param initial initial board, from which program start searching
+     * @param heuristic chosen heuristic for boards
+     * @param searchResult reference to search results object related to Solver
+     * @param table transposition table shared by all subtrees, null to disable it
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     * @param perimeter exact distances of boards near the goal used by all subtrees, null to disable it
+     * @param threads number of worker threads
+     * @param splitDepth depth to which the root is expanded in every iteration
+     */
+    ParallelDeepFirstSearch(Board initial, Heuristic heuristic, SearchResult searchResult,
+                            TranspositionTable table, MovePruner pruner, PerimeterDatabase perimeter,
+                            int threads, int splitDepth) {
+        this.initialBoard = initial;
+        this.heuristic = heuristic;
+        this.searchResult = searchResult;
+        this.table = table;
+        this.pruner = pruner;
+        this.perimeter = perimeter;
+        this.threads = threads;
+        this.splitDepth = splitDepth;
+    }
+
+    /**
+     * Main thread function - override thread's run
+     */
+    @Override
+    public void run() {
+        ForkJoinPool pool = new ForkJoinPool(this.threads);
+        BoundedSearch rootSearch = new BoundedSearch(this.initialBoard, this.heuristic, this.searchResult,
+                null, this.pruner);
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        long createdNodes = 1L;
+        try {
+            int threshold = -1;
+            while (!this.searchResult.isFinished()) {
+                rootSearch.prepare(threshold);
+                metrics.startIteration(threshold);
+                List<int[]> frontier = new ArrayList<>();
+                int newThreshold = rootSearch.expand(threshold, this.splitDepth, frontier);
+                rootSearch.flushCounters();
+                if (newThreshold == BoundedSearch.FOUND) {
+                    metrics.finishIteration();
+                    break;
+                }
+                List<SubtreeTask> tasks = new ArrayList<>(frontier.size());
+                for (int[] prefix : frontier) {
+                    SubtreeTask task = new SubtreeTask(prefix, threshold);
+                    pool.execute(task);
+                    tasks.add(task);
+                }
+                // iteration ends when all subtrees are searched
+                for (SubtreeTask task : tasks) {
+                    int result = task.join();
+                    createdNodes += task.createdNodes;
+                    if (result != BoundedSearch.FOUND && result < newThreshold) {
+                        newThreshold = result;
+                    }
+                }
+                metrics.finishIteration();
+                threshold = newThreshold;
+            }
+        } finally {
+            pool.shutdown();
+        }
+        this.searchResult.setCreatedNodes(createdNodes + rootSearch.getCreatedNodes());
+    }
+
+    /**
+     * Task searching one subtree with threshold of the current iteration
+     */
+    private final class SubtreeTask extends RecursiveTask<Integer> {
+        private static final long serialVersionUID = 1L;
+
+        private final int[] prefix;
+        private final int threshold;
+        private long createdNodes;
+
+        /**
+         * @param prefix moves from the initial board to the root of the subtree
+         * @param threshold for step cost
+         */
+        SubtreeTask(int[] prefix, int threshold) {
+            this.prefix = prefix;
+            this.threshold = threshold;
+        }
+
+        @Override
+        protected Integer compute() {
+            if (searchResult.isFinished()) {
+                return BoundedSearch.FOUND;
+            }
+            BoundedSearch search = new BoundedSearch(initialBoard, heuristic, searchResult, table, pruner,
+                    perimeter);
+            search.prepare(this.threshold);
+            search.applyPrefix(this.prefix);
+            int lastDirection = this.prefix.length == 0
+                    ? PuzzleState.NO_DIRECTION : this.prefix[this.prefix.length-1];
+            int result = search.search(this.prefix.length, this.threshold, lastDirection);
+            search.flushCounters();
+            this.createdNodes = search.getCreatedNodes();
+            return result;
+        }
+    }
+}
@@ -0,0 +1,289 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Additive disjoint pattern database
+ * Tiles are split into disjoint groups, for every placement of the group tiles
+ * the table keeps the number of moves of the group tiles needed to reach the goal.
+ * Values of the groups are added, which is still admissible.
+ * Tables are kept in a file and memory-mapped, so many JVMs share the same page cache
+ */
+final class PatternDatabase implements Heuristic {
+    static final int MAGIC = 0x4E504442; // "NPDB"
+    static final int VERSION = 1;
+    static final int MAX_DIMENSION = 5;
+    private static final String DIRECTORY_PROPERTY = "npuzzle.pdb.dir";
+    private static final String DEFAULT_DIRECTORY = "pdb";
+    private static final ConcurrentHashMap<Integer, PatternDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    private final int n;
+    private final int m;
+    private final int[][] groups;
+    private final int[] groupOfTile;
+    private final ByteBuffer[] tables;
+
+    /**
+     * @param n board dimension
+     * @param groups disjoint groups of tiles
+     * @param tables table with distances for every group, indexed by rank of group tile positions
+     */
+    PatternDatabase(int n, int[][] groups, ByteBuffer[] tables) {
+        this.n = n;
+        this.m = n*n;
+        this.groups = groups;
+        this.tables = tables;
+        this.groupOfTile = new int[this.m];
+        Arrays.fill(this.groupOfTile, -1);
+        for (int group=0; group<groups.length; group++) {
+            for (int tile : groups[group]) {
+                this.groupOfTile[tile] = group;
+            }
+        }
+    }
+
+    /**
+     * Returns database for given dimension, shared by all solvers in the JVM
+     * It is loaded from the file or generated and saved when the file does not exist
+     * @param n board dimension
+     * @return pattern database with default partition for given dimension
+     */
+    static PatternDatabase forDimension(int n) {
+        return DATABASES.computeIfAbsent(n, dimension -> {
+            int[][] groups = defaultPartition(dimension);
+            Path file = Paths.get(System.getProperty(DIRECTORY_PROPERTY, DEFAULT_DIRECTORY),
+                    "pdb-" + dimension + "x" + dimension + "-" + partitionName(groups) + ".bin");
+            try {
+                if (!Files.exists(file)) {
+                    PatternDatabaseGenerator.generate(dimension, groups, file);
+                }
+                return load(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Pattern database " + file + " can not be used", e);
+            }
+        });
+    }
+
+    /**
+     * Default partitions: 3 for 2x2, 4-4 for 3x3, 6-6-3 for 4x4, 6-6-6-6 for 5x5.
+     * Larger boards would need tables of tens of gigabytes for groups of 6 tiles,
+     * smaller groups are too weak to solve them, so they have no default partition
+     * @param n board dimension
+     * @return disjoint groups of tiles covering all tiles
+     * @throws IllegalArgumentException if n is above MAX_DIMENSION
+     */
+    static int[][] defaultPartition(int n) {
+        switch (n) {
+            case 2: return new int[][] {{1, 2, 3}};
+            case 3: return new int[][] {{1, 2, 3, 4}, {5, 6, 7, 8}};
+            case 4: return new int[][] {{1, 5, 6, 9, 10, 13}, {7, 8, 11, 12, 14, 15}, {2, 3, 4}};
+            case 5: return new int[][] {
+                    {1, 2, 3, 6, 7, 8}, {4, 5, 9, 10, 14, 15},
+                    {11, 12, 16, 17, 21, 22}, {13, 18, 19, 20, 23, 24}};
+            default:
+                throw new IllegalArgumentException("Pattern database supports boards up to "
+                        + MAX_DIMENSION + "x" + MAX_DIMENSION);
+        }
+    }
+
+    /**
+     * @param groups disjoint groups of tiles
+     * @return name of the partition used in the file name, e.g. 6-6-3 with hash of the groups
+     */
+    private static String partitionName(int[][] groups) {
+        StringBuilder name = new StringBuilder();
+        for (int[] group : groups) {
+            if (name.length() > 0) { name.append('-'); }
+            name.append(group.length);
+        }
+        return name.append('-').append(Integer.toHexString(Arrays.deepHashCode(groups))).toString();
+    }
+
+    /**
+     * Loads database from the file, tables are memory-mapped read only
+     * @param file path to the database file
+     * @return loaded database
+     * @throws IOException when file can not be read or has wrong format
+     */
+    static PatternDatabase load(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            DataInputStream header = new DataInputStream(Channels.newInputStream(channel));
+            if (header.readInt() != MAGIC || header.readInt() != VERSION) {
+                throw new IOException("Not a pattern database file: " + file);
+            }
+            int n = header.readInt();
+            int[][] groups = new int[header.readInt()][];
+            for (int group=0; group<groups.length; group++) {
+                groups[group] = new int[header.readInt()];
+                for (int i=0; i<groups[group].length; i++) {
+                    groups[group][i] = header.readInt();
+                }
+            }
+            long offset = headerSize(groups);
+            ByteBuffer[] tables = new ByteBuffer[groups.length];
+            for (int group=0; group<groups.length; group++) {
+                long size = tableSize(n*n, groups[group].length);
+                tables[group] = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+                offset += size;
+            }
+            if (offset != channel.size()) {
+                throw new IOException("Pattern database file has wrong size: " + file);
+            }
+            return new PatternDatabase(n, groups, tables);
+        }
+    }
+
+    /**
+     * @param groups disjoint groups of tiles
+     * @return number of bytes before the first table
+     */
+    static long headerSize(int[][] groups) {
+        long size = 4L * 4;
+        for (int[] group : groups) {
+            size += 4L * (1 + group.length);
+        }
+        return size;
+    }
+
+    /**
+     * @param m number of cells on the board
+     * @param k number of tiles in the group
+     * @return number of placements of k tiles on m cells
+     */
+    static long tableSize(int m, int k) {
+        long size = 1;
+        for (int i=0; i<k; i++) {
+            size *= m-i;
+        }
+        return size;
+    }
+
+    /**
+     * Rank of the placement of group tiles, positions are read in the group order
+     * @param cells cells of group tiles
+     * @param m number of cells on the board
+     * @return index of the placement in the table
+     */
+    static int rank(int[] cells, int m) {
+        int index = 0;
+        for (int i=0; i<cells.length; i++) {
+            int cell = cells[i];
+            int smaller = 0;
+            for (int j=0; j<i; j++) {
+                if (cells[j] < cell) { smaller++; }
+            }
+            index = index*(m-i) + cell - smaller;
+        }
+        return index;
+    }
+
+    /**
+     * @return board dimension
+     */
+    int dimension() {
+        return this.n;
+    }
+
+    /**
+     * @param group index of the group
+     * @param positions positions of all tiles, positions[tile] is the cell of the tile
+     * @return number of moves of group tiles needed to reach the goal
+     */
+    int groupDistance(int group, int[] positions) {
+        int[] tiles = this.groups[group];
+        int index = 0;
+        for (int i=0; i<tiles.length; i++) {
+            int cell = positions[tiles[i]];
+            int smaller = 0;
+            for (int j=0; j<i; j++) {
+                if (positions[tiles[j]] < cell) { smaller++; }
+            }
+            index = index*(this.m-i) + cell - smaller;
+        }
+        return this.tables[group].get(index);
+    }
+
+    /**
+     * @param positions positions of all tiles, positions[tile] is the cell of the tile
+     * @return sum of distances of all groups
+     */
+    int distance(int[] positions) {
+        int distance = 0;
+        for (int group=0; group<this.groups.length; group++) {
+            distance += groupDistance(group, positions);
+        }
+        return distance;
+    }
+
+    @Override
+    public int evaluate(int[] tiles) {
+        int[] positions = new int[this.m];
+        for (int i=0; i<tiles.length; i++) {
+            positions[tiles[i]] = i;
+        }
+        return distance(positions);
+    }
+
+    @Override
+    public Evaluator newEvaluator(int[] tiles) {
+        return new PatternEvaluator(tiles);
+    }
+
+    /**
+     * Evaluator keeping positions of tiles and distances of all groups,
+     * after a move only the group of the moved tile is looked up again
+     */
+    private final class PatternEvaluator implements Evaluator {
+        private final int[] positions;
+        private final int[] groupDistances;
+        private int distance;
+
+        PatternEvaluator(int[] tiles) {
+            this.positions = new int[m];
+            for (int i=0; i<tiles.length; i++) {
+                this.positions[tiles[i]] = i;
+            }
+            this.groupDistances = new int[groups.length];
+            for (int group=0; group<groups.length; group++) {
+                this.groupDistances[group] = groupDistance(group, this.positions);
+                this.distance += this.groupDistances[group];
+            }
+        }
+
+        @Override
+        public int distance() {
+            return this.distance;
+        }
+
+        @Override
+        public int distanceAfterMove(int tile, int from, int to) {
+            int group = groupOfTile[tile];
+            if (group < 0) { return this.distance; }
+            this.positions[tile] = to;
+            int groupDistance = groupDistance(group, this.positions);
+            this.positions[tile] = from;
+            return this.distance - this.groupDistances[group] + groupDistance;
+        }
+
+        @Override
+        public void move(int tile, int from, int to) {
+            this.positions[tile] = to;
+            this.positions[0] = from;
+            int group = groupOfTile[tile];
+            if (group >= 0) {
+                int groupDistance = groupDistance(group, this.positions);
+                this.distance += groupDistance - this.groupDistances[group];
+                this.groupDistances[group] = groupDistance;
+            }
+        }
+    }
+}
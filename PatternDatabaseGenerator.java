@@ -0,0 +1,249 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * Generator of additive pattern database tables
+ * Every group is generated by a parallel breadth first search backward from the goal.
+ * States are placements of group tiles together with the blank, only moves of group tiles
+ * are counted, moves of the blank over other tiles are free.
+ * The search scans the whole state table layer by layer, so no queue is needed
+ */
+final class PatternDatabaseGenerator {
+    private static final byte UNVISITED = -1;
+    private static final int CHUNK_BITS = 30;
+    private static final long CHUNK_MASK = (1L << CHUNK_BITS) - 1;
+    private static final int SCAN_BLOCK = 1 << 12;
+
+    private final int n;
+    private final int m;
+    private final int[] tiles;
+    private final int size;
+    // distance of every (placement, blank) state, split into chunks smaller than 2 GB
+    private final byte[][] distances;
+
+    /**
+     * @param n board dimension
+     * @param tiles tiles of the group
+     */
+    private PatternDatabaseGenerator(int n, int[] tiles) {
+        this.n = n;
+        this.m = n*n;
+        this.tiles = tiles;
+        long tableSize = PatternDatabase.tableSize(this.m, tiles.length);
+        if (tableSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Pattern group of " + tiles.length
+                    + " tiles is too big for " + n + "x" + n + " board");
+        }
+        this.size = (int) tableSize;
+        long states = tableSize * this.m;
+        this.distances = new byte[(int) ((states + CHUNK_MASK) >>> CHUNK_BITS)][];
+        for (int chunk=0; chunk<this.distances.length; chunk++) {
+            long chunkSize = Math.min(CHUNK_MASK + 1, states - ((long) chunk << CHUNK_BITS));
+            this.distances[chunk] = new byte[(int) chunkSize];
+            Arrays.fill(this.distances[chunk], UNVISITED);
+        }
+    }
+
+    /**
+     * Generates tables of all groups and saves them to the file
+     * File is written to temporary file first and moved, so readers never see partial file
+     * @param n board dimension
+     * @param groups disjoint groups of tiles
+     * @param file path to the database file
+     * @throws IOException when file can not be written
+     */
+    static void generate(int n, int[][] groups, Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (DataOutputStream output = new DataOutputStream(
+                    new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+                output.writeInt(PatternDatabase.MAGIC);
+                output.writeInt(PatternDatabase.VERSION);
+                output.writeInt(n);
+                output.writeInt(groups.length);
+                for (int[] group : groups) {
+                    output.writeInt(group.length);
+                    for (int tile : group) {
+                        output.writeInt(tile);
+                    }
+                }
+                for (int[] group : groups) {
+                    new PatternDatabaseGenerator(n, group).writeTable(output);
+                }
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Runs the search and writes table of the group,
+     * value of a placement is the minimum over all blank positions
+     * @param output stream for the table
+     * @throws IOException when table can not be written
+     */
+    private void writeTable(OutputStream output) throws IOException {
+        search();
+        byte[] buffer = new byte[SCAN_BLOCK];
+        for (int start=0; start<this.size; start+=SCAN_BLOCK) {
+            int length = Math.min(SCAN_BLOCK, this.size - start);
+            for (int i=0; i<length; i++) {
+                int best = Integer.MAX_VALUE;
+                long base = (long) (start+i) * this.m;
+                for (int blank=0; blank<this.m; blank++) {
+                    byte distance = get(base + blank);
+                    if (distance != UNVISITED && distance < best) { best = distance; }
+                }
+                buffer[i] = (byte) best;
+            }
+            output.write(buffer, 0, length);
+        }
+    }
+
+    /**
+     * Breadth first search from the goal placement, layer by layer
+     */
+    private void search() {
+        int[] goal = new int[this.tiles.length];
+        for (int i=0; i<this.tiles.length; i++) {
+            goal[i] = this.tiles[i]-1;
+        }
+        set((long) PatternDatabase.rank(goal, this.m) * this.m + (this.m-1), (byte) 0);
+        AtomicLong discovered = new AtomicLong(1);
+        for (int depth=0; discovered.get() > 0; depth++) {
+            if (depth >= Byte.MAX_VALUE) {
+                throw new IllegalStateException("Pattern database distance does not fit in a byte");
+            }
+            discovered.set(0);
+            final byte current = (byte) depth;
+            int blocks = (this.size + SCAN_BLOCK - 1) / SCAN_BLOCK;
+            IntStream.range(0, blocks).parallel().forEach(block -> {
+                long found = scanBlock(block, current);
+                if (found > 0) { discovered.addAndGet(found); }
+            });
+        }
+    }
+
+    /**
+     * Expands all states of given layer in the block of placements
+     * All blank positions of one placement are handled by one thread, so blank regions
+     * (cells reachable by free blank moves) are flooded only once
+     * @param block index of the block of placements
+     * @param depth current layer
+     * @return number of states discovered for the next layer
+     */
+    private long scanBlock(int block, byte depth) {
+        int[] cells = new int[this.tiles.length];
+        int[] region = new int[this.m];
+        boolean[] occupied = new boolean[this.m];
+        boolean[] covered = new boolean[this.m];
+        long found = 0;
+        int end = Math.min(this.size, (block+1) * SCAN_BLOCK);
+        for (int index=block*SCAN_BLOCK; index<end; index++) {
+            long base = (long) index * this.m;
+            boolean unranked = false;
+            Arrays.fill(covered, false);
+            for (int blank=0; blank<this.m; blank++) {
+                if (covered[blank] || get(base + blank) != depth) { continue; }
+                if (!unranked) {
+                    unrank(index, cells, occupied);
+                    unranked = true;
+                }
+                // flood fill of cells reachable by free blank moves
+                int regionSize = 0;
+                region[regionSize++] = blank;
+                covered[blank] = true;
+                for (int r=0; r<regionSize; r++) {
+                    int cell = region[r];
+                    byte distance = get(base + cell);
+                    if (distance == UNVISITED || distance > depth) { set(base + cell, depth); }
+                    for (int direction=0; direction<4; direction++) {
+                        int next = neighbor(cell, direction);
+                        if (next >= 0 && !occupied[next] && !covered[next]) {
+                            covered[next] = true;
+                            region[regionSize++] = next;
+                        }
+                    }
+                }
+                // moves of group tiles into the region cost one move
+                for (int r=0; r<regionSize; r++) {
+                    int cell = region[r];
+                    for (int direction=0; direction<4; direction++) {
+                        int next = neighbor(cell, direction);
+                        if (next < 0 || !occupied[next]) { continue; }
+                        int tile = 0;
+                        while (cells[tile] != next) { tile++; }
+                        cells[tile] = cell;
+                        long state = (long) PatternDatabase.rank(cells, this.m) * this.m + next;
+                        cells[tile] = next;
+                        if (get(state) == UNVISITED) {
+                            set(state, (byte) (depth+1));
+                            found++;
+                        }
+                    }
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Inverse of PatternDatabase.rank
+     * @param index index of the placement
+     * @param cells array for cells of group tiles
+     * @param occupied array marking cells occupied by group tiles
+     */
+    private void unrank(int index, int[] cells, boolean[] occupied) {
+        int k = cells.length;
+        for (int i=k-1; i>=0; i--) {
+            cells[i] = index % (this.m-i);
+            index /= this.m-i;
+        }
+        Arrays.fill(occupied, false);
+        for (int i=0; i<k; i++) {
+            // cells[i] is the number of free cells before the tile cell
+            int cell = -1;
+            int free = cells[i];
+            do {
+                cell++;
+                if (!occupied[cell]) { free--; }
+            } while (free >= 0);
+            cells[i] = cell;
+            occupied[cell] = true;
+        }
+    }
+
+    /**
+     * @param cell cell on the board
+     * @param direction direction in PuzzleState order
+     * @return neighbouring cell or -1 if there is none
+     */
+    private int neighbor(int cell, int direction) {
+        switch (direction) {
+            case PuzzleState.LEFT: return cell % this.n != 0 ? cell-1 : -1;
+            case PuzzleState.RIGHT: return cell % this.n != this.n-1 ? cell+1 : -1;
+            case PuzzleState.UP: return cell >= this.n ? cell-this.n : -1;
+            default: return cell < this.m-this.n ? cell+this.n : -1;
+        }
+    }
+
+    private byte get(long state) {
+        return this.distances[(int) (state >>> CHUNK_BITS)][(int) (state & CHUNK_MASK)];
+    }
+
+    private void set(long state, byte distance) {
+        this.distances[(int) (state >>> CHUNK_BITS)][(int) (state & CHUNK_MASK)] = distance;
+    }
+}
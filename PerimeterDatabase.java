@@ -0,0 +1,178 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Perimeter of the goal: every board within radius moves of the goal with its exact distance
+ * Boards are found by breadth first search from the goal and kept as packed words in an open addressing
+ * table, next to one byte with the distance. The radius is the deepest layer which fits in the memory budget,
+ * boards of the next layer are added while there is space, so a board of the table always has its exact
+ * distance and a board missing in the table is more than radius moves from the goal.
+ * Databases are built once per shape and budget and shared by all solvers in the JVM, they are read only
+ */
+final class PerimeterDatabase {
+    static final int OUTSIDE = -1;
+    // distances are kept as distance + 1 in a byte, 0 marks a free slot
+    private static final int MAX_RADIUS = 254;
+    // at most three of four slots are used, so probe sequences stay short
+    private static final int LOAD_NUMERATOR = 3;
+    private static final int LOAD_DENOMINATOR = 4;
+    private static final ConcurrentHashMap<String, PerimeterDatabase> DATABASES = new ConcurrentHashMap<>();
+
+    private final BoardShape shape;
+    private final int words;
+    private final long[] keys;
+    private final byte[] distances;
+    private final int mask;
+    private int radius;
+    private int size;
+
+    /**
+     * @param shape shape of boards
+     * @param megabytes memory of the table
+     */
+    private PerimeterDatabase(BoardShape shape, int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Perimeter database size has to be positive: " + megabytes);
+        }
+        this.shape = shape;
+        this.words = PackedBoard.words(shape.size());
+        long slotBytes = 8L * this.words + 1;
+        long slots = Long.highestOneBit(Math.max(1, (megabytes * (1L << 20)) / slotBytes));
+        slots = Math.min(slots, Integer.highestOneBit(Integer.MAX_VALUE / this.words));
+        this.mask = (int) slots - 1;
+        this.keys = new long[(int) slots * this.words];
+        this.distances = new byte[(int) slots];
+        this.radius = -1;
+    }
+
+    /**
+     * Returns database for given shape and memory, shared by all solvers in the JVM
+     * It is built by breadth first search from the goal when it is used for the first time
+     * @param shape shape of boards
+     * @param megabytes memory of the table
+     * @return perimeter database of the biggest radius which fits in the memory
+     */
+    static PerimeterDatabase forShape(BoardShape shape, int megabytes) {
+        return DATABASES.computeIfAbsent(shape.rows() + "x" + shape.columns() + "-" + megabytes, name -> {
+            PerimeterDatabase database = new PerimeterDatabase(shape, megabytes);
+            database.build();
+            return database;
+        });
+    }
+
+    /**
+     * @return every board farther from the goal is not in the table
+     */
+    int radius() {
+        return this.radius;
+    }
+
+    /**
+     * @return number of boards in the table
+     */
+    int size() {
+        return this.size;
+    }
+
+    /**
+     * @param packed packed words of the board, see PackedBoard
+     * @return exact number of moves from the board to the goal, OUTSIDE if the board is not in the table
+     */
+    int distance(long[] packed) {
+        for (int slot = slot(packed); ; slot = (slot+1) & this.mask) {
+            int distance = this.distances[slot] & 0xFF;
+            if (distance == 0) { return OUTSIDE; }
+            if (matches(slot, packed)) { return distance - 1; }
+        }
+    }
+
+    /**
+     * Breadth first search from the goal, layer by layer until the table is full
+     */
+    private void build() {
+        int m = this.shape.size();
+        int[] tiles = new int[m];
+        for (int i=0; i<m-1; i++) {
+            tiles[i] = i+1;
+        }
+        long maxSize = (long) (this.mask + 1) * LOAD_NUMERATOR / LOAD_DENOMINATOR;
+        long[] layer = PackedBoard.pack(tiles);
+        int layerSize = 1;
+        add(layer, 0);
+        this.radius = 0;
+        for (int depth=0; depth<MAX_RADIUS; depth++) {
+            long[] next = new long[Math.max(16, layerSize * 2) * this.words];
+            int nextSize = 0;
+            long[] child = new long[this.words];
+            for (int i=0; i<layerSize; i++) {
+                tiles = PackedBoard.unpack(Arrays.copyOfRange(layer, i*this.words, (i+1)*this.words), m);
+                int zero = 0;
+                while (tiles[zero] != 0) { zero++; }
+                for (int direction=0; direction<4; direction++) {
+                    int target = this.shape.neighbor(zero, direction);
+                    if (target == BoardShape.NO_NEIGHBOR) { continue; }
+                    System.arraycopy(layer, i*this.words, child, 0, this.words);
+                    long tile = tiles[target];
+                    child[PackedBoard.wordOf(target, m)] -= tile << PackedBoard.shiftOf(target, m);
+                    child[PackedBoard.wordOf(zero, m)] += tile << PackedBoard.shiftOf(zero, m);
+                    if (this.size == maxSize) {
+                        // the next layer is not complete, boards found so far keep their exact distances
+                        return;
+                    }
+                    if (!add(child, depth+1)) { continue; }
+                    if ((nextSize+1) * this.words > next.length) {
+                        next = Arrays.copyOf(next, next.length * 2);
+                    }
+                    System.arraycopy(child, 0, next, nextSize * this.words, this.words);
+                    nextSize++;
+                }
+            }
+            this.radius = depth+1;
+            if (nextSize == 0) {
+                // every board of the shape is in the table
+                return;
+            }
+            layer = next;
+            layerSize = nextSize;
+        }
+    }
+
+    /**
+     * Adds the board if it is not in the table yet, the table has to have a free slot
+     * @param packed packed words of the board
+     * @param distance distance of the board from the goal
+     * @return true if the board was added
+     */
+    private boolean add(long[] packed, int distance) {
+        for (int slot = slot(packed); ; slot = (slot+1) & this.mask) {
+            if (this.distances[slot] == 0) {
+                System.arraycopy(packed, 0, this.keys, slot * this.words, this.words);
+                this.distances[slot] = (byte) (distance + 1);
+                this.size++;
+                return true;
+            }
+            if (matches(slot, packed)) { return false; }
+        }
+    }
+
+    /**
+     * @param packed packed words of the board
+     * @return first slot of the board
+     */
+    private int slot(long[] packed) {
+        return (int) PackedBoard.hash(packed) & this.mask;
+    }
+
+    /**
+     * @param slot used slot
+     * @param packed packed words of the board
+     * @return true if the slot holds the board
+     */
+    private boolean matches(int slot, long[] packed) {
+        int first = slot * this.words;
+        for (int i=0; i<this.words; i++) {
+            if (this.keys[first+i] != packed[i]) { return false; }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,290 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streaming reader of files with one or more puzzles
+ * Two formats are supported:
+ * - boards one after another, every board is the dimension n followed by n*n tiles
+ * - multi-board file starting with the header "npuzzle n count" followed by count boards of n*n tiles
+ * Rectangular boards write the dimension as rows x columns, e.g. "3x4" followed by 12 tiles.
+ * Tokens are separated by any whitespace, lines starting with '#' are comments.
+ * The file is read in blocks through one reused buffer and numbers are parsed from the raw bytes,
+ * so the whole file is never kept in memory and no objects are created per token.
+ * Every board is checked to be a permutation of 0..rows*columns-1, a board which is not
+ * is read to its end before InvalidBoardException is thrown, so the next board can be read
+ */
+class PuzzleReader implements Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+    private static final int END = -1;
+    private static final String HEADER = "npuzzle";
+    // boards bigger than this are not solvable in practice and their tiles would overflow checks
+    private static final int MAX_DIMENSION = 1 << 10;
+    private static final char SHAPE_SEPARATOR = 'x';
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final byte[] bytes;
+    private int position;
+    private int limit;
+    private int line;
+    private long boards;
+    // shape and remaining boards of the multi-board file, remaining is -1 for the other format
+    private int headerRows;
+    private int headerColumns;
+    private long remainingBoards;
+    private int[] tiles;
+    private boolean[] seen;
+
+    /**
+     * @param path path to file with puzzles
+     * @throws IOException if the file can not be opened
+     */
+    PuzzleReader(String path) throws IOException {
+        this.channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+        this.bytes = new byte[BUFFER_SIZE];
+        this.buffer = ByteBuffer.wrap(this.bytes);
+        this.line = 1;
+        this.remainingBoards = -1;
+    }
+
+    /**
+     * @return next board from the file or null if there are no more boards
+     * @throws InvalidBoardException if tiles of the board are not a permutation, reading can go on
+     * @throws IOException if the file can not be read or is not a valid puzzle file
+     */
+    Board next() throws IOException {
+        if (this.boards == 0 && skipSpaces() != END && peek() == HEADER.charAt(0)) {
+            readHeader();
+        }
+        int rows;
+        int columns;
+        if (this.remainingBoards >= 0) {
+            if (this.remainingBoards == 0) {
+                if (skipSpaces() != END) {
+                    throw error("Unexpected data after " + this.boards + " boards announced in the header");
+                }
+                return null;
+            }
+            this.remainingBoards--;
+            rows = this.headerRows;
+            columns = this.headerColumns;
+        } else {
+            if (skipSpaces() == END) {
+                return null;
+            }
+            rows = dimension(readNumber());
+            columns = readColumns(rows);
+        }
+        this.boards++;
+
+        int m = rows*columns;
+        if (this.tiles == null || this.tiles.length != m) {
+            this.tiles = new int[m];
+            this.seen = new boolean[m];
+        }
+        // first problem of the board, the remaining tiles are still read
+        InvalidBoardException invalid = null;
+        for (int i=0; i<m; i++) {
+            if (skipSpaces() == END) {
+                throw error("Board " + this.boards + " has only " + i + " of " + m + " tiles");
+            }
+            int tile = readInt();
+            if (invalid != null) {
+                continue;
+            }
+            if (tile >= m) {
+                invalid = new InvalidBoardException("Tile " + tile + " of board " + this.boards
+                        + " is not between 0 and " + (m-1) + " (line " + this.line + ")");
+            } else if (this.seen[tile]) {
+                invalid = new InvalidBoardException("Tile " + tile + " appears twice in board " + this.boards
+                        + " (line " + this.line + ")");
+            } else {
+                this.seen[tile] = true;
+                this.tiles[i] = tile;
+            }
+        }
+        for (int i=0; i<m; i++) {
+            this.seen[i] = false;
+        }
+        if (invalid != null) {
+            throw invalid;
+        }
+        return new Board(rows, columns, this.tiles);
+    }
+
+    /**
+     * Reads "npuzzle n count" header of the multi-board file
+     * @throws IOException if the header is malformed
+     */
+    private void readHeader() throws IOException {
+        for (int i=0; i<HEADER.length(); i++) {
+            if (peek() != HEADER.charAt(i)) {
+                throw error("Malformed header, expected \"" + HEADER + " n count\"");
+            }
+            this.position++;
+        }
+        if (skipSpaces() == END) {
+            throw error("Missing dimension in the header");
+        }
+        this.headerRows = dimension(readNumber());
+        this.headerColumns = readColumns(this.headerRows);
+        if (skipSpaces() == END) {
+            throw error("Missing number of boards in the header");
+        }
+        this.remainingBoards = readInt();
+    }
+
+    /**
+     * @param n read dimension
+     * @return checked dimension
+     * @throws IOException if the dimension is not supported
+     */
+    private int dimension(int n) throws IOException {
+        if (n < 2 || n > MAX_DIMENSION) {
+            throw error("Board dimension " + n + " is not between 2 and " + MAX_DIMENSION);
+        }
+        return n;
+    }
+
+    /**
+     * Reads the number of columns after the number of rows
+     * @param rows read number of rows
+     * @return columns after the separator of rows x columns, or rows for the dimension of a square board
+     * @throws IOException if the dimension is malformed or not supported
+     */
+    private int readColumns(int rows) throws IOException {
+        if (peek() != SHAPE_SEPARATOR) {
+            checkEndOfNumber(peek());
+            return rows;
+        }
+        this.position++;
+        return dimension(readInt());
+    }
+
+    /**
+     * Parses non-negative number starting at the current position, the number has to be followed
+     * by whitespace or the end of the file
+     * @return parsed number
+     * @throws IOException if there is no number or it is too big
+     */
+    private int readInt() throws IOException {
+        int value = readNumber();
+        checkEndOfNumber(peek());
+        return value;
+    }
+
+    /**
+     * @param c byte after a number
+     * @throws IOException if the byte is not whitespace or the end of the file
+     */
+    private void checkEndOfNumber(int c) throws IOException {
+        if (c != END && !isSpace(c)) {
+            throw error("Expected a number but found '" + (char) c + "'");
+        }
+    }
+
+    /**
+     * Parses non-negative number starting at the current position
+     * @return parsed number
+     * @throws IOException if there is no number or it is too big
+     */
+    private int readNumber() throws IOException {
+        int value = 0;
+        int digits = 0;
+        int c;
+        while ((c = peek()) != END && c >= '0' && c <= '9') {
+            value = value*10 + (c - '0');
+            if (++digits > 9) {
+                throw error("Number is too big");
+            }
+            this.position++;
+        }
+        if (digits == 0) {
+            throw error("Expected a number but found '" + (char) c + "'");
+        }
+        return value;
+    }
+
+    /**
+     * Skips whitespace and comments
+     * @return next byte or END at the end of the file
+     * @throws IOException if the file can not be read
+     */
+    private int skipSpaces() throws IOException {
+        int c;
+        while ((c = peek()) != END) {
+            if (c == '#') {
+                while ((c = peek()) != END && c != '\n') {
+                    this.position++;
+                }
+            } else if (isSpace(c)) {
+                if (c == '\n') {
+                    this.line++;
+                }
+                this.position++;
+            } else {
+                break;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * @return byte at the current position or END at the end of the file, the buffer is refilled when needed
+     * @throws IOException if the file can not be read
+     */
+    private int peek() throws IOException {
+        if (this.position == this.limit) {
+            this.buffer.clear();
+            int read;
+            do {
+                read = this.channel.read(this.buffer);
+            } while (read == 0);
+            if (read < 0) {
+                return END;
+            }
+            this.position = 0;
+            this.limit = read;
+        }
+        return this.bytes[this.position] & 0xFF;
+    }
+
+    /**
+     * @param c byte
+     * @return true if the byte is whitespace
+     */
+    private static boolean isSpace(int c) {
+        return c == ' ' || c == '\n' || c == '\r' || c == '\t' || c == '\f';
+    }
+
+    /**
+     * @param message description of the problem
+     * @return exception with the line of the problem
+     */
+    private IOException error(String message) {
+        return new IOException(message + " (line " + this.line + ")");
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.channel.close();
+    }
+
+    /**
+     * Board with wrong tiles, the file is still readable from the next board
+     */
+    static final class InvalidBoardException extends IOException {
+        private static final long serialVersionUID = 1L;
+
+        /**
+         * @param message description of the problem
+         */
+        InvalidBoardException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Mutable puzzle state used by the in-place search engine
+ * Instead of creating new boards, moves are made and undone on a single tile array
+ * and heuristics are updated only from the moved tile
+ */
+final class PuzzleState {
+    // directions in which the blank is moved, in the same order as Board.neighbors()
+    static final int LEFT = 0;
+    static final int RIGHT = 1;
+    static final int UP = 2;
+    static final int DOWN = 3;
+    static final int NO_DIRECTION = -1;
+
+    private final BoardShape shape;
+    private final int m;
+    // neighbors[position*4 + direction] of the board shape, see BoardShape
+    private final int[] neighbors;
+    private final int[] tiles;
+    private final Heuristic.Evaluator evaluator;
+    private int zeroPosition;
+    // number of misplaced tiles, used for the goal test
+    private int hamming;
+    // packed encoding updated with every move, see PackedBoard
+    private final long[] packed;
+    private final int[] wordOf;
+    private final int[] shiftOf;
+
+    /**
+     * Create a mutable state from the given board, used when no heuristics is needed
+     * @param board initial board
+     */
+    PuzzleState(Board board) {
+        this(board, HammingHeuristic.instance());
+    }
+
+    /**
+     * Create a mutable state from the given board
+     * @param board initial board
+     * @param heuristic heuristic used in search
+     */
+    PuzzleState(Board board, Heuristic heuristic) {
+        this.shape = board.shape();
+        this.m = this.shape.size();
+        this.neighbors = this.shape.neighbors();
+        this.tiles = board.toArray();
+        int hamming = 0;
+        int zeroPosition = this.m-1;
+        for (int i=0; i<this.m; i++) {
+            if (this.tiles[i] == 0) { zeroPosition = i; }
+            else if ((i+1) != this.tiles[i]) { hamming++; }
+        }
+        this.hamming = hamming;
+        this.zeroPosition = zeroPosition;
+        this.evaluator = heuristic.newEvaluator(this.tiles);
+        this.packed = PackedBoard.pack(this.tiles);
+        this.wordOf = new int[this.m];
+        this.shiftOf = new int[this.m];
+        for (int i=0; i<this.m; i++) {
+            this.wordOf[i] = PackedBoard.wordOf(i, this.m);
+            this.shiftOf[i] = PackedBoard.shiftOf(i, this.m);
+        }
+    }
+
+    /**
+     * @param direction direction of the blank move
+     * @return opposite direction, which undoes the move
+     */
+    static int opposite(int direction) {
+        return direction ^ 1;
+    }
+
+    /**
+     * @param from blank position before the move
+     * @param to blank position after the move
+     * @return direction of the blank move
+     */
+    static int direction(int from, int to) {
+        int difference = to - from;
+        if (difference == -1) { return LEFT; }
+        if (difference == 1) { return RIGHT; }
+        return difference < 0 ? UP : DOWN;
+    }
+
+    /**
+     * @return true if current state is the goal state
+     */
+    boolean isGoal() {
+        return this.hamming == 0;
+    }
+
+    /**
+     * @return distance from solution in heuristic of this state
+     */
+    int distanceFromSolution() {
+        return this.evaluator.distance();
+    }
+
+    /**
+     * @param direction direction of the blank move
+     * @return true if blank can be moved in given direction
+     */
+    boolean canMove(int direction) {
+        return targetPosition(direction) != BoardShape.NO_NEIGHBOR;
+    }
+
+    /**
+     * One read of the shared neighbour table, the same code for boards of every size and shape
+     * @param direction direction of the blank move
+     * @return position of the tile which is swapped with blank, BoardShape.NO_NEIGHBOR if there is none
+     */
+    private int targetPosition(int direction) {
+        return this.neighbors[this.zeroPosition*4 + direction];
+    }
+
+    /**
+     * Distance of the state after the move, calculated without making the move
+     * @param direction direction of the blank move, it has to be possible
+     * @return distance from solution after the move
+     */
+    int distanceAfterMove(int direction) {
+        int target = targetPosition(direction);
+        return this.evaluator.distanceAfterMove(this.tiles[target], target, this.zeroPosition);
+    }
+
+    /**
+     * Function moves the blank in given direction
+     * and updates heuristics using only the moved tile
+     * @param direction direction of the blank move, it has to be possible
+     */
+    void move(int direction) {
+        int target = targetPosition(direction);
+        int tile = this.tiles[target];
+        this.hamming += HammingHeuristic.change(tile, target, this.zeroPosition);
+        this.evaluator.move(tile, target, this.zeroPosition);
+        this.packed[this.wordOf[target]] -= (long) tile << this.shiftOf[target];
+        this.packed[this.wordOf[this.zeroPosition]] += (long) tile << this.shiftOf[this.zeroPosition];
+        this.tiles[this.zeroPosition] = tile;
+        this.tiles[target] = 0;
+        this.zeroPosition = target;
+    }
+
+    /**
+     * Function undoes move made in given direction
+     * @param direction direction of the move which should be undone
+     */
+    void undo(int direction) {
+        move(opposite(direction));
+    }
+
+    /**
+     * @return packed encoding of current state, the array is changed by next moves
+     */
+    long[] packed() {
+        return this.packed;
+    }
+
+    /**
+     * @return immutable board with current state
+     */
+    Board toBoard() {
+        return new Board(this.shape, this.tiles);
+    }
+}
@@ -0,0 +1,325 @@
+import java.util.Arrays;
+
+/**
+ * Constructive solver for boards too big for optimal search
+ * The top row or the left column of the unsolved rectangle, whichever is longer, is placed
+ * tile by tile until a 2x2 rectangle remains, which is solved by rotating the blank around it.
+ * A tile is moved one cell at a time: the blank walks to the next cell of the tile without
+ * touching the tile and placed tiles, then they swap. The last two tiles of a line are placed
+ * together: the first one goes to the end of the line, the second one next to it inside
+ * the rectangle, and two moves turn them into place.
+ * Solving takes O(rows * columns * (rows + columns)) moves and time, the moves are far from optimal
+ * and are shortened by SolutionShortener
+ */
+final class RuleBasedSolver {
+    private final BoardShape shape;
+    private final int columns;
+    private final int[] tiles;
+    // positions[tile] is the position of the tile
+    private final int[] positions;
+    // placed tiles and the moved tile are never moved by the blank
+    private final boolean[] placed;
+    private int zeroPosition;
+    private int[] moves = new int[64];
+    private int length;
+    // breadth first search of blank routes, cells are visited when visited[cell] == stamp
+    private final int[] visited;
+    private final int[] previous;
+    private final int[] queue;
+    private int stamp;
+
+    /**
+     * @param board solvable board
+     */
+    private RuleBasedSolver(Board board) {
+        this.shape = board.shape();
+        this.columns = this.shape.columns();
+        this.tiles = board.toArray();
+        int m = this.tiles.length;
+        this.positions = new int[m];
+        for (int i=0; i<m; i++) {
+            this.positions[this.tiles[i]] = i;
+        }
+        this.zeroPosition = this.positions[0];
+        this.placed = new boolean[m];
+        this.visited = new int[m];
+        this.previous = new int[m];
+        this.queue = new int[m];
+    }
+
+    /**
+     * @param board solvable board
+     * @return valid, usually not optimal solution, shortened by SolutionShortener
+     * @throws IllegalArgumentException if the board is not solvable
+     */
+    static SolutionPath solve(Board board) {
+        if (!board.isSolvable()) {
+            throw new IllegalArgumentException("Board is not solvable");
+        }
+        RuleBasedSolver solver = new RuleBasedSolver(board);
+        solver.solve();
+        return SolutionShortener.shorten(board, solver.moves, solver.length);
+    }
+
+    /**
+     * Places lines until the 2x2 rectangle in the bottom right corner remains and solves it
+     */
+    private void solve() {
+        int rows = this.shape.rows();
+        int top = 0;
+        int left = 0;
+        while (rows - top > 2 || this.columns - left > 2) {
+            int height = rows - top;
+            int width = this.columns - left;
+            if (height > 2 && (height >= width || width <= 2)) {
+                solveLine(top*this.columns + left, 1, width, this.columns);
+                top++;
+            } else {
+                solveLine(top*this.columns + left, this.columns, height, 1);
+                left++;
+            }
+        }
+        int corner = this.tiles.length - 1;
+        moveBlank(corner, -1);
+        // blank goes left, up, right and down, every round turns the three tiles by one cell
+        int[] round = {corner - 1, corner - 1 - this.columns, corner - this.columns, corner};
+        for (int rounds=0; rounds<3 && !isCornerSolved(corner); rounds++) {
+            for (int cell : round) {
+                moveBlankTo(cell);
+            }
+        }
+    }
+
+    /**
+     * @param corner position of the bottom right cell
+     * @return true if the three tiles of the last 2x2 rectangle are in place
+     */
+    private boolean isCornerSolved(int corner) {
+        return this.tiles[corner - 1] == corner
+                && this.tiles[corner - this.columns] == corner - this.columns + 1
+                && this.tiles[corner - this.columns - 1] == corner - this.columns;
+    }
+
+    /**
+     * Places the first row or column of the unsolved rectangle, the rectangle has at least 3 lines
+     * @param first position of the first cell of the line
+     * @param step distance between cells of the line, 1 for rows, columns for columns
+     * @param count number of cells in the line
+     * @param inward distance to the next line, columns for rows, 1 for columns
+     */
+    private void solveLine(int first, int step, int count, int inward) {
+        for (int i=0; i<count-2; i++) {
+            int position = first + i*step;
+            moveTile(position + 1, position);
+            this.placed[position] = true;
+        }
+        int beforeLast = first + (count-2)*step;
+        int last = first + (count-1)*step;
+        if (this.tiles[beforeLast] != beforeLast + 1 || this.tiles[last] != last + 1) {
+            // the tile of beforeLast waits at the end of the line, the last tile next to it
+            moveTile(beforeLast + 1, last);
+            this.placed[last] = true;
+            int pocket = this.positions[last + 1] == beforeLast ? beforeLast
+                    : this.zeroPosition == beforeLast && this.positions[last + 1] == beforeLast + inward ? beforeLast + inward
+                    : -1;
+            if (pocket >= 0) {
+                // the last tile or the blank is locked in the cell before the last one
+                this.placed[last] = false;
+                solveBlock(beforeLast, last, inward, pocket);
+                this.placed[last] = true;
+            }
+            moveTile(last + 1, last + inward);
+            this.placed[last + inward] = true;
+            moveBlank(beforeLast, -1);
+            moveBlankTo(last);
+            moveBlankTo(last + inward);
+            this.placed[last + inward] = false;
+        }
+        this.placed[beforeLast] = true;
+        this.placed[last] = true;
+    }
+
+    /**
+     * Moves the tile of beforeLast to the last cell and the last tile next to it
+     * by breadth first search inside the block of the two cells in the first three lines
+     * Any positions of the two tiles and the blank can be reached, the other three tiles
+     * of the block make up for the parity
+     * @param beforeLast position of the cell before the last one of the line
+     * @param last position of the last cell of the line
+     * @param inward distance to the next line
+     * @param tilePosition position of the last tile, it must not move before the blank enters the block
+     */
+    private void solveBlock(int beforeLast, int last, int inward, int tilePosition) {
+        int[] cells = {beforeLast, last, beforeLast + inward, last + inward, beforeLast + 2*inward, last + 2*inward};
+        if (indexOf(cells, this.zeroPosition) < 0) {
+            moveBlank(last + inward, tilePosition);
+        }
+        // state is (first tile * 6 + last tile) * 6 + blank, indexes of cells
+        int[] from = new int[6*6*6];
+        int[] blocks = new int[6*6*6];
+        Arrays.fill(from, -1);
+        int start = (indexOf(cells, this.positions[beforeLast + 1])*6 + indexOf(cells, this.positions[last + 1]))*6
+                + indexOf(cells, this.zeroPosition);
+        int goal = -1;
+        from[start] = start;
+        blocks[0] = start;
+        for (int head=0, tail=1; head<tail && goal < 0; head++) {
+            int state = blocks[head];
+            int first = state / 36;
+            int second = state / 6 % 6;
+            int blank = state % 6;
+            if (first == 1 && second == 3) {
+                goal = state;
+                break;
+            }
+            for (int direction=PuzzleState.LEFT; direction<=PuzzleState.DOWN; direction++) {
+                int next = indexOf(cells, this.shape.neighbor(cells[blank], direction));
+                if (next < 0) { continue; }
+                int nextState = ((first == next ? blank : first)*6 + (second == next ? blank : second))*6 + next;
+                if (from[nextState] < 0) {
+                    from[nextState] = state;
+                    blocks[tail++] = nextState;
+                }
+            }
+        }
+        // blank positions of the route are collected backwards
+        int routeLength = 0;
+        for (int state=goal; state!=start; state=from[state]) {
+            blocks[routeLength++] = cells[state % 6];
+        }
+        for (int i=routeLength-1; i>=0; i--) {
+            moveBlankTo(blocks[i]);
+        }
+    }
+
+    /**
+     * @param cells cells of a block
+     * @param position position on the board or NO_NEIGHBOR
+     * @return index of the position in cells or -1
+     */
+    private static int indexOf(int[] cells, int position) {
+        for (int i=0; i<cells.length; i++) {
+            if (cells[i] == position) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Moves the tile to the target one cell at a time
+     * @param tile moved tile
+     * @param target position of the tile at the end
+     */
+    private void moveTile(int tile, int target) {
+        while (this.positions[tile] != target) {
+            int position = this.positions[tile];
+            int next = nextCell(position, target);
+            moveBlank(next, position);
+            moveBlankTo(position);
+        }
+    }
+
+    /**
+     * @param position current position of the tile
+     * @param target target of the tile
+     * @return neighbour of the position closer to the target which is not placed,
+     * along the row first
+     */
+    private int nextCell(int position, int target) {
+        int column = position % this.columns;
+        int targetColumn = target % this.columns;
+        int horizontal = column < targetColumn ? position + 1 : column > targetColumn ? position - 1 : -1;
+        int vertical = position < target - targetColumn + column ? position + this.columns
+                : position > target - targetColumn + column ? position - this.columns : -1;
+        if (horizontal >= 0 && !this.placed[horizontal]) {
+            return horizontal;
+        }
+        return vertical >= 0 && !this.placed[vertical] ? vertical : horizontal;
+    }
+
+    /**
+     * Walks the blank straight to the target while possible, then by breadth first search
+     * @param target position of the blank at the end
+     * @param avoid position which the blank must not enter, -1 for none
+     */
+    private void moveBlank(int target, int avoid) {
+        while (this.zeroPosition != target) {
+            int column = this.zeroPosition % this.columns;
+            int targetColumn = target % this.columns;
+            int horizontal = column < targetColumn ? this.zeroPosition + 1
+                    : column > targetColumn ? this.zeroPosition - 1 : -1;
+            int vertical = this.zeroPosition / this.columns < target / this.columns ? this.zeroPosition + this.columns
+                    : this.zeroPosition / this.columns > target / this.columns ? this.zeroPosition - this.columns : -1;
+            if (isFree(horizontal, avoid)) {
+                moveBlankTo(horizontal);
+            } else if (isFree(vertical, avoid)) {
+                moveBlankTo(vertical);
+            } else {
+                searchBlankRoute(target, avoid);
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param position position or -1
+     * @param avoid position which the blank must not enter
+     * @return true if the blank may enter the position
+     */
+    private boolean isFree(int position, int avoid) {
+        return position >= 0 && position != avoid && !this.placed[position];
+    }
+
+    /**
+     * Moves the blank along the shortest route avoiding placed tiles
+     * @param target position of the blank at the end
+     * @param avoid position which the blank must not enter
+     */
+    private void searchBlankRoute(int target, int avoid) {
+        this.stamp++;
+        int head = 0;
+        int tail = 0;
+        this.queue[tail++] = this.zeroPosition;
+        this.visited[this.zeroPosition] = this.stamp;
+        while (head < tail && this.visited[target] != this.stamp) {
+            int cell = this.queue[head++];
+            for (int direction=PuzzleState.LEFT; direction<=PuzzleState.DOWN; direction++) {
+                int next = this.shape.neighbor(cell, direction);
+                if (next != BoardShape.NO_NEIGHBOR && this.visited[next] != this.stamp && isFree(next, avoid)) {
+                    this.visited[next] = this.stamp;
+                    this.previous[next] = cell;
+                    this.queue[tail++] = next;
+                }
+            }
+        }
+        if (this.visited[target] != this.stamp) {
+            throw new IllegalStateException("Blank can not reach position " + target);
+        }
+        // route is collected backwards in the free end of the queue
+        int routeLength = 0;
+        for (int cell=target; cell!=this.zeroPosition; cell=this.previous[cell]) {
+            this.queue[this.queue.length - 1 - routeLength++] = cell;
+        }
+        for (int i=this.queue.length - routeLength; i<this.queue.length; i++) {
+            moveBlankTo(this.queue[i]);
+        }
+    }
+
+    /**
+     * Swaps the blank with the tile at the neighbouring position and records the move
+     * @param position neighbour of the blank
+     */
+    private void moveBlankTo(int position) {
+        int tile = this.tiles[position];
+        this.tiles[this.zeroPosition] = tile;
+        this.positions[tile] = this.zeroPosition;
+        this.tiles[position] = 0;
+        this.positions[0] = position;
+        if (this.length == this.moves.length) {
+            this.moves = Arrays.copyOf(this.moves, 2 * this.length);
+        }
+        this.moves[this.length++] = PuzzleState.direction(this.zeroPosition, position);
+        this.zeroPosition = position;
+    }
+}
@@ -0,0 +1,56 @@
+/**
+ * Tile kernels with plain loops, used when VectorTileLanes can not be loaded
+ */
+final class ScalarTileLanes implements TileLanes {
+    // compiled from the vector directory, needs --add-modules jdk.incubator.vector
+    private static final String VECTOR_CLASS = "VectorTileLanes";
+    static final TileLanes LANES = load();
+
+    /**
+     * @return vector lanes if the class and the incubator module are available, otherwise scalar lanes
+     */
+    private static TileLanes load() {
+        try {
+            TileLanes lanes = (TileLanes) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+            if (lanes.isVector()) {
+                return lanes;
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // the class is not compiled or the module is not added to the JVM
+        }
+        return new ScalarTileLanes();
+    }
+
+    @Override
+    public boolean isVector() {
+        return false;
+    }
+
+    @Override
+    public void widen(byte[] tiles, int[] destination) {
+        for (int i=0; i<tiles.length; i++) {
+            destination[i] = tiles[i] & 0xFF;
+        }
+    }
+
+    @Override
+    public int hamming(int[] tiles) {
+        int hamming = 0;
+        for (int i=0; i<tiles.length; i++) {
+            if (tiles[i] != 0 && tiles[i] != i+1) { hamming++; }
+        }
+        return hamming;
+    }
+
+    @Override
+    public int manhattan(int[] tiles, BoardShape shape) {
+        int m = shape.size();
+        int[] distances = shape.distances();
+        int manhattan = 0;
+        for (int i=0; i<tiles.length; i++) {
+            if (tiles[i] == 0) { continue; }
+            manhattan += distances != null ? distances[tiles[i]*m + i] : shape.distance(tiles[i], i);
+        }
+        return manhattan;
+    }
+}
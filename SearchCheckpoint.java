@@ -0,0 +1,164 @@
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Progress of a long IDA* search saved to a small file, used by InPlaceDeepFirstSearch
+ * The file holds the running threshold, the number of root subtrees of the iteration
+ * already searched, the smallest cost exceeding the threshold found in them and node counters.
+ * Subtrees are the nodes on InPlaceDeepFirstSearch.CHECKPOINT_SPLIT_DEPTH, collected in the same order
+ * in every run, so a resumed search skips the searched ones and continues with the next.
+ * The file belongs to one board, heuristic and pruning, other searches do not resume from it
+ */
+final class SearchCheckpoint {
+    private static final int MAGIC = 0x4E504350;
+    private static final int VERSION = 1;
+    // keys of the biggest supported boards are far shorter
+    private static final int MAX_KEY_BYTES = 1 << 26;
+
+    private final String key;
+    private final int threshold;
+    private final int completedSubtrees;
+    private final int newThreshold;
+    private final long createdNodes;
+    private final long expandedNodes;
+
+    /**
+     * @param key description of the board, heuristic and pruning, see key
+     * @param threshold threshold of the running iteration
+     * @param completedSubtrees number of root subtrees of the iteration already searched
+     * @param newThreshold smallest cost exceeding the threshold in searched subtrees
+     * @param createdNodes nodes created since the search started
+     * @param expandedNodes nodes expanded since the search started
+     */
+    SearchCheckpoint(String key, int threshold, int completedSubtrees, int newThreshold,
+                     long createdNodes, long expandedNodes) {
+        this.key = key;
+        this.threshold = threshold;
+        this.completedSubtrees = completedSubtrees;
+        this.newThreshold = newThreshold;
+        this.createdNodes = createdNodes;
+        this.expandedNodes = expandedNodes;
+    }
+
+    /**
+     * @param board initial board
+     * @param heuristic heuristic of the search
+     * @param pruning true if redundant move sequences are pruned
+     * @return key of searches which can resume from the same checkpoint
+     */
+    static String key(Board board, Heuristic heuristic, boolean pruning) {
+        StringBuilder key = new StringBuilder()
+                .append(heuristic.getClass().getName()).append(' ')
+                .append(pruning).append(' ')
+                .append(board.rows()).append('x').append(board.columns());
+        for (int tile : board.toArray()) {
+            key.append(' ').append(tile);
+        }
+        return key.toString();
+    }
+
+    /**
+     * @return threshold of the running iteration
+     */
+    int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * @return number of root subtrees of the iteration already searched
+     */
+    int getCompletedSubtrees() {
+        return this.completedSubtrees;
+    }
+
+    /**
+     * @return smallest cost exceeding the threshold in searched subtrees
+     */
+    int getNewThreshold() {
+        return this.newThreshold;
+    }
+
+    /**
+     * @return nodes created since the search started
+     */
+    long getCreatedNodes() {
+        return this.createdNodes;
+    }
+
+    /**
+     * @return nodes expanded since the search started
+     */
+    long getExpandedNodes() {
+        return this.expandedNodes;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file which replaces the old one by atomic rename,
+     * so a crash leaves either the old or the new checkpoint, never a partial one
+     * @param file path to the checkpoint file
+     * @throws IOException when the file can not be written
+     */
+    void save(Path file) throws IOException {
+        if (file.getParent() != null) {
+            Files.createDirectories(file.getParent());
+        }
+        Path temporary = file.resolveSibling(file.getFileName() + "." + ProcessHandle.current().pid() + ".tmp");
+        try {
+            try (FileOutputStream stream = new FileOutputStream(temporary.toFile());
+                 DataOutputStream output = new DataOutputStream(new BufferedOutputStream(stream))) {
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                byte[] key = this.key.getBytes(StandardCharsets.UTF_8);
+                output.writeInt(key.length);
+                output.write(key);
+                output.writeInt(this.threshold);
+                output.writeInt(this.completedSubtrees);
+                output.writeInt(this.newThreshold);
+                output.writeLong(this.createdNodes);
+                output.writeLong(this.expandedNodes);
+                output.flush();
+                stream.getFD().sync();
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * @param file path to the checkpoint file
+     * @param key key of the resumed search
+     * @return saved checkpoint, null if the file does not exist or belongs to another search
+     * @throws IOException when file can not be read or has wrong format
+     */
+    static SearchCheckpoint load(Path file, String key) throws IOException {
+        try (InputStream stream = Files.newInputStream(file);
+             DataInputStream input = new DataInputStream(stream)) {
+            if (input.readInt() != MAGIC || input.readInt() != VERSION) {
+                throw new IOException("Not a search checkpoint file: " + file);
+            }
+            int length = input.readInt();
+            if (length < 0 || length > MAX_KEY_BYTES) {
+                throw new IOException("Broken search checkpoint file: " + file);
+            }
+            byte[] savedKey = new byte[length];
+            input.readFully(savedKey);
+            if (!new String(savedKey, StandardCharsets.UTF_8).equals(key)) {
+                return null;
+            }
+            return new SearchCheckpoint(key, input.readInt(), input.readInt(), input.readInt(),
+                    input.readLong(), input.readLong());
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,383 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Coordinator of distributed IDA*, hands out subtrees of threshold iterations to SearchWorker processes
+ * Workers connect to the coordinator, every connection searches one job at a time, so a worker process
+ * opens one connection per thread. Workers may join and leave at any time: jobs of a lost connection
+ * are given to other connections. When a job finds the solution, STOP is sent to all connections.
+ * One board is searched at a time, solves using the same coordinator wait for each other.
+ *
+ * Messages from the coordinator:
+ * BOARD solve heuristics pruning RxC t1 ... tR*C  board of the solve, sent before its first job
+ * JOB solve job threshold prefix                    search subtree below the prefix letters, - for no moves
+ * STOP solve                                        abandon jobs of the solve
+ * Messages from workers:
+ * DONE job newThreshold createdNodes expandedNodes  subtree searched without solution
+ * FOUND job moves createdNodes expandedNodes moveString
+ * STOPPED job createdNodes expandedNodes            job abandoned after STOP
+ */
+public class SearchCoordinator implements Closeable {
+    // how long the dispatcher waits for a message before checking the search is stopped
+    private static final long POLL_MILLIS = 50;
+
+    private final ServerSocket serverSocket;
+    private final List<WorkerLink> links = new CopyOnWriteArrayList<>();
+    // messages of all connections, read by the thread running the iteration
+    private final LinkedBlockingQueue<Event> events = new LinkedBlockingQueue<>();
+    private final AtomicLong solveIds = new AtomicLong();
+    private long jobIds;
+
+    /**
+     * Binds the coordinator to the loopback address, workers on the same machine only
+     * @param port port on localhost, 0 for any free port
+     * @throws IOException if the port can not be bound
+     */
+    public SearchCoordinator(int port) throws IOException {
+        this(port, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * @param port port of the coordinator, 0 for any free port
+     * @param address local address on which workers are accepted, null for all addresses
+     * @throws IOException if the port can not be bound
+     */
+    public SearchCoordinator(int port, InetAddress address) throws IOException {
+        this.serverSocket = new ServerSocket(port, 0, address);
+        Thread acceptor = new Thread(this::acceptLoop, "coordinator-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * @return port on which workers are accepted
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * @return number of connected worker threads
+     */
+    public int getWorkers() {
+        return this.links.size();
+    }
+
+    /**
+     * Accepts worker connections until the server socket is closed
+     */
+    private void acceptLoop() {
+        while (!this.serverSocket.isClosed()) {
+            try {
+                WorkerLink link = new WorkerLink(this.serverSocket.accept());
+                this.links.add(link);
+                this.events.add(new Event(link, null));
+                Thread reader = new Thread(link::readLoop, "coordinator-link");
+                reader.setDaemon(true);
+                reader.start();
+            } catch (IOException e) {
+                // closed server socket ends the loop, broken connection is dropped
+            }
+        }
+    }
+
+    /**
+     * @return id of a new solve, jobs of old solves are recognized by it
+     */
+    long newSolve() {
+        return this.solveIds.incrementAndGet();
+    }
+
+    /**
+     * Searches all subtrees of one threshold iteration on the workers
+     * Waits until every job ends, a job finds the solution or the search is stopped.
+     * Jobs of lost connections are searched again by other connections
+     * @param solve id of the solve from newSolve
+     * @param board message describing the board of the solve
+     * @param initialBoard board of the solve, found solutions are checked on it
+     * @param threshold for step cost
+     * @param prefixes moves from the initial board to roots of subtrees
+     * @param searchResult information about searching, receives the solution
+     * @return smallest new threshold of all subtrees or BoundedSearch.FOUND
+     */
+    synchronized int searchIteration(long solve, String board, Board initialBoard, int threshold,
+                                     List<int[]> prefixes, SearchResult searchResult) {
+        ArrayDeque<Job> pending = new ArrayDeque<>();
+        for (int[] prefix : prefixes) {
+            pending.add(new Job(++this.jobIds, solve, prefix));
+        }
+        int running = 0;
+        int newThreshold = Integer.MAX_VALUE;
+        SearchMetrics metrics = searchResult.getMetrics();
+        try {
+            while (!pending.isEmpty() || running > 0) {
+                if (searchResult.isFinished()) {
+                    broadcastStop(solve);
+                    return BoundedSearch.FOUND;
+                }
+                for (WorkerLink link : this.links) {
+                    if (pending.isEmpty()) {
+                        break;
+                    }
+                    if (link.job == null && link.isAlive()) {
+                        Job job = pending.poll();
+                        link.job = job;
+                        running++;
+                        link.send(job, board, threshold);
+                    }
+                }
+                Event event = this.events.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (event == null || event.tokens == null) {
+                    continue;
+                }
+                WorkerLink link = event.link;
+                Job job = link.job;
+                boolean current = job != null && job.solve == solve;
+                if (event.isLost()) {
+                    link.job = null;
+                    if (current) {
+                        // lost subtree is searched again from the beginning
+                        running--;
+                        pending.addFirst(job);
+                    }
+                    continue;
+                }
+                if (job == null || !event.tokens[1].equals(Long.toString(job.id))) {
+                    continue;
+                }
+                String kind = event.tokens[0];
+                int nodes = kind.equals("STOPPED") ? 2 : 3;
+                int number;
+                long createdNodes;
+                long expandedNodes;
+                try {
+                    number = kind.equals("STOPPED") ? 0 : Integer.parseInt(event.tokens[2]);
+                    createdNodes = Long.parseLong(event.tokens[nodes]);
+                    expandedNodes = Long.parseLong(event.tokens[nodes + 1]);
+                } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                    // broken worker is dropped, its job is given to others when the connection is lost
+                    link.close();
+                    continue;
+                }
+                link.job = null;
+                if (!current) {
+                    continue;
+                }
+                running--;
+                searchResult.setCreatedNodes(searchResult.getCreatedNodes() + createdNodes);
+                metrics.add(expandedNodes, 0, 0, 0, 0);
+                searchResult.checkNodeBudget(metrics.getTotalExpandedNodes());
+                if (kind.equals("DONE")) {
+                    newThreshold = Math.min(newThreshold, number);
+                } else if (kind.equals("FOUND") && saveSolution(number, event.tokens, initialBoard, searchResult)) {
+                    broadcastStop(solve);
+                    return BoundedSearch.FOUND;
+                } else {
+                    // job abandoned by the worker itself or with a wrong solution is searched again
+                    pending.addFirst(job);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            searchResult.stop(SolveStatus.CANCELLED);
+            broadcastStop(solve);
+            return BoundedSearch.FOUND;
+        }
+        return newThreshold;
+    }
+
+    /**
+     * Checks the solution sent by a worker on the initial board and saves it
+     * @param moves number of moves of the solution
+     * @param tokens FOUND, job, moves, created and expanded nodes, move letters
+     * @param initialBoard board of the solve
+     * @param searchResult information about searching
+     * @return true if the solution is valid and saved first
+     */
+    private static boolean saveSolution(int moves, String[] tokens, Board initialBoard, SearchResult searchResult) {
+        byte[] letters = (tokens.length > 5 ? tokens[5] : "").getBytes(StandardCharsets.US_ASCII);
+        if (letters.length != moves) {
+            return false;
+        }
+        PuzzleState state = new PuzzleState(initialBoard);
+        for (byte letter : letters) {
+            int direction = SolutionPath.direction(letter);
+            if (!state.canMove(direction)) {
+                return false;
+            }
+            state.move(direction);
+        }
+        if (!state.isGoal() || !searchResult.setProblemIsSolved(moves)) {
+            return false;
+        }
+        searchResult.setSolution(new SolutionPath(initialBoard, letters));
+        searchResult.setMoves(moves);
+        return true;
+    }
+
+    /**
+     * Tells all connections to abandon jobs of the solve
+     * @param solve id of the solve
+     */
+    private void broadcastStop(long solve) {
+        for (WorkerLink link : this.links) {
+            link.write("STOP " + solve);
+        }
+    }
+
+    /**
+     * Closes the coordinator and all worker connections, workers end
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        for (WorkerLink link : this.links) {
+            link.close();
+        }
+    }
+
+    /**
+     * Subtree of one iteration
+     */
+    private static final class Job {
+        private final long id;
+        private final long solve;
+        private final int[] prefix;
+
+        /**
+         * @param id id unique in the coordinator
+         * @param solve id of the solve
+         * @param prefix moves from the initial board to the root of the subtree
+         */
+        Job(long id, long solve, int[] prefix) {
+            this.id = id;
+            this.solve = solve;
+            this.prefix = prefix;
+        }
+    }
+
+    /**
+     * Message of a connection, tokens are null when the connection joined
+     * and an empty array when it was lost
+     */
+    private static final class Event {
+        private final WorkerLink link;
+        private final String[] tokens;
+
+        Event(WorkerLink link, String[] tokens) {
+            this.link = link;
+            this.tokens = tokens;
+        }
+
+        boolean isLost() {
+            return this.tokens.length == 0;
+        }
+    }
+
+    /**
+     * Connection of one worker thread
+     */
+    private final class WorkerLink {
+        private final Socket socket;
+        private final BufferedReader input;
+        private final PrintWriter output;
+        // job being searched, used by the thread running the iteration only
+        private Job job;
+        // last solve whose board was sent
+        private long solve;
+        private volatile boolean alive = true;
+
+        /**
+         * @param socket connected worker
+         * @throws IOException if streams of the socket can not be opened
+         */
+        WorkerLink(Socket socket) throws IOException {
+            this.socket = socket;
+            this.socket.setTcpNoDelay(true);
+            this.input = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+            this.output = new PrintWriter(new BufferedWriter(
+                    new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)));
+        }
+
+        /**
+         * @return false after the connection failed
+         */
+        boolean isAlive() {
+            return this.alive;
+        }
+
+        /**
+         * Reads messages until the connection is closed, then reports it as lost
+         */
+        void readLoop() {
+            try {
+                String line;
+                while ((line = this.input.readLine()) != null) {
+                    String[] tokens = line.trim().split("\\s+");
+                    if (tokens.length >= 4) {
+                        events.add(new Event(this, tokens));
+                    }
+                }
+            } catch (IOException e) {
+                // broken connection is reported as lost below
+            }
+            close();
+            links.remove(this);
+            events.add(new Event(this, new String[0]));
+        }
+
+        /**
+         * Sends the job and the board before the first job of its solve
+         * @param job job to search
+         * @param board message describing the board
+         * @param threshold for step cost
+         */
+        void send(Job job, String board, int threshold) {
+            if (this.solve != job.solve) {
+                this.solve = job.solve;
+                write("BOARD " + job.solve + " " + board);
+            }
+            String prefix = job.prefix.length == 0 ? "-" : SolutionPath.moveString(job.prefix);
+            write("JOB " + job.solve + " " + job.id + " " + threshold + " " + prefix);
+        }
+
+        /**
+         * Writes one line, failed connection is closed and reported as lost by its reader
+         * @param message line to send
+         */
+        synchronized void write(String message) {
+            this.output.println(message);
+            this.output.flush();
+            if (this.output.checkError()) {
+                close();
+            }
+        }
+
+        /**
+         * Closes the socket, the reader ends
+         */
+        void close() {
+            this.alive = false;
+            try {
+                this.socket.close();
+            } catch (IOException e) {
+                // nothing to do with a broken socket
+            }
+        }
+    }
+}
@@ -0,0 +1,54 @@
+/**
+ * Counters of one searching thread
+ * Fields are plain longs incremented in the searching loop and added
+ * to the shared SearchMetrics every FLUSH_INTERVAL expanded nodes and at the end of the search,
+ * the node budget of the search is checked at the same time
+ */
+final class SearchCounters {
+    private static final long FLUSH_INTERVAL = 1 << 14;
+
+    private final SearchResult searchResult;
+    private final SearchMetrics metrics;
+    private long unflushed;
+    long expandedNodes;
+    long generatedNodes;
+    long cutoffs;
+    long tablePrunes;
+    int maxDepth;
+
+    /**
+     * @param searchResult shared information about searching
+     */
+    SearchCounters(SearchResult searchResult) {
+        this.searchResult = searchResult;
+        this.metrics = searchResult.getMetrics();
+    }
+
+    /**
+     * Counts expanded node
+     * @param depth number of moves to the node
+     */
+    void expanded(int depth) {
+        this.expandedNodes++;
+        if (depth > this.maxDepth) {
+            this.maxDepth = depth;
+        }
+        if (++this.unflushed == FLUSH_INTERVAL) {
+            flush();
+        }
+    }
+
+    /**
+     * Adds counters to shared statistics, resets them and stops the search if the node budget is used
+     */
+    void flush() {
+        this.metrics.add(this.expandedNodes, this.generatedNodes, this.cutoffs, this.tablePrunes, this.maxDepth);
+        this.searchResult.checkNodeBudget(this.metrics.getTotalExpandedNodes());
+        this.unflushed = 0;
+        this.expandedNodes = 0;
+        this.generatedNodes = 0;
+        this.cutoffs = 0;
+        this.tablePrunes = 0;
+        this.maxDepth = 0;
+    }
+}
@@ -0,0 +1,19 @@
+/**
+ * Possible search engines used by Solver
+ */
+public enum SearchEngine {
+    // stack based DeepFirstSearch creating Board and Step objects for every node
+    STEP_BASED,
+    // InPlaceDeepFirstSearch making and undoing moves on one mutable state
+    IN_PLACE,
+    // ParallelDeepFirstSearch splitting every iteration into subtrees on a ForkJoinPool
+    PARALLEL,
+    // HashDistributedSearch, parallel A* keeping every state in memory instead of repeating iterations
+    HASH_DISTRIBUTED,
+    // FringeSearch, IDA* passes over cached states without repeating them, IDA* when the memory limit is reached
+    FRINGE,
+    // DistributedSearch sending subtrees of every iteration to SearchWorker processes, needs a SearchCoordinator
+    DISTRIBUTED,
+    // RuleBasedSolver placing rows and columns in order, boards of any size in polynomial time, not optimal
+    RULE_BASED
+}
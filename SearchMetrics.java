@@ -0,0 +1,178 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Statistics of one search, shared by all its searching threads
+ * Threads count in their own SearchCounters and add them here from time to time,
+ * the striped LongAdder counters keep these additions free of contention.
+ * Iterations are started and finished by the engine thread only
+ */
+final class SearchMetrics {
+    // one timer thread for progress and time limits of all searches in the JVM
+    static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "search-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final MetricsSink sink;
+    private final LongAdder expandedNodes = new LongAdder();
+    private final LongAdder generatedNodes = new LongAdder();
+    private final LongAdder cutoffs = new LongAdder();
+    private final LongAdder tablePrunes = new LongAdder();
+    // expanded nodes of all iterations, used for the node budget
+    private final LongAdder totalExpandedNodes = new LongAdder();
+    private final AtomicInteger maxDepth = new AtomicInteger();
+    private final List<IterationStats> iterations = Collections.synchronizedList(new ArrayList<>());
+    private volatile int threshold;
+    private volatile long iterationStart;
+    private ScheduledFuture<?> progress;
+
+    /**
+     * @param sink receiver of statistics, null if statistics are only collected
+     */
+    SearchMetrics(MetricsSink sink) {
+        this.sink = sink;
+        this.threshold = -1;
+        this.iterationStart = System.nanoTime();
+    }
+
+    /**
+     * Starts periodic progress calls if the sink needs them
+     */
+    void start() {
+        long interval = this.sink == null ? 0 : this.sink.progressIntervalMillis();
+        if (interval > 0) {
+            this.progress = TIMER.scheduleAtFixedRate(
+                    () -> this.sink.progress(current()), interval, interval, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Adds counters collected by one thread
+     */
+    void add(long expandedNodes, long generatedNodes, long cutoffs, long tablePrunes, int maxDepth) {
+        this.expandedNodes.add(expandedNodes);
+        this.totalExpandedNodes.add(expandedNodes);
+        this.generatedNodes.add(generatedNodes);
+        this.cutoffs.add(cutoffs);
+        this.tablePrunes.add(tablePrunes);
+        if (maxDepth > this.maxDepth.get()) {
+            this.maxDepth.accumulateAndGet(maxDepth, Math::max);
+        }
+    }
+
+    /**
+     * @return number of nodes expanded since the search started
+     */
+    long getTotalExpandedNodes() {
+        return this.totalExpandedNodes.sum();
+    }
+
+    /**
+     * @return threshold of the running or last iteration, -1 before the first one
+     */
+    int getThreshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Starts new iteration, counters added before belong to it
+     * @param threshold threshold of the iteration
+     */
+    void startIteration(int threshold) {
+        this.expandedNodes.reset();
+        this.generatedNodes.reset();
+        this.cutoffs.reset();
+        this.tablePrunes.reset();
+        this.maxDepth.set(0);
+        this.threshold = threshold;
+        this.iterationStart = System.nanoTime();
+    }
+
+    /**
+     * Finishes current iteration, all threads have to add their counters before
+     */
+    void finishIteration() {
+        // iteration with threshold -1 only evaluates the initial board
+        if (this.threshold < 0) {
+            return;
+        }
+        IterationStats stats = current();
+        this.iterations.add(stats);
+        if (this.sink != null) {
+            this.sink.iterationFinished(stats);
+        }
+    }
+
+    /**
+     * Ends the search, progress calls are stopped
+     * @param moves number of moves of the solution
+     */
+    void finish(int moves) {
+        if (this.progress != null) {
+            this.progress.cancel(false);
+        }
+        if (this.sink != null) {
+            this.sink.searchFinished(moves, getIterations());
+        }
+    }
+
+    /**
+     * @return statistics of current iteration collected so far
+     */
+    IterationStats current() {
+        long expandedNodes = this.expandedNodes.sum();
+        return new IterationStats(this.threshold, expandedNodes, Math.min(expandedNodes, previousNodes()),
+                this.generatedNodes.sum(), this.cutoffs.sum(), this.tablePrunes.sum(), this.maxDepth.get(),
+                System.nanoTime() - this.iterationStart, estimatedNodes());
+    }
+
+    /**
+     * @return expanded nodes of the last finished iteration, 0 if there is none
+     */
+    private long previousNodes() {
+        synchronized (this.iterations) {
+            return this.iterations.isEmpty() ? 0 : this.iterations.get(this.iterations.size()-1).getExpandedNodes();
+        }
+    }
+
+    /**
+     * Size of the next iteration grows by the same ratio as between the two last record iterations,
+     * iterations smaller than an earlier one (e.g. after a transposition table pruned most of them)
+     * are skipped because they say nothing about the growth
+     * @return estimated expanded nodes of current iteration, 0 if there are less than 2 records
+     */
+    private long estimatedNodes() {
+        long last = 0;
+        long previous = 0;
+        synchronized (this.iterations) {
+            for (IterationStats stats : this.iterations) {
+                if (stats.getExpandedNodes() > last) {
+                    previous = last;
+                    last = stats.getExpandedNodes();
+                }
+            }
+        }
+        if (previous == 0) {
+            return 0;
+        }
+        return (long) ((double) last * last / previous);
+    }
+
+    /**
+     * @return statistics of finished iterations in order
+     */
+    List<IterationStats> getIterations() {
+        synchronized (this.iterations) {
+            return new ArrayList<>(this.iterations);
+        }
+    }
+}
@@ -1,26 +1,49 @@
-import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Container class which have all information about searching
+ * Searching threads are stopped by one atomic value: it holds the bound of the found solution
+ * or STOPPED when the search ends without solution (deadline, node budget, cancellation),
+ * so the searching loop checks both with a single volatile read
  */
 class SearchResult {
-    private int moves;
-    private ArrayList<Board> solution;
-    private Boolean isSolvablePuzzles;
-    private Boolean isProblemSolved;
-    private long createdOriginalBoardNodes;
-    private long createdTwinBoardNodes;
+    private static final int NOT_SOLVED = Integer.MAX_VALUE;
+    private static final int STOPPED = Integer.MIN_VALUE;
+    private volatile int moves;
+    private volatile SolutionPath solution;
+    private volatile boolean isSolvablePuzzles;
+    // bound at which the solution was found or STOPPED, shared by all searching threads
+    private final AtomicInteger solutionBound;
+    private volatile SolveStatus stopReason;
+    private volatile long createdNodes;
+    // every solution is at least so long, -1 when it is the threshold of the running iteration
+    private volatile int searchedBound;
+    // maximal number of expanded nodes, 0 if there is no limit
+    private final long nodeBudget;
+    // statistics of iterations, collected by all searching threads
+    private final SearchMetrics metrics;
 
     /**
      * constructor which setting all variables to default
      */
     SearchResult() {
+        this(null, 0);
+    }
+
+    /**
+     * constructor which setting all variables to default
+     * @param sink receiver of search statistics, null if statistics are only collected
+     * @param nodeBudget maximal number of expanded nodes, 0 if there is no limit
+     */
+    SearchResult(MetricsSink sink, long nodeBudget) {
+        this.metrics = new SearchMetrics(sink);
+        this.nodeBudget = nodeBudget;
         this.moves = -1;
         this.solution = null;
-        this.isProblemSolved = false;
+        this.solutionBound = new AtomicInteger(NOT_SOLVED);
         this.isSolvablePuzzles = false;
-        this.createdOriginalBoardNodes = 1L;
-        this.createdTwinBoardNodes = 1L;
+        this.createdNodes = 1L;
+        this.searchedBound = -1;
     }
 
     /**
@@ -39,81 +62,124 @@ class SearchResult {
     }
 
     /**
-     * @return arrayList with path from the beginning to the final board
+     * @return moves from the beginning to the final board
      */
-    ArrayList<Board> getSolution() {
+    SolutionPath getSolution() {
         return this.solution;
     }
 
     /**
-     * Setter for solution list, created to copy reference to the solution
-     * @param solution arrayList with path from the beginning to the final board
+     * Setter for solution, created to copy reference to the solution
+     * @param solution moves from the beginning to the final board
      */
-    void setSolution(ArrayList<Board> solution) {
+    void setSolution(SolutionPath solution) {
         this.solution = solution;
     }
 
     /**
      * @return true if puzzles are solvable
      */
-    Boolean IsSolvablePuzzles() {
+    boolean IsSolvablePuzzles() {
         return this.isSolvablePuzzles;
     }
 
     /**
      * Setter for isSolvable boolean
-     * Set to true if problem is solved by using original board
+     * Set by Solver from the parity check, before any search starts
+     * @param isSolvablePuzzles true if puzzles are solvable
      */
-    void setPuzzlesAreSolvable() {
-        this.isSolvablePuzzles = true;
+    void setPuzzlesAreSolvable(boolean isSolvablePuzzles) {
+        this.isSolvablePuzzles = isSolvablePuzzles;
+    }
+
+    /**
+     * @return true if searching threads should stop, because solution is found or search is stopped
+     */
+    boolean isFinished() {
+        return this.solutionBound.get() != NOT_SOLVED;
     }
 
     /**
      * @return true if problem is already solved
      */
-    Boolean IsProblemSolved() {
-        return this.isProblemSolved;
+    boolean IsProblemSolved() {
+        int bound = this.solutionBound.get();
+        return bound != NOT_SOLVED && bound != STOPPED;
     }
 
     /**
-     * Setter for boolean isProblem solved
-     * Set to true if problem is already solved
+     * Marks problem as solved at given bound, only the first call succeeds
+     * @param bound number of moves of the found solution
+     * @return true if the caller is the first finder and should save the solution
      */
-    void setProblemIsSolved() {
-        this.isProblemSolved = true;
+    boolean setProblemIsSolved(int bound) {
+        return this.solutionBound.compareAndSet(NOT_SOLVED, bound);
     }
 
     /**
-     * @return number of created nodes during searching
-     * when searching is going from original board
+     * Stops the search without solution, nothing happens if the search is already finished
+     * @param reason TIMED_OUT, BUDGET_EXCEEDED or CANCELLED
+     * @return true if the search was stopped by this call
+     */
+    boolean stop(SolveStatus reason) {
+        if (!this.solutionBound.compareAndSet(NOT_SOLVED, STOPPED)) {
+            return false;
+        }
+        this.stopReason = reason;
+        return true;
+    }
+
+    /**
+     * @return reason of stopping, null if the search was not stopped
      */
-    Long getCreatedOriginalBoardNodes() {
-        return createdOriginalBoardNodes;
+    SolveStatus getStopReason() {
+        return this.stopReason;
     }
 
     /**
-     * Setter for number of original board nodes
-     * @param createdOriginalBoardNodes number of created nodes
-     *                                  in searching from Original Board
+     * Stops the search when expanded nodes of all threads exceed the node budget
+     * @param expandedNodes number of nodes expanded since the search started
      */
-    void setCreatedOriginalBoardNodes(Long createdOriginalBoardNodes) {
-        this.createdOriginalBoardNodes = createdOriginalBoardNodes;
+    void checkNodeBudget(long expandedNodes) {
+        if (this.nodeBudget > 0 && expandedNodes > this.nodeBudget) {
+            stop(SolveStatus.BUDGET_EXCEEDED);
+        }
     }
 
     /**
      * @return number of created nodes during searching
-     * when searching is going from twin board
      */
-    Long getCreatedTwinBoardNodes() {
-        return createdTwinBoardNodes;
+    Long getCreatedNodes() {
+        return createdNodes;
+    }
+
+    /**
+     * Setter for number of created nodes
+     * @param createdNodes number of created nodes in searching
+     */
+    void setCreatedNodes(Long createdNodes) {
+        this.createdNodes = createdNodes;
+    }
+
+    /**
+     * @return statistics of the search
+     */
+    SearchMetrics getMetrics() {
+        return this.metrics;
+    }
+
+    /**
+     * @return length which every solution has at least, -1 if it is the threshold of the running iteration
+     */
+    int getSearchedBound() {
+        return this.searchedBound;
     }
 
     /**
-     * Setter for number of twin board nodes
-     * @param createdTwinBoardNodes number of created nodes
-     *                              in searching from Twin Board
+     * Setter for searched bound, used by engines whose threshold can be above the smallest unsearched cost
+     * @param searchedBound length which every solution has at least
      */
-    void setCreatedTwinBoardNodes(Long createdTwinBoardNodes) {
-        this.createdTwinBoardNodes = createdTwinBoardNodes;
+    void setSearchedBound(int searchedBound) {
+        this.searchedBound = searchedBound;
     }
 }
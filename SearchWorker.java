@@ -0,0 +1,186 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Worker of distributed IDA*, searches subtrees sent by SearchCoordinator over one connection
+ * Jobs run on their own thread, so STOP from the coordinator is read while a job is searched
+ * and ends it at once. Heuristics and move pruner are built once per board, the heuristic
+ * is the Heuristics constant chosen on the coordinator. The worker ends when the coordinator
+ * closes the connection. See SearchCoordinator for the messages
+ */
+public class SearchWorker implements Runnable {
+    private final String host;
+    private final int port;
+    // fields are used by the thread reading messages only
+    // board of the current solve and everything needed to search it, replaced by BOARD
+    private long solve;
+    private Board board;
+    private Heuristic heuristic;
+    private MovePruner pruner;
+    // result of the running job, stopped by STOP
+    private SearchResult jobResult;
+    private long jobSolve;
+    private Thread jobThread;
+    private PrintWriter output;
+
+    /**
+     * @param host host of the coordinator
+     * @param port port of the coordinator
+     */
+    public SearchWorker(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Starts worker connections and waits until the coordinator closes them
+     * @param args host and port of the coordinator, optionally number of connections,
+     *             by default one per available processor
+     * @throws InterruptedException if waiting is interrupted
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int connections = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        Thread[] threads = new Thread[connections];
+        for (int i=0; i<connections; i++) {
+            threads[i] = new Thread(new SearchWorker(args[0], Integer.parseInt(args[1])), "search-worker-" + i);
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Connects to the coordinator and serves its messages until the connection is closed
+     */
+    @Override
+    public void run() {
+        try (Socket socket = new Socket(this.host, this.port);
+             BufferedReader input = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             PrintWriter output = new PrintWriter(new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)))) {
+            socket.setTcpNoDelay(true);
+            this.output = output;
+            String line;
+            while ((line = input.readLine()) != null) {
+                String[] tokens = line.trim().split("\\s+");
+                if (tokens[0].equals("BOARD")) {
+                    prepareBoard(tokens);
+                } else if (tokens[0].equals("JOB")) {
+                    startJob(tokens);
+                } else if (tokens[0].equals("STOP")) {
+                    SearchResult result = this.jobResult;
+                    if (result != null && Long.toString(this.jobSolve).equals(tokens[1])) {
+                        result.stop(SolveStatus.CANCELLED);
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // lost coordinator or broken message ends the worker, its job is given to other workers
+        }
+        SearchResult result = this.jobResult;
+        if (result != null) {
+            result.stop(SolveStatus.CANCELLED);
+        }
+    }
+
+    /**
+     * @param tokens BOARD, solve, heuristics, pruning and the board as n or RxC and tiles
+     */
+    private void prepareBoard(String[] tokens) {
+        waitForJob();
+        this.solve = Long.parseLong(tokens[1]);
+        this.board = SolverServer.parseBoard(tokens, 4);
+        this.heuristic = Heuristics.valueOf(tokens[2]).forShape(this.board.rows(), this.board.columns());
+        this.pruner = Boolean.parseBoolean(tokens[3]) ? MovePruner.forShape(this.board.shape()) : null;
+    }
+
+    /**
+     * Starts searching the job on its own thread, the previous job has already ended or was stopped
+     * @param tokens JOB, solve, job, threshold and prefix letters
+     */
+    private void startJob(String[] tokens) {
+        waitForJob();
+        long jobSolve = Long.parseLong(tokens[1]);
+        String job = tokens[2];
+        int threshold = Integer.parseInt(tokens[3]);
+        byte[] letters = tokens[4].equals("-") ? new byte[0] : tokens[4].getBytes(StandardCharsets.US_ASCII);
+        int[] prefix = new int[letters.length];
+        for (int i=0; i<letters.length; i++) {
+            prefix[i] = SolutionPath.direction(letters[i]);
+        }
+        SearchResult result = new SearchResult();
+        result.setPuzzlesAreSolvable(true);
+        this.jobSolve = jobSolve;
+        this.jobResult = result;
+        if (jobSolve != this.solve) {
+            // board of the solve was not received, the job is given back
+            send("STOPPED " + job + " 0 0");
+            return;
+        }
+        Board board = this.board;
+        Heuristic heuristic = this.heuristic;
+        MovePruner pruner = this.pruner;
+        this.jobThread = new Thread(() -> send(search(job, board, heuristic, pruner, result, threshold, prefix)),
+                "search-worker-job");
+        this.jobThread.start();
+    }
+
+    /**
+     * Searches the subtree as one task of ParallelDeepFirstSearch does
+     * @param job id of the job
+     * @param board board of the solve
+     * @param heuristic heuristic for the board
+     * @param pruner machine rejecting redundant move sequences, null to disable it
+     * @param result information about searching of the job, stopped by STOP
+     * @param threshold for step cost
+     * @param prefix moves from the board to the root of the subtree
+     * @return message with the result of the job
+     */
+    private static String search(String job, Board board, Heuristic heuristic, MovePruner pruner,
+                                 SearchResult result, int threshold, int[] prefix) {
+        BoundedSearch search = new BoundedSearch(board, heuristic, result, null, pruner);
+        search.prepare(threshold);
+        search.applyPrefix(prefix);
+        int lastDirection = prefix.length == 0 ? PuzzleState.NO_DIRECTION : prefix[prefix.length-1];
+        int newThreshold = search.search(prefix.length, threshold, lastDirection);
+        search.flushCounters();
+        String nodes = search.getCreatedNodes() + " " + result.getMetrics().getTotalExpandedNodes();
+        if (newThreshold != BoundedSearch.FOUND) {
+            return "DONE " + job + " " + newThreshold + " " + nodes;
+        }
+        if (result.IsProblemSolved()) {
+            return "FOUND " + job + " " + result.getMoves() + " " + nodes + " " + result.getSolution().moveString();
+        }
+        return "STOPPED " + job + " " + nodes;
+    }
+
+    /**
+     * Waits until the running job sends its result, the coordinator sends new jobs only after it
+     */
+    private void waitForJob() {
+        if (this.jobThread == null) {
+            return;
+        }
+        try {
+            this.jobThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @param message line sent to the coordinator
+     */
+    private synchronized void send(String message) {
+        this.output.println(message);
+        this.output.flush();
+    }
+}
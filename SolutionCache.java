@@ -0,0 +1,433 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Cache of optimal solutions shared by solvers, see SolverConfiguration.setSolutionCache
+ * Boards are keyed by a canonical packed encoding: the transpose of a board with tiles
+ * relabelled by their transposed goal positions keeps the goal, so a board and its
+ * transpose share one entry, for rectangular boards a rows x columns board shares it with
+ * the columns x rows one. Moves stored for the canonical board are mapped back
+ * by swapping L with U and R with D. Other reflections move the blank's goal corner, so they are not folded.
+ *
+ * The memory tier keeps at most capacity least recently used solutions. The optional disk tier
+ * is an append-only log of solutions and an index of (hash, offset) pairs, both only appended to.
+ * Records which were written to the log but not to the index are recovered when the cache is opened,
+ * a partially written last record is cut off
+ */
+public final class SolutionCache implements Closeable {
+    private static final int MAGIC = 0x4E534F4C; // "NSOL"
+    // version 2 keys records by rows and columns instead of the dimension
+    private static final int VERSION = 2;
+    private static final int HEADER_BYTES = 8;
+    private static final int INDEX_ENTRY_BYTES = 16;
+    static final String LOG_FILE = "solutions.log";
+    static final String INDEX_FILE = "solutions.idx";
+
+    private final LinkedHashMap<Key, byte[]> memory;
+    private final FileChannel log;
+    private final FileChannel index;
+    // hash of a key -> offset of its record in the log, colliding keys are checked against the log
+    private final HashMap<Long, Long> offsets = new HashMap<>();
+    private long hits;
+    private long misses;
+
+    /**
+     * Cache kept only in memory
+     * @param capacity maximal number of solutions kept in memory
+     */
+    public SolutionCache(int capacity) {
+        this(capacity, null, null);
+    }
+
+    /**
+     * @param capacity maximal number of solutions kept in memory
+     * @param log channel of the log file, null for the memory only cache
+     * @param index channel of the index file, null for the memory only cache
+     */
+    private SolutionCache(int capacity, FileChannel log, FileChannel index) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("Capacity has to be positive: " + capacity);
+        }
+        this.memory = new LinkedHashMap<Key, byte[]>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, byte[]> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.log = log;
+        this.index = index;
+    }
+
+    /**
+     * Opens or creates the cache kept in given directory, solutions stored before are available at once
+     * @param directory directory with the log and index files
+     * @param capacity maximal number of solutions kept in memory
+     * @return cache backed by the files
+     * @throws IOException if the files can not be opened or are not cache files
+     */
+    public static SolutionCache open(Path directory, int capacity) throws IOException {
+        Files.createDirectories(directory);
+        FileChannel log = FileChannel.open(directory.resolve(LOG_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        FileChannel index = FileChannel.open(directory.resolve(INDEX_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        SolutionCache cache = new SolutionCache(capacity, log, index);
+        try {
+            cache.load();
+        } catch (IOException e) {
+            cache.close();
+            throw e;
+        }
+        return cache;
+    }
+
+    /**
+     * @param board solved board
+     * @return optimal solution of the board, null if it is not cached
+     */
+    synchronized SolutionPath get(Board board) {
+        Canonical canonical = new Canonical(board);
+        byte[] moves = this.memory.get(canonical.key);
+        if (moves == null && this.log != null) {
+            moves = readFromLog(canonical.key);
+            if (moves != null) {
+                this.memory.put(canonical.key, moves);
+            }
+        }
+        if (moves == null) {
+            this.misses++;
+            return null;
+        }
+        this.hits++;
+        return new SolutionPath(board, canonical.transposed ? transposeMoves(moves) : moves);
+    }
+
+    /**
+     * Stores optimal solution, nothing happens if the board is already cached
+     * @param solution optimal solution starting from its initial board
+     */
+    synchronized void put(SolutionPath solution) {
+        Canonical canonical = new Canonical(solution.getInitial());
+        if (this.memory.containsKey(canonical.key)) {
+            return;
+        }
+        byte[] moves = canonical.transposed ? transposeMoves(solution.letters()) : solution.letters();
+        this.memory.put(canonical.key, moves);
+        if (this.log != null && !this.offsets.containsKey(canonical.key.hash)) {
+            try {
+                append(canonical.key, moves);
+            } catch (IOException e) {
+                // the disk tier is only an optimisation, the solution stays in memory
+            }
+        }
+    }
+
+    /**
+     * @return number of lookups which found a solution
+     */
+    public synchronized long getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return number of lookups which did not find a solution
+     */
+    public synchronized long getMisses() {
+        return this.misses;
+    }
+
+    /**
+     * @return number of solutions in memory
+     */
+    public synchronized int size() {
+        return this.memory.size();
+    }
+
+    /**
+     * Forces the files to the disk and closes them, the memory only cache is not changed
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (this.log != null) {
+            try (FileChannel log = this.log; FileChannel index = this.index) {
+                log.force(true);
+                index.force(true);
+            }
+        }
+    }
+
+    /**
+     * Reads the index and recovers records missing in it
+     * @throws IOException if the files can not be read or are not cache files
+     */
+    private void load() throws IOException {
+        checkHeader(this.log);
+        checkHeader(this.index);
+        long logSize = this.log.size();
+        long indexed = HEADER_BYTES;
+        long entries = (this.index.size() - HEADER_BYTES) / INDEX_ENTRY_BYTES;
+        long valid = 0;
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        for (long i=0; i<entries; i++) {
+            entry.clear();
+            readFully(this.index, entry, HEADER_BYTES + i*INDEX_ENTRY_BYTES);
+            entry.flip();
+            long hash = entry.getLong();
+            long offset = entry.getLong();
+            long end = recordEnd(offset, logSize);
+            if (end < 0) {
+                // index points behind the valid part of the log
+                break;
+            }
+            this.offsets.put(hash, offset);
+            indexed = Math.max(indexed, end);
+            valid++;
+        }
+        // index entries are written after records, so only the tail of the log can miss them
+        this.index.truncate(HEADER_BYTES + valid * INDEX_ENTRY_BYTES);
+        long offset = indexed;
+        long end;
+        while ((end = recordEnd(offset, logSize)) >= 0) {
+            Key key = readKey(offset);
+            this.offsets.put(key.hash, offset);
+            writeIndexEntry(key.hash, offset);
+            offset = end;
+        }
+        this.log.truncate(offset);
+    }
+
+    /**
+     * Writes header to an empty file or checks header of an existing one
+     * @param channel log or index file
+     * @throws IOException if the file is not a cache file
+     */
+    private static void checkHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        if (channel.size() < HEADER_BYTES) {
+            header.putInt(MAGIC).putInt(VERSION).flip();
+            channel.truncate(0);
+            writeFully(channel, header, 0);
+            return;
+        }
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Not a solution cache file");
+        }
+    }
+
+    /**
+     * Record is the shape (rows << 16 | columns), number of words, packed words, number of moves and move letters
+     * @param offset offset of the record
+     * @param logSize size of the log
+     * @return offset after the record or -1 if the record is not complete
+     * @throws IOException if the log can not be read
+     */
+    private long recordEnd(long offset, long logSize) throws IOException {
+        if (offset + 8 > logSize) {
+            return -1;
+        }
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(this.log, header, offset);
+        header.flip();
+        header.getInt();
+        int words = header.getInt();
+        long movesOffset = offset + 8 + 8L * words;
+        if (words < 0 || movesOffset + 4 > logSize) {
+            return -1;
+        }
+        ByteBuffer count = ByteBuffer.allocate(4);
+        readFully(this.log, count, movesOffset);
+        count.flip();
+        int moves = count.getInt();
+        long end = movesOffset + 4 + moves;
+        return moves >= 0 && end <= logSize ? end : -1;
+    }
+
+    /**
+     * @param offset offset of a complete record
+     * @return key of the record
+     * @throws IOException if the log can not be read
+     */
+    private Key readKey(long offset) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(8);
+        readFully(this.log, header, offset);
+        header.flip();
+        int shape = header.getInt();
+        ByteBuffer words = ByteBuffer.allocate(8 * header.getInt());
+        readFully(this.log, words, offset + 8);
+        words.flip();
+        long[] packed = new long[words.capacity() / 8];
+        for (int i=0; i<packed.length; i++) {
+            packed[i] = words.getLong();
+        }
+        return new Key(shape, packed);
+    }
+
+    /**
+     * @param key canonical key
+     * @return moves stored in the log or null if the key is not there
+     */
+    private byte[] readFromLog(Key key) {
+        Long offset = this.offsets.get(key.hash);
+        if (offset == null) {
+            return null;
+        }
+        try {
+            if (!readKey(offset).equals(key)) {
+                // different board with the same hash
+                return null;
+            }
+            long movesOffset = offset + 8 + 8L * key.words.length;
+            ByteBuffer count = ByteBuffer.allocate(4);
+            readFully(this.log, count, movesOffset);
+            count.flip();
+            ByteBuffer moves = ByteBuffer.allocate(count.getInt());
+            readFully(this.log, moves, movesOffset + 4);
+            return moves.array();
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Appends the record to the log and then its entry to the index
+     * @param key canonical key
+     * @param moves moves of the canonical board
+     * @throws IOException if the files can not be written
+     */
+    private void append(Key key, byte[] moves) throws IOException {
+        long offset = this.log.size();
+        ByteBuffer record = ByteBuffer.allocate(12 + 8 * key.words.length + moves.length);
+        record.putInt(key.shape).putInt(key.words.length);
+        for (long word : key.words) {
+            record.putLong(word);
+        }
+        record.putInt(moves.length).put(moves).flip();
+        writeFully(this.log, record, offset);
+        writeIndexEntry(key.hash, offset);
+        this.offsets.put(key.hash, offset);
+    }
+
+    /**
+     * @param hash hash of the key
+     * @param offset offset of the record in the log
+     * @throws IOException if the index can not be written
+     */
+    private void writeIndexEntry(long hash, long offset) throws IOException {
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES);
+        entry.putLong(hash).putLong(offset).flip();
+        writeFully(this.index, entry, this.index.size());
+    }
+
+    /**
+     * @param channel file
+     * @param buffer buffer filled from the file
+     * @param position position in the file
+     * @throws IOException if the file ends before the buffer is full
+     */
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of the solution cache file");
+            }
+        }
+    }
+
+    /**
+     * @param channel file
+     * @param buffer buffer written to the file
+     * @param position position in the file
+     * @throws IOException if the file can not be written
+     */
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    /**
+     * @param moves move letters
+     * @return moves of the transposed board, L and U, R and D are swapped
+     */
+    private static byte[] transposeMoves(byte[] moves) {
+        byte[] transposed = new byte[moves.length];
+        for (int i=0; i<moves.length; i++) {
+            switch (moves[i]) {
+                case 'L': transposed[i] = 'U'; break;
+                case 'U': transposed[i] = 'L'; break;
+                case 'R': transposed[i] = 'D'; break;
+                default: transposed[i] = 'R'; break;
+            }
+        }
+        return transposed;
+    }
+
+    /**
+     * Canonical key of a board, the smaller of the board and its relabelled transpose
+     */
+    private static final class Canonical {
+        private final Key key;
+        private final boolean transposed;
+
+        Canonical(Board board) {
+            int rows = board.rows();
+            int columns = board.columns();
+            int[] tiles = board.toArray();
+            int[] transposedTiles = new int[tiles.length];
+            for (int row=0; row<rows; row++) {
+                for (int column=0; column<columns; column++) {
+                    int tile = tiles[row*columns + column];
+                    // tile goes to the transposed goal position of the tile
+                    int relabelled = tile == 0 ? 0 : ((tile-1) % columns) * rows + (tile-1) / columns + 1;
+                    transposedTiles[column*rows + row] = relabelled;
+                }
+            }
+            int shape = rows << 16 | columns;
+            int transposedShape = columns << 16 | rows;
+            long[] packed = PackedBoard.pack(tiles);
+            long[] packedTransposed = PackedBoard.pack(transposedTiles);
+            this.transposed = transposedShape != shape ? transposedShape < shape
+                    : Arrays.compare(packedTransposed, packed) < 0;
+            this.key = this.transposed ? new Key(transposedShape, packedTransposed) : new Key(shape, packed);
+        }
+    }
+
+    /**
+     * Shape (rows << 16 | columns) and packed tiles of a canonical board
+     */
+    private static final class Key {
+        private final int shape;
+        private final long[] words;
+        private final long hash;
+
+        Key(int shape, long[] words) {
+            this.shape = shape;
+            this.words = words;
+            this.hash = PackedBoard.hash(words) ^ shape;
+        }
+
+        @Override
+        public boolean equals(Object object) {
+            if (!(object instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) object;
+            return this.shape == other.shape && Arrays.equals(this.words, other.words);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(this.hash);
+        }
+    }
+}
@@ -0,0 +1,11 @@
+/**
+ * How solutions are written by Application and BatchSolver
+ */
+public enum SolutionOutput {
+    // only the number of moves
+    NONE,
+    // moves of the blank as one line of letters L, R, U and D
+    MOVES,
+    // every board of the path
+    BOARDS
+}
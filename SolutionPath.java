@@ -0,0 +1,164 @@
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Compact solution: the initial board and the moves of the blank, one byte per move
+ * Letters L, R, U and D tell where the blank moves. Boards of the path are not stored,
+ * they are replayed from the moves only when they are needed
+ */
+public final class SolutionPath implements Iterable<Board> {
+    // letters indexed by PuzzleState directions
+    private static final byte[] LETTERS = {'L', 'R', 'U', 'D'};
+
+    private final Board initial;
+    private final byte[] moves;
+
+    /**
+     * @param initial board from which the solution starts
+     * @param directions directions of blank moves, see PuzzleState
+     * @param length number of moves
+     */
+    SolutionPath(Board initial, int[] directions, int length) {
+        this.initial = initial;
+        this.moves = new byte[length];
+        for (int i=0; i<length; i++) {
+            this.moves[i] = LETTERS[directions[i]];
+        }
+    }
+
+    /**
+     * @param initial board from which the solution starts
+     * @param moves move letters, owned by the path from now on
+     */
+    SolutionPath(Board initial, byte[] moves) {
+        this.initial = initial;
+        this.moves = moves;
+    }
+
+    /**
+     * @return move letters, shared with the path and not to be changed
+     */
+    byte[] letters() {
+        return this.moves;
+    }
+
+    /**
+     * @return board from which the solution starts
+     */
+    public Board getInitial() {
+        return this.initial;
+    }
+
+    /**
+     * @return number of moves
+     */
+    public int length() {
+        return this.moves.length;
+    }
+
+    /**
+     * @return moves of the blank as letters L, R, U and D
+     */
+    public String moveString() {
+        return new String(this.moves, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Replays the moves, every board is created when the iterator reaches it
+     * @return iterator over the initial board and boards after every move
+     */
+    @Override
+    public Iterator<Board> iterator() {
+        return new Iterator<Board>() {
+            private final PuzzleState state = new PuzzleState(SolutionPath.this.initial);
+            private int next = -1;
+
+            @Override
+            public boolean hasNext() {
+                return this.next < SolutionPath.this.moves.length;
+            }
+
+            @Override
+            public Board next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                if (this.next < 0) {
+                    this.next++;
+                    return SolutionPath.this.initial;
+                }
+                this.state.move(direction(SolutionPath.this.moves[this.next++]));
+                return this.state.toBoard();
+            }
+        };
+    }
+
+    /**
+     * @return all boards of the path, from the initial board to the goal
+     */
+    public ArrayList<Board> toList() {
+        ArrayList<Board> boards = new ArrayList<>(this.moves.length + 1);
+        for (Board board : this) {
+            boards.add(board);
+        }
+        return boards;
+    }
+
+    /**
+     * Writes the solution in given format, boards are replayed and formatted one by one
+     * into reused buffers, so no string is created per board
+     * @param output destination, usually wrapping a BufferedWriter
+     * @param format MOVES for one line of letters, BOARDS for every board, NONE writes nothing
+     */
+    public void write(PrintWriter output, SolutionOutput format) {
+        if (format == SolutionOutput.MOVES) {
+            output.println(moveString());
+        } else if (format == SolutionOutput.BOARDS) {
+            StringBuilder text = new StringBuilder();
+            char[] chars = new char[0];
+            for (Board board : this) {
+                text.setLength(0);
+                board.appendTo(text);
+                if (chars.length < text.length()) {
+                    chars = new char[text.length()];
+                }
+                text.getChars(0, text.length(), chars, 0);
+                output.write(chars, 0, text.length());
+                output.println();
+            }
+        }
+    }
+
+    /**
+     * @param directions directions of blank moves, see PuzzleState
+     * @return moves as letters L, R, U and D
+     */
+    static String moveString(int[] directions) {
+        byte[] letters = new byte[directions.length];
+        for (int i=0; i<directions.length; i++) {
+            letters[i] = LETTERS[directions[i]];
+        }
+        return new String(letters, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * @param letter move letter
+     * @return direction of the blank move, see PuzzleState
+     */
+    static int direction(byte letter) {
+        switch (letter) {
+            case 'L': return PuzzleState.LEFT;
+            case 'R': return PuzzleState.RIGHT;
+            case 'U': return PuzzleState.UP;
+            default: return PuzzleState.DOWN;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return moveString();
+    }
+}
@@ -0,0 +1,141 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * Shortens valid but not optimal move sequences, used by RuleBasedSolver
+ * Moves are pushed on a stack, a move opposite to the top cancels it, and every window
+ * of at most MAX_WINDOW moves on the top of the stack is replaced with the shortest string
+ * of the same effect which stays inside the bounding box of the window, so the replacement
+ * can be made wherever the window could. Passes repeat until nothing changes
+ */
+final class SolutionShortener {
+    static final int MAX_WINDOW = 8;
+    private static final int DIRECTIONS = 4;
+
+    private SolutionShortener() {
+    }
+
+    /**
+     * Replacement table built on the first use
+     */
+    private static final class Replacements {
+        // offsets[length] + code of a string of the length, code is the string in base 4
+        private static final int[] OFFSETS = new int[MAX_WINDOW + 2];
+        // shorter strings with the same effect, null if no shorter string exists
+        private static final int[][] TABLE;
+
+        static {
+            for (int length=1; length<=MAX_WINDOW+1; length++) {
+                OFFSETS[length] = OFFSETS[length-1] + (1 << 2*(length-1));
+            }
+            TABLE = new int[OFFSETS[MAX_WINDOW+1]][];
+            learn();
+        }
+
+        /**
+         * Breadth first search over move strings without opposite neighbouring moves
+         * in lexicographic order, so the first covering string of an effect is the shortest
+         */
+        private static void learn() {
+            int[] grid = new int[(2*MAX_WINDOW + 1)*(2*MAX_WINDOW + 1)];
+            // effect of a string -> strings with that effect, shortest first
+            HashMap<String, List<int[]>> effects = new HashMap<>();
+            List<int[]> level = new ArrayList<>();
+            level.add(new int[0]);
+            effects.computeIfAbsent(MovePrunerGenerator.effect(new int[0], MAX_WINDOW, grid), key -> new ArrayList<>())
+                    .add(new int[0]);
+            for (int length=1; length<=MAX_WINDOW; length++) {
+                List<int[]> nextLevel = new ArrayList<>();
+                for (int[] prefix : level) {
+                    for (int direction=0; direction<DIRECTIONS; direction++) {
+                        if (length > 1 && direction == PuzzleState.opposite(prefix[length-2])) { continue; }
+                        int[] moves = Arrays.copyOf(prefix, length);
+                        moves[length-1] = direction;
+                        nextLevel.add(moves);
+                        List<int[]> strings = effects.computeIfAbsent(
+                                MovePrunerGenerator.effect(moves, MAX_WINDOW, grid), key -> new ArrayList<>());
+                        int[] box = MovePrunerGenerator.boundingBox(moves);
+                        for (int[] string : strings) {
+                            if (string.length < length && MovePrunerGenerator.isInside(MovePrunerGenerator.boundingBox(string), box)) {
+                                TABLE[OFFSETS[length] + code(moves, 0, length)] = string;
+                                break;
+                            }
+                        }
+                        strings.add(moves);
+                    }
+                }
+                level = nextLevel;
+            }
+        }
+    }
+
+    /**
+     * @param moves move string
+     * @param start index of the first move
+     * @param length number of moves
+     * @return moves in base 4, the first move is the most significant digit
+     */
+    private static int code(int[] moves, int start, int length) {
+        int code = 0;
+        for (int i=start; i<start+length; i++) {
+            code = code << 2 | moves[i];
+        }
+        return code;
+    }
+
+    /**
+     * @param initial board from which the moves start
+     * @param moves valid directions of blank moves, see PuzzleState
+     * @param length number of moves
+     * @return path with the same final board and at most as many moves
+     */
+    static SolutionPath shorten(Board initial, int[] moves, int length) {
+        int[] current = Arrays.copyOf(moves, Math.max(length, 1));
+        int currentLength = length;
+        int[] stack = new int[current.length];
+        while (true) {
+            int top = 0;
+            for (int i=0; i<currentLength; i++) {
+                int move = current[i];
+                if (top > 0 && stack[top-1] == PuzzleState.opposite(move)) {
+                    top--;
+                    continue;
+                }
+                stack[top++] = move;
+                top = replaceTop(stack, top);
+            }
+            if (top == currentLength) {
+                return new SolutionPath(initial, stack, top);
+            }
+            int[] swap = current;
+            current = stack;
+            stack = swap;
+            currentLength = top;
+        }
+    }
+
+    /**
+     * Replaces the window on the top of the stack which saves the most moves
+     * @param stack moves without opposite neighbours
+     * @param top number of moves on the stack
+     * @return number of moves on the stack after the replacement
+     */
+    private static int replaceTop(int[] stack, int top) {
+        int[] best = null;
+        int bestLength = 0;
+        for (int length=2; length<=Math.min(MAX_WINDOW, top); length++) {
+            int[] string = Replacements.TABLE[Replacements.OFFSETS[length] + code(stack, top - length, length)];
+            if (string != null && (best == null || length - string.length > bestLength - best.length)) {
+                best = string;
+                bestLength = length;
+            }
+        }
+        if (best == null) {
+            return top;
+        }
+        System.arraycopy(best, 0, stack, top - bestLength, best.length);
+        return top - bestLength + best.length;
+    }
+}
@@ -0,0 +1,129 @@
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Result of solving one board
+ * When the search is stopped before the solution is found, the lower bound
+ * tells how many moves the optimal solution has at least.
+ * Weighted and anytime solving can find longer solutions, then the lower bound is smaller than moves
+ */
+public final class SolveResult {
+    private final SolveStatus status;
+    private final int moves;
+    private final SolutionPath solution;
+    private final int lowerBound;
+    private final long createdNodes;
+    private final List<IterationStats> iterations;
+
+    SolveResult(SolveStatus status, int moves, SolutionPath solution, int lowerBound,
+                long createdNodes, List<IterationStats> iterations) {
+        this.status = status;
+        this.moves = moves;
+        this.solution = solution;
+        this.lowerBound = lowerBound;
+        this.createdNodes = createdNodes;
+        this.iterations = iterations;
+    }
+
+    /**
+     * @return outcome of solving
+     */
+    public SolveStatus getStatus() {
+        return this.status;
+    }
+
+    /**
+     * @return true if a solution is found
+     */
+    public boolean isSolved() {
+        return this.status == SolveStatus.SOLVED;
+    }
+
+    /**
+     * @return true if the found solution is proved to be optimal
+     */
+    public boolean isOptimal() {
+        return this.status == SolveStatus.SOLVED && this.lowerBound == this.moves;
+    }
+
+    /**
+     * @return number of moves of the solution, -1 if the board is not solved
+     */
+    public int getMoves() {
+        return this.moves;
+    }
+
+    /**
+     * Boards are replayed from the moves on every call, getPath is cheaper when boards are not needed
+     * @return path from the initial Board to the final one, null if the board is not solved
+     */
+    public ArrayList<Board> getSolution() {
+        return this.solution == null ? null : this.solution.toList();
+    }
+
+    /**
+     * @return compact solution with moves of the blank, null if the board is not solved
+     */
+    public SolutionPath getPath() {
+        return this.solution;
+    }
+
+    /**
+     * Every threshold below the running one was fully searched,
+     * so no solution is shorter than the running threshold
+     * @return lower bound of the number of moves, equal to moves when optimal solution is found,
+     * -1 if the board is unsolvable
+     */
+    public int getLowerBound() {
+        return this.lowerBound;
+    }
+
+    /**
+     * @return number of created nodes during searching
+     */
+    public long getCreatedNodes() {
+        return this.createdNodes;
+    }
+
+    /**
+     * @return number of nodes expanded by all finished iterations
+     */
+    public long getExpandedNodes() {
+        long nodes = 0;
+        for (IterationStats stats : this.iterations) {
+            nodes += stats.getExpandedNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * Overhead of iterative deepening, nodes expanded again because the final threshold is not known.
+     * Savings of SolverConfiguration.setThresholdGrowth are the difference against the same board
+     * solved with threshold growth 0
+     * @return number of nodes expanded again by later iterations, see IterationStats.getReexpandedNodes
+     */
+    public long getReexpandedNodes() {
+        long nodes = 0;
+        for (IterationStats stats : this.iterations) {
+            nodes += stats.getReexpandedNodes();
+        }
+        return nodes;
+    }
+
+    /**
+     * @return statistics of all finished threshold iterations
+     */
+    public List<IterationStats> getIterations() {
+        return this.iterations;
+    }
+
+    @Override
+    public String toString() {
+        switch (this.status) {
+            case SOLVED: return "solved in " + this.moves + " moves"
+                    + (isOptimal() ? "" : ", optimal has at least " + this.lowerBound + " moves");
+            case UNSOLVABLE: return "unsolvable";
+            default: return this.status.name().toLowerCase() + ", at least " + this.lowerBound + " moves";
+        }
+    }
+}
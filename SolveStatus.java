@@ -0,0 +1,17 @@
+/**
+ * Possible outcomes of solving, see SolveResult
+ */
+public enum SolveStatus {
+    // solution is found, optimal unless the lower bound of the result is smaller
+    SOLVED,
+    // parity check proved that the board can not be solved
+    UNSOLVABLE,
+    // time limit passed before the solution was found
+    TIMED_OUT,
+    // node budget was used before the solution was found
+    BUDGET_EXCEEDED,
+    // search was cancelled by the caller
+    CANCELLED,
+    // no solution shorter than the upper bound of the search exists, used by anytime solving
+    EXHAUSTED
+}
@@ -0,0 +1,242 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One solving of a board, used by blocking Solver and by Solver.solveAsync
+ * The search runs on its own engine thread, the caller waits for it and builds the result.
+ * The search can be stopped at any time, it ends after the engine threads notice it
+ */
+final class SolveTask {
+    private final Board initialBoard;
+    private final SolverConfiguration configuration;
+    private final Heuristic heuristic;
+    private final SearchResult searchResult;
+    private final double weight;
+    private final int upperBound;
+    private final long timeLimitMillis;
+
+    /**
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search
+     */
+    SolveTask(Board initialBoard, SolverConfiguration configuration) {
+        this(initialBoard, configuration, weightOf(configuration),
+                Integer.MAX_VALUE, configuration == null ? 0 : configuration.getTimeLimitMillis());
+    }
+
+    /**
+     * @param configuration chosen options of the search, may be null
+     * @return configured weight, 1 without configuration
+     * @throws IllegalArgumentException if the chosen engine does not support weighted costs
+     */
+    private static double weightOf(SolverConfiguration configuration) {
+        if (configuration == null) {
+            return 1.0;
+        }
+        if (configuration.getWeight() != 1.0 && configuration.getEngine() != SearchEngine.STEP_BASED) {
+            throw new IllegalArgumentException("Weighted search is supported by the STEP_BASED engine only, not "
+                    + configuration.getEngine());
+        }
+        return configuration.getWeight();
+    }
+
+    /**
+     * Task of one pass of anytime solving, weight and time limit replace the configured ones
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search
+     * @param weight weight of the heuristic in the cost of steps
+     * @param upperBound length of the best known solution, only shorter solutions are searched
+     * @param timeLimitMillis time limit in milliseconds, 0 for no limit
+     */
+    SolveTask(Board initialBoard, SolverConfiguration configuration, double weight, int upperBound,
+              long timeLimitMillis) {
+        // check if input variables are correct
+        if (initialBoard == null || configuration == null) {
+            throw new IllegalArgumentException();
+        }
+        if (configuration.getEngine() == SearchEngine.DISTRIBUTED && configuration.getCoordinator() == null) {
+            throw new IllegalArgumentException("Distributed engine needs a coordinator");
+        }
+        if (configuration.getEngine() == SearchEngine.DISTRIBUTED && configuration.getHeuristic() != null) {
+            throw new IllegalArgumentException("Distributed engine can not send own heuristic to workers");
+        }
+        if (configuration.getThresholdGrowth() != 0 && configuration.getEngine() != SearchEngine.STEP_BASED) {
+            throw new IllegalArgumentException("Threshold growth is supported by the STEP_BASED engine only, not "
+                    + configuration.getEngine());
+        }
+        this.initialBoard = initialBoard;
+        this.configuration = configuration;
+        this.weight = weight;
+        this.upperBound = upperBound;
+        this.timeLimitMillis = timeLimitMillis;
+        // rule based solving needs no heuristic, which may not exist for big boards
+        this.heuristic = configuration.getEngine() == SearchEngine.RULE_BASED ? null
+                : configuration.heuristicFor(initialBoard.rows(), initialBoard.columns());
+        this.searchResult = new SearchResult(configuration.getMetricsSink(), configuration.getNodeBudget());
+    }
+
+    /**
+     * Stops the search, nothing happens if it is already finished
+     * @param reason TIMED_OUT, BUDGET_EXCEEDED or CANCELLED
+     */
+    void stop(SolveStatus reason) {
+        this.searchResult.stop(reason);
+    }
+
+    /**
+     * Searches for the solution and waits until the search ends
+     * @return result of solving
+     */
+    SolveResult run() {
+        // parity check decides about solvability before any search starts
+        this.searchResult.setPuzzlesAreSolvable(this.initialBoard.isSolvable());
+        if (!this.searchResult.IsSolvablePuzzles()) {
+            return result();
+        }
+
+        // cached solution of the board or its transpose is returned without search
+        SolutionCache cache = this.configuration.getSolutionCache();
+        if (cache != null) {
+            SolutionPath cached = cache.get(this.initialBoard);
+            if (cached != null) {
+                return new SolveResult(SolveStatus.SOLVED, cached.length(), cached, cached.length(), 0,
+                        new ArrayList<>());
+            }
+        }
+
+        if (this.configuration.getEngine() == SearchEngine.RULE_BASED) {
+            return solveByRules();
+        }
+
+        BoardShape shape = this.initialBoard.shape();
+        MovePruner pruner = this.configuration.isMovePruning() ? MovePruner.forShape(shape) : null;
+        // one table per solve, bounds learned in one iteration are used in the next ones,
+        // with the pruner its state is one more key word
+        TranspositionTable table = this.configuration.getTranspositionTableSize() == 0 ? null
+                : new TranspositionTable(this.configuration.getTranspositionTableSize(),
+                        PackedBoard.words(shape.size()) + (pruner == null ? 0 : 1));
+        // shared by all solves of the shape, built by the first one
+        PerimeterDatabase perimeter = this.configuration.getPerimeterDatabaseSize() == 0 ? null
+                : PerimeterDatabase.forShape(shape, this.configuration.getPerimeterDatabaseSize());
+
+        Thread searchThread;
+        SearchEngine engine = this.configuration.getEngine();
+        if (engine == SearchEngine.STEP_BASED || this.weight != 1.0 || this.upperBound != Integer.MAX_VALUE) {
+            // weighted passes of anytime solving run on the step based engine, which supports
+            // weighted costs and upper bounds, other weighted searches are rejected by the constructor
+            searchThread = new DeepFirstSearch(new Step(this.initialBoard, this.heuristic, pruner, this.weight),
+                    this.searchResult, this.upperBound, this.configuration.getThresholdGrowth());
+        } else if (engine == SearchEngine.HASH_DISTRIBUTED) {
+            // duplicates are detected by the state tables, so neither the pruner nor the table is used
+            searchThread = new HashDistributedSearch(this.initialBoard, this.heuristic, this.searchResult,
+                    this.configuration.getThreads());
+        } else if (engine == SearchEngine.FRINGE) {
+            // the table, the pruner and the perimeter are used after the memory limit is reached
+            searchThread = new FringeSearch(this.initialBoard, this.heuristic, this.searchResult, table, pruner,
+                    perimeter, this.configuration.getFringeMemoryLimit() * (1L << 20));
+        } else if (engine == SearchEngine.DISTRIBUTED) {
+            // workers keep no shared table, the pruner is built again by every worker
+            searchThread = new DistributedSearch(this.initialBoard, this.configuration.getHeuristics(), this.searchResult,
+                    pruner, this.configuration.getCoordinator(), this.configuration.getSplitDepth());
+        } else if (engine == SearchEngine.PARALLEL) {
+            searchThread = new ParallelDeepFirstSearch(this.initialBoard, this.heuristic, this.searchResult, table, pruner,
+                    perimeter, this.configuration.getThreads(), this.configuration.getSplitDepth());
+        } else {
+            Path checkpointFile = this.configuration.getCheckpointFile();
+            searchThread = new InPlaceDeepFirstSearch(this.initialBoard, this.heuristic, this.searchResult,
+                    table, pruner, perimeter, checkpointFile, this.configuration.getCheckpointIntervalMillis(),
+                    checkpointFile != null && this.configuration.isResume()
+                            ? loadCheckpoint(checkpointFile, pruner != null) : null);
+        }
+
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        ScheduledFuture<?> deadline = this.timeLimitMillis == 0 ? null
+                : SearchMetrics.TIMER.schedule(() -> stop(SolveStatus.TIMED_OUT),
+                        this.timeLimitMillis, TimeUnit.MILLISECONDS);
+        metrics.start();
+        searchThread.start();
+
+        boolean interrupted = false;
+        while (searchThread.isAlive()) {
+            try {
+                searchThread.join();
+            } catch (InterruptedException e) {
+                // interrupted caller cancels the search and waits for its end
+                interrupted = true;
+                stop(SolveStatus.CANCELLED);
+            }
+        }
+        if (deadline != null) {
+            deadline.cancel(false);
+        }
+        metrics.finish(this.searchResult.getMoves());
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        SolveResult result = result();
+        if (cache != null && result.isOptimal()) {
+            cache.put(result.getPath());
+        }
+        return result;
+    }
+
+    /**
+     * @param file checkpoint file
+     * @param pruning true if redundant move sequences are pruned
+     * @return progress saved for this board, null if there is none
+     * @throws UncheckedIOException if the file can not be read
+     */
+    private SearchCheckpoint loadCheckpoint(Path file, boolean pruning) {
+        try {
+            return SearchCheckpoint.load(file, SearchCheckpoint.key(this.initialBoard, this.heuristic, pruning));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Checkpoint " + file + " can not be read", e);
+        }
+    }
+
+    /**
+     * Solves the board by RuleBasedSolver, solutions are not cached as they are not optimal
+     * @return solved result, the lower bound is the Manhattan distance
+     */
+    private SolveResult solveByRules() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        metrics.start();
+        SolutionPath path = RuleBasedSolver.solve(this.initialBoard);
+        metrics.finish(path.length());
+        return new SolveResult(SolveStatus.SOLVED, path.length(), path, this.initialBoard.manhattan(), 0,
+                metrics.getIterations());
+    }
+
+    /**
+     * @return structured result built from the finished search
+     */
+    private SolveResult result() {
+        SearchMetrics metrics = this.searchResult.getMetrics();
+        if (!this.searchResult.IsSolvablePuzzles()) {
+            return new SolveResult(SolveStatus.UNSOLVABLE, -1, null, -1,
+                    this.searchResult.getCreatedNodes(), metrics.getIterations());
+        }
+        // all thresholds below the running one were searched without solution,
+        // cost of steps on the optimal path is at most weight times its length
+        int searchedBound = this.searchResult.getSearchedBound() < 0
+                ? metrics.getThreshold() : this.searchResult.getSearchedBound();
+        int lowerBound = Math.max((int) Math.ceil(searchedBound / this.weight),
+                this.initialBoard.distanceFromSolution(this.heuristic));
+        if (this.searchResult.IsProblemSolved()) {
+            int moves = this.searchResult.getMoves();
+            return new SolveResult(SolveStatus.SOLVED, moves, this.searchResult.getSolution(),
+                    this.weight == 1.0 ? moves : Math.min(lowerBound, moves),
+                    this.searchResult.getCreatedNodes(), metrics.getIterations());
+        }
+        if (this.searchResult.getStopReason() == SolveStatus.EXHAUSTED) {
+            // every step which could lead to a shorter solution was searched
+            lowerBound = this.upperBound;
+        }
+        return new SolveResult(this.searchResult.getStopReason(), -1, null, lowerBound,
+                this.searchResult.getCreatedNodes(), metrics.getIterations());
+    }
+}
@@ -1,80 +1,156 @@
 import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Consumer;
 
 
 public class Solver {
 
-    private SearchResult searchResult = new SearchResult();
+    private final SolveResult result;
 
     /**
      * Solver for finding a solution to the initial board
-     * using the IDA* algorithm
+     * using the IDA* algorithm with the in-place search engine
      * @param initialBoard Board from which algorithm should start
      * @param heuristics chosen heuristics for Boards
      */
     public Solver(Board initialBoard, Heuristics heuristics) {
+        this(initialBoard, heuristics, SearchEngine.IN_PLACE);
+    }
 
-        // check if input variables are correct
-        if (initialBoard == null || heuristics == null) {
-            throw new IllegalArgumentException();
-        }
-
-        // create twin Board to check if it is solvable
-        Board twinBoard = initialBoard.twin();
+    /**
+     * Solver for finding a solution to the initial board
+     * using the IDA* algorithm
+     * @param initialBoard Board from which algorithm should start
+     * @param heuristics chosen heuristics for Boards
+     * @param engine chosen search engine
+     */
+    public Solver(Board initialBoard, Heuristics heuristics, SearchEngine engine) {
+        this(initialBoard, new SolverConfiguration(heuristics, engine));
+    }
 
-        Step initialOriginalStep = new Step(initialBoard);
-        Step initialTwinStep = new Step(twinBoard);
+    /**
+     * Solver for finding a solution to the initial board
+     * using the IDA* algorithm with given options
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search
+     */
+    public Solver(Board initialBoard, SolverConfiguration configuration) {
+        SolveTask task = new SolveTask(initialBoard, configuration);
+        this.result = task.run();
+    }
 
-        Thread originalBoardThread = new DeepFirstSearch(initialOriginalStep, searchResult, true);
-        Thread twinBoardThread = new DeepFirstSearch(initialTwinStep, searchResult, false);
+    /**
+     * Starts solving in a new thread and returns immediately
+     * Cancelling the future stops the search, time limit and node budget
+     * of the configuration end it with TIMED_OUT or BUDGET_EXCEEDED result
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search
+     * @return future completed with the result when the search ends
+     */
+    public static CompletableFuture<SolveResult> solveAsync(Board initialBoard, SolverConfiguration configuration) {
+        return solveAsync(initialBoard, configuration, runnable -> new Thread(runnable, "solver").start());
+    }
 
-        originalBoardThread.start();
-        twinBoardThread.start();
+    /**
+     * Starts solving on given executor and returns immediately
+     * Cancelling the future stops the search, time limit and node budget
+     * of the configuration end it with TIMED_OUT or BUDGET_EXCEEDED result
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search
+     * @param executor executor running the waiting part of the search
+     * @return future completed with the result when the search ends
+     */
+    public static CompletableFuture<SolveResult> solveAsync(Board initialBoard, SolverConfiguration configuration,
+                                                            Executor executor) {
+        SolveTask task = new SolveTask(initialBoard, configuration);
+        CompletableFuture<SolveResult> future = new CompletableFuture<>();
+        future.whenComplete((result, error) -> {
+            if (error instanceof CancellationException) {
+                task.stop(SolveStatus.CANCELLED);
+            }
+        });
+        executor.execute(() -> {
+            try {
+                future.complete(task.run());
+            } catch (RuntimeException | Error e) {
+                future.completeExceptionally(e);
+            }
+        });
+        return future;
+    }
 
-        try {
-            originalBoardThread.join();
-            twinBoardThread.join();
-        } catch (InterruptedException e) {
-            System.out.println(e);
-        }
+    /**
+     * Anytime solving, returns a first solution fast and improves it until the time limit
+     * of the configuration passes or the solution is proved optimal.
+     * Passes of weighted IDA* start with the configured weight, which should be above 1,
+     * and decrease it to 1; each pass searches only solutions shorter than the best one.
+     * The caller's thread is blocked, interrupting it stops solving with the best solution found so far
+     * @param initialBoard Board from which algorithm should start
+     * @param configuration chosen options of the search, node budget applies to every pass
+     * @param listener receiver of every improved solution, called on the caller's thread, may be null
+     * @return best found solution, its lower bound is equal to moves when it is proved optimal
+     */
+    public static SolveResult solveAnytime(Board initialBoard, SolverConfiguration configuration,
+                                           Consumer<SolveResult> listener) {
+        return new AnytimeTask(initialBoard, configuration, listener).run();
     }
 
     /**
      * how many moves are from the initial Board to the final one
-     * if board is not solvable then return number of moves from twin Board
-     * @return number of moves
+     * @return number of moves, -1 if board is not solvable or the search was stopped
      */
     public int getMoves() {
-        return this.searchResult.getMoves();
+        return this.result.getMoves();
     }
 
     /**
-     * @return path from the initial Board to the final one
+     * Boards are replayed from the moves on every call, getPath is cheaper when boards are not needed
+     * @return path from the initial Board to the final one, null if board is not solved
      */
     public ArrayList<Board> getSolution() {
-        return this.searchResult.getSolution();
+        return this.result.getSolution();
+    }
+
+    /**
+     * @return compact solution with moves of the blank, null if board is not solved
+     */
+    public SolutionPath getPath() {
+        return this.result.getPath();
+    }
+
+    /**
+     * @return structured result of solving
+     */
+    public SolveResult getResult() {
+        return this.result;
     }
 
     /**
      * @return true if the initial Board is solvable
      */
     public boolean isSolvable() {
-        return this.searchResult.IsSolvablePuzzles();
+        return this.result.getStatus() != SolveStatus.UNSOLVABLE;
     }
 
     /**
      * Function prints information about created nodes during searching
      */
     public void printNumberOfCreatedNodes() {
-        System.out.println("Created nodes from original board: " + this.searchResult.getCreatedOriginalBoardNodes());
-        System.out.println("Created nodes from twin board: " + this.searchResult.getCreatedTwinBoardNodes());
+        System.out.println("Created nodes: " + this.result.getCreatedNodes());
     }
 
-    public long createdNodesOriginal() {
-        return this.searchResult.getCreatedOriginalBoardNodes();
+    public long createdNodes() {
+        return this.result.getCreatedNodes();
     }
 
-    public long createdNodesTwin() {
-        return this.searchResult.getCreatedTwinBoardNodes();
+    /**
+     * @return statistics of all threshold iterations, empty if board is not solvable
+     */
+    public List<IterationStats> getIterations() {
+        return this.result.getIterations();
     }
 
 }
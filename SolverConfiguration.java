@@ -0,0 +1,416 @@
+import java.nio.file.Path;
+
+/**
+ * Container class with all options of the Solver
+ * Setters return the configuration, so options can be chained
+ */
+public class SolverConfiguration {
+    private static final int DEFAULT_SPLIT_DEPTH = 8;
+    private static final long DEFAULT_CHECKPOINT_INTERVAL_MILLIS = 60_000;
+    private static final int DEFAULT_FRINGE_MEMORY_LIMIT = 512;
+
+    private Heuristics heuristics;
+    private Heuristic heuristic;
+    private SearchEngine engine;
+    private int threads;
+    private int splitDepth;
+    private int transpositionTableSize;
+    private int perimeterDatabaseSize;
+    private int fringeMemoryLimit;
+    private MetricsSink metricsSink;
+    private long timeLimitMillis;
+    private long nodeBudget;
+    private boolean movePruning;
+    private double weight;
+    private double thresholdGrowth;
+    private SolutionCache solutionCache;
+    private SearchCoordinator coordinator;
+    private Path checkpointFile;
+    private long checkpointIntervalMillis;
+    private boolean resume;
+
+    /**
+     * Configuration with default options for given heuristics and engine
+     * @param heuristics chosen heuristics for Boards
+     * @param engine chosen search engine
+     */
+    public SolverConfiguration(Heuristics heuristics, SearchEngine engine) {
+        if (heuristics == null || engine == null) {
+            throw new IllegalArgumentException();
+        }
+        this.heuristics = heuristics;
+        this.engine = engine;
+        this.threads = Runtime.getRuntime().availableProcessors();
+        this.splitDepth = DEFAULT_SPLIT_DEPTH;
+        this.weight = 1.0;
+        this.checkpointIntervalMillis = DEFAULT_CHECKPOINT_INTERVAL_MILLIS;
+        this.fringeMemoryLimit = DEFAULT_FRINGE_MEMORY_LIMIT;
+    }
+
+    /**
+     * @return chosen heuristics for Boards
+     */
+    public Heuristics getHeuristics() {
+        return this.heuristics;
+    }
+
+    /**
+     * Setter for own heuristic implementation, used instead of the Heuristics constant
+     * @param heuristic heuristic for boards of the solved dimension, null to use Heuristics
+     * @return this configuration
+     */
+    public SolverConfiguration setHeuristic(Heuristic heuristic) {
+        this.heuristic = heuristic;
+        return this;
+    }
+
+    /**
+     * @return own heuristic implementation, null when the Heuristics constant is used
+     */
+    public Heuristic getHeuristic() {
+        return this.heuristic;
+    }
+
+    /**
+     * @param rows number of rows
+     * @param columns number of columns
+     * @return heuristic implementation used for boards of given shape
+     * @throws IllegalArgumentException if the chosen heuristic does not support the shape
+     */
+    Heuristic heuristicFor(int rows, int columns) {
+        return this.heuristic != null ? this.heuristic : this.heuristics.forShape(rows, columns);
+    }
+
+    /**
+     * @return chosen search engine
+     */
+    public SearchEngine getEngine() {
+        return this.engine;
+    }
+
+    /**
+     * @return number of threads used by parallel search
+     */
+    public int getThreads() {
+        return this.threads;
+    }
+
+    /**
+     * Setter for number of threads used by parallel search
+     * @param threads number of worker threads, at least 1
+     * @return this configuration
+     */
+    public SolverConfiguration setThreads(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads has to be positive: " + threads);
+        }
+        this.threads = threads;
+        return this;
+    }
+
+    /**
+     * @return depth to which parallel search expands the root in every iteration
+     */
+    public int getSplitDepth() {
+        return this.splitDepth;
+    }
+
+    /**
+     * Setter for split depth, deeper split gives more and smaller subtrees
+     * @param splitDepth depth to which the root is expanded, at least 0
+     * @return this configuration
+     */
+    public SolverConfiguration setSplitDepth(int splitDepth) {
+        if (splitDepth < 0) {
+            throw new IllegalArgumentException("Split depth can not be negative: " + splitDepth);
+        }
+        this.splitDepth = splitDepth;
+        return this;
+    }
+
+    /**
+     * @return memory of the transposition table in megabytes, 0 if the table is disabled
+     */
+    public int getTranspositionTableSize() {
+        return this.transpositionTableSize;
+    }
+
+    /**
+     * Setter for transposition table used by in-place and parallel engines
+     * The table prunes boards reached again by other paths and keeps bounds
+     * learned in previous iterations, step based engine does not use it
+     * @param megabytes memory of the table, 0 disables the table
+     * @return this configuration
+     */
+    public SolverConfiguration setTranspositionTableSize(int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Transposition table size can not be negative: " + megabytes);
+        }
+        this.transpositionTableSize = megabytes;
+        return this;
+    }
+
+    /**
+     * @return memory of the perimeter database in megabytes, 0 if the perimeter is disabled
+     */
+    public int getPerimeterDatabaseSize() {
+        return this.perimeterDatabaseSize;
+    }
+
+    /**
+     * Setter for perimeter database used by in-place and parallel engines
+     * All boards up to some number of moves from the goal are kept with exact distances,
+     * the radius is the biggest which fits in the memory. A branch reaching the perimeter
+     * ends with the exact distance. The database is built once per board shape and memory
+     * @param megabytes memory of the database, 0 disables the perimeter
+     * @return this configuration
+     */
+    public SolverConfiguration setPerimeterDatabaseSize(int megabytes) {
+        if (megabytes < 0) {
+            throw new IllegalArgumentException("Perimeter database size can not be negative: " + megabytes);
+        }
+        this.perimeterDatabaseSize = megabytes;
+        return this;
+    }
+
+    /**
+     * @return memory of states kept by fringe search in megabytes
+     */
+    public int getFringeMemoryLimit() {
+        return this.fringeMemoryLimit;
+    }
+
+    /**
+     * Setter for memory limit of SearchEngine.FRINGE, by default 512 MB
+     * When cached states and lists would need more, fringe search goes on as IDA* on one mutable state.
+     * The cache is kept in direct memory, limited by -XX:MaxDirectMemorySize
+     * @param megabytes memory of cached states and lists, at least 1
+     * @return this configuration
+     */
+    public SolverConfiguration setFringeMemoryLimit(int megabytes) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Fringe memory limit has to be positive: " + megabytes);
+        }
+        this.fringeMemoryLimit = megabytes;
+        return this;
+    }
+
+    /**
+     * @return receiver of search statistics, null if statistics are only collected
+     */
+    public MetricsSink getMetricsSink() {
+        return this.metricsSink;
+    }
+
+    /**
+     * Setter for receiver of per iteration statistics, see MetricsSink.all for many sinks
+     * @param metricsSink receiver of statistics, null to only collect them
+     * @return this configuration
+     */
+    public SolverConfiguration setMetricsSink(MetricsSink metricsSink) {
+        this.metricsSink = metricsSink;
+        return this;
+    }
+
+    /**
+     * @return time limit of one solving in milliseconds, 0 if there is no limit
+     */
+    public long getTimeLimitMillis() {
+        return this.timeLimitMillis;
+    }
+
+    /**
+     * Setter for time limit, solving ends with TIMED_OUT status when it passes
+     * @param timeLimitMillis time limit in milliseconds, 0 for no limit
+     * @return this configuration
+     */
+    public SolverConfiguration setTimeLimitMillis(long timeLimitMillis) {
+        if (timeLimitMillis < 0) {
+            throw new IllegalArgumentException("Time limit can not be negative: " + timeLimitMillis);
+        }
+        this.timeLimitMillis = timeLimitMillis;
+        return this;
+    }
+
+    /**
+     * @return maximal number of expanded nodes of one solving, 0 if there is no limit
+     */
+    public long getNodeBudget() {
+        return this.nodeBudget;
+    }
+
+    /**
+     * Setter for node budget, solving ends with BUDGET_EXCEEDED status when it is used
+     * The budget is checked every few thousand nodes of every thread, so it can be exceeded a little
+     * @param nodeBudget maximal number of expanded nodes, 0 for no limit
+     * @return this configuration
+     */
+    public SolverConfiguration setNodeBudget(long nodeBudget) {
+        if (nodeBudget < 0) {
+            throw new IllegalArgumentException("Node budget can not be negative: " + nodeBudget);
+        }
+        this.nodeBudget = nodeBudget;
+        return this;
+    }
+
+    /**
+     * @return true if redundant move sequences are pruned, see MovePruner
+     */
+    public boolean isMovePruning() {
+        return this.movePruning;
+    }
+
+    /**
+     * Setter for move pruning, when enabled the search rejects move sequences
+     * which have a shorter or equal equivalent, not only moves back.
+     * The pruner is learned once per board dimension and kept in a file
+     * @param movePruning true to prune redundant move sequences
+     * @return this configuration
+     */
+    public SolverConfiguration setMovePruning(boolean movePruning) {
+        this.movePruning = movePruning;
+        return this;
+    }
+
+    /**
+     * @return weight of the heuristic in the cost of steps, 1 for optimal search
+     */
+    public double getWeight() {
+        return this.weight;
+    }
+
+    /**
+     * Setter for weight, search with weight above 1 uses cost moves + weight * distance
+     * and finds solutions at most weight times longer than the optimal one, usually much faster.
+     * Weighted search is supported by the STEP_BASED engine only, Solver rejects other engines.
+     * For Solver.solveAnytime it is the weight of the first pass, weighted passes run on the step based
+     * engine and the last pass with weight 1 on the configured one
+     * @param weight weight of the heuristic, at least 1
+     * @return this configuration
+     */
+    public SolverConfiguration setWeight(double weight) {
+        if (!(weight >= 1.0) || Double.isInfinite(weight)) {
+            throw new IllegalArgumentException("Weight has to be a finite number not less than 1: " + weight);
+        }
+        this.weight = weight;
+        return this;
+    }
+
+    /**
+     * @return target growth of expanded nodes between iterations, 0 if the threshold grows to the smallest cut off cost
+     */
+    public double getThresholdGrowth() {
+        return this.thresholdGrowth;
+    }
+
+    /**
+     * Setter for threshold growth, when set the next threshold is predicted from costs of cut off children,
+     * so that the next iteration expands about thresholdGrowth times more nodes (IDA*_CR).
+     * It saves repeated iterations when costs grow in small steps, e.g. with Hamming heuristic,
+     * solutions stay optimal. Saved nodes are SolveResult.getReexpandedNodes of the board solved
+     * with threshold growth 0 minus the same number with the growth set.
+     * Predicted thresholds are supported by the STEP_BASED engine only, Solver rejects other engines
+     * @param thresholdGrowth target growth of expanded nodes, above 1, or 0 for the smallest cut off cost
+     * @return this configuration
+     */
+    public SolverConfiguration setThresholdGrowth(double thresholdGrowth) {
+        if (thresholdGrowth != 0 && (!(thresholdGrowth > 1.0) || Double.isInfinite(thresholdGrowth))) {
+            throw new IllegalArgumentException("Threshold growth has to be 0 or a finite number above 1: "
+                    + thresholdGrowth);
+        }
+        this.thresholdGrowth = thresholdGrowth;
+        return this;
+    }
+
+    /**
+     * @return cache of optimal solutions, null if solutions are not cached
+     */
+    public SolutionCache getSolutionCache() {
+        return this.solutionCache;
+    }
+
+    /**
+     * Setter for solution cache, boards found in it are answered without search
+     * and optimal solutions of searched boards are added to it.
+     * One cache can be shared by many configurations and solvers
+     * @param solutionCache cache of optimal solutions, null to disable caching
+     * @return this configuration
+     */
+    public SolverConfiguration setSolutionCache(SolutionCache solutionCache) {
+        this.solutionCache = solutionCache;
+        return this;
+    }
+
+    /**
+     * @return coordinator of worker processes used by distributed engine, null if not set
+     */
+    public SearchCoordinator getCoordinator() {
+        return this.coordinator;
+    }
+
+    /**
+     * Setter for coordinator of worker processes, required by SearchEngine.DISTRIBUTED
+     * @param coordinator coordinator with connected SearchWorker processes
+     * @return this configuration
+     */
+    public SolverConfiguration setCoordinator(SearchCoordinator coordinator) {
+        this.coordinator = coordinator;
+        return this;
+    }
+
+    /**
+     * @return file to which progress of the search is saved, null if checkpoints are disabled
+     */
+    public Path getCheckpointFile() {
+        return this.checkpointFile;
+    }
+
+    /**
+     * Setter for checkpoint file of the in-place engine, other engines do not save progress
+     * Progress is saved at most once per checkpoint interval, the file is deleted when the board is solved
+     * @param checkpointFile file to which progress is saved, null to disable checkpoints
+     * @return this configuration
+     */
+    public SolverConfiguration setCheckpointFile(Path checkpointFile) {
+        this.checkpointFile = checkpointFile;
+        return this;
+    }
+
+    /**
+     * @return minimal time between two checkpoints in milliseconds
+     */
+    public long getCheckpointIntervalMillis() {
+        return this.checkpointIntervalMillis;
+    }
+
+    /**
+     * Setter for checkpoint interval, by default one minute, a checkpoint takes about a millisecond
+     * @param checkpointIntervalMillis minimal time between two checkpoints in milliseconds
+     * @return this configuration
+     */
+    public SolverConfiguration setCheckpointIntervalMillis(long checkpointIntervalMillis) {
+        if (checkpointIntervalMillis < 0) {
+            throw new IllegalArgumentException("Checkpoint interval can not be negative: " + checkpointIntervalMillis);
+        }
+        this.checkpointIntervalMillis = checkpointIntervalMillis;
+        return this;
+    }
+
+    /**
+     * @return true if the search continues from the checkpoint file
+     */
+    public boolean isResume() {
+        return this.resume;
+    }
+
+    /**
+     * Setter for resuming, when enabled the search continues from the iteration and subtree
+     * saved in the checkpoint file, if the file belongs to the same board, heuristic and pruning
+     * @param resume true to continue from the checkpoint file
+     * @return this configuration
+     */
+    public SolverConfiguration setResume(boolean resume) {
+        this.resume = resume;
+        return this;
+    }
+}
@@ -0,0 +1,364 @@
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.PushbackInputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Long-running solver listening on localhost, one request per line
+ * The JVM, JIT compiled code and heuristic tables stay warm between requests.
+ * Connections are served on virtual threads when the runtime has them (Java 21),
+ * otherwise on a cached pool of platform threads. Solving is CPU bound, so it runs
+ * on a fixed pool of workers with a bounded queue; requests which do not fit are rejected
+ * at once with BUSY instead of waiting. A solve is cancelled when its client disconnects,
+ * so the worker is not held until the time limit for nobody.
+ *
+ * Requests and responses:
+ * SOLVE n t1 ... tn*n  ->  OK moves moveString micros | UNSOLVABLE | TIMED_OUT lowerBound | BUSY | ERROR message
+ *                         rectangular boards are sent as SOLVE RxC t1 ... tR*C
+ * STATS                ->  STATS with counters, throughput and latency percentiles in microseconds
+ * QUIT                 ->  connection is closed
+ */
+public class SolverServer implements Closeable {
+    // interval of checks whether the client of a running solve is still connected
+    private static final long DISCONNECT_CHECK_MILLIS = 100;
+
+    private final SolverConfiguration configuration;
+    private final ServerSocket serverSocket;
+    private final ExecutorService connections;
+    private final ThreadPoolExecutor workers;
+    private final long startNanos;
+    private final LatencyHistogram latencies = new LatencyHistogram();
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicInteger openConnections = new AtomicInteger();
+
+    /**
+     * Binds the server to the loopback address, connections are accepted after start
+     * @param configuration options used for every board
+     * @param port port on localhost, 0 for any free port
+     * @param workers number of boards solved at the same time
+     * @param queueCapacity maximal number of boards waiting for a worker
+     * @throws IOException if the port can not be bound
+     */
+    public SolverServer(SolverConfiguration configuration, int port, int workers, int queueCapacity)
+            throws IOException {
+        if (configuration == null) {
+            throw new IllegalArgumentException();
+        }
+        if (workers < 1 || queueCapacity < 0) {
+            throw new IllegalArgumentException("Invalid workers " + workers + " or queue capacity " + queueCapacity);
+        }
+        this.configuration = configuration;
+        this.serverSocket = new ServerSocket(port, 0, InetAddress.getLoopbackAddress());
+        this.connections = connectionExecutor();
+        AtomicInteger workerId = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                queueCapacity == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "solver-worker-" + workerId.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+        this.workers.prestartAllCoreThreads();
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Virtual threads are created through reflection, so the code runs on Java 17 as well
+     * @return executor starting a new virtual thread per connection, or a cached pool of platform threads
+     */
+    private static ExecutorService connectionExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            return Executors.newCachedThreadPool(runnable -> {
+                Thread thread = new Thread(runnable, "solver-connection");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    /**
+     * @return port on which the server listens
+     */
+    public int getPort() {
+        return this.serverSocket.getLocalPort();
+    }
+
+    /**
+     * Starts accepting connections in a background thread and returns
+     */
+    public void start() {
+        Thread acceptor = new Thread(this::acceptLoop, "solver-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    /**
+     * Accepts connections until the server socket is closed
+     */
+    private void acceptLoop() {
+        while (!this.serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = this.serverSocket.accept();
+            } catch (IOException e) {
+                // closed server socket ends the loop
+                continue;
+            }
+            try {
+                this.connections.execute(() -> serve(socket));
+            } catch (RejectedExecutionException e) {
+                closeQuietly(socket);
+            }
+        }
+    }
+
+    /**
+     * Handles requests of one connection until the client quits or disconnects
+     * @param socket connected client
+     */
+    private void serve(Socket socket) {
+        this.openConnections.incrementAndGet();
+        try (Socket client = socket;
+             PushbackInputStream bytes = new PushbackInputStream(client.getInputStream());
+             BufferedReader input = new BufferedReader(new InputStreamReader(bytes, StandardCharsets.US_ASCII));
+             PrintWriter output = new PrintWriter(new BufferedWriter(
+                     new OutputStreamWriter(client.getOutputStream(), StandardCharsets.US_ASCII)))) {
+            Connection connection = new Connection(client, input, bytes);
+            String line;
+            while ((line = input.readLine()) != null) {
+                String request = line.trim();
+                if (request.isEmpty()) {
+                    continue;
+                }
+                if (request.equalsIgnoreCase("QUIT")) {
+                    break;
+                }
+                output.println(handle(request, connection));
+                output.flush();
+            }
+        } catch (IOException e) {
+            // client disconnected, nothing to answer
+        } finally {
+            this.openConnections.decrementAndGet();
+        }
+    }
+
+    /**
+     * @param request one request line
+     * @param connection client of the request, checked while its board is solved
+     * @return response line
+     * @throws IOException if the client disconnects before the board is solved, the solve is cancelled
+     */
+    String handle(String request, Connection connection) throws IOException {
+        String[] tokens = request.split("\\s+");
+        if (tokens[0].equalsIgnoreCase("STATS")) {
+            return stats();
+        }
+        if (!tokens[0].equalsIgnoreCase("SOLVE")) {
+            return "ERROR unknown request " + tokens[0];
+        }
+        Board board;
+        try {
+            board = parseBoard(tokens, 1);
+        } catch (IllegalArgumentException e) {
+            return "ERROR " + e.getMessage();
+        }
+
+        long start = System.nanoTime();
+        CompletableFuture<SolveResult> future;
+        try {
+            future = Solver.solveAsync(board, this.configuration, this.workers);
+        } catch (RejectedExecutionException e) {
+            this.rejected.increment();
+            return "BUSY";
+        }
+        SolveResult result;
+        try {
+            result = await(future, connection);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return "ERROR interrupted";
+        } catch (ExecutionException e) {
+            this.failed.increment();
+            return "ERROR " + e.getCause();
+        }
+        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        this.latencies.record(micros);
+        this.completed.increment();
+        switch (result.getStatus()) {
+            case SOLVED: return "OK " + result.getMoves() + " " + result.getPath().moveString() + " " + micros;
+            case UNSOLVABLE: return "UNSOLVABLE";
+            default: return result.getStatus() + " " + result.getLowerBound();
+        }
+    }
+
+    /**
+     * Waits for the solve and checks between waits that its client is still connected
+     * @param future running solve
+     * @param connection client waiting for the result
+     * @return result of the solve
+     * @throws IOException if the client disconnected, the solve is cancelled
+     */
+    private static SolveResult await(CompletableFuture<SolveResult> future, Connection connection)
+            throws IOException, InterruptedException, ExecutionException {
+        try {
+            while (true) {
+                try {
+                    return future.get(DISCONNECT_CHECK_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (TimeoutException e) {
+                    connection.checkOpen();
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // nobody waits for the result, the worker is freed for other requests
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    /**
+     * @param tokens request tokens ending with dimension n or RxC and tiles, also used by SearchWorker
+     * @param first index of the dimension token
+     * @return parsed board
+     * @throws IllegalArgumentException if tokens are not a valid board
+     */
+    static Board parseBoard(String[] tokens, int first) {
+        int rows;
+        int columns;
+        try {
+            String[] shape = tokens.length > first ? tokens[first].toLowerCase().split("x", -1) : new String[] {"0"};
+            rows = shape.length <= 2 ? Integer.parseInt(shape[0]) : 0;
+            columns = shape.length == 2 ? Integer.parseInt(shape[1]) : rows;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("invalid dimension " + tokens[first]);
+        }
+        if (rows < 2 || columns < 2 || (long) rows*columns + first + 1 != tokens.length) {
+            throw new IllegalArgumentException("expected n and n*n tiles or RxC and R*C tiles");
+        }
+        int[] tiles = new int[rows*columns];
+        boolean[] seen = new boolean[tiles.length];
+        for (int i=0; i<tiles.length; i++) {
+            int tile;
+            try {
+                tile = Integer.parseInt(tokens[i+first+1]);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("invalid tile " + tokens[i+first+1]);
+            }
+            if (tile < 0 || tile >= tiles.length || seen[tile]) {
+                throw new IllegalArgumentException("tiles are not a permutation of 0.." + (tiles.length-1));
+            }
+            seen[tile] = true;
+            tiles[i] = tile;
+        }
+        return new Board(rows, columns, tiles);
+    }
+
+    /**
+     * @return one line with counters, throughput and latency percentiles in microseconds
+     */
+    String stats() {
+        double seconds = (System.nanoTime() - this.startNanos) / 1e9;
+        return "STATS completed=" + this.completed.sum()
+                + " rejected=" + this.rejected.sum()
+                + " failed=" + this.failed.sum()
+                + " queued=" + this.workers.getQueue().size()
+                + " active=" + this.workers.getActiveCount()
+                + " connections=" + this.openConnections.get()
+                + " throughput=" + String.format("%.2f", this.completed.sum() / seconds) + "/s"
+                + " mean=" + this.latencies.mean()
+                + " p50=" + this.latencies.percentile(50)
+                + " p90=" + this.latencies.percentile(90)
+                + " p99=" + this.latencies.percentile(99)
+                + " max=" + this.latencies.percentile(100);
+    }
+
+    /**
+     * Stops accepting connections and ends the workers, running solves are not waited for
+     */
+    @Override
+    public void close() throws IOException {
+        this.serverSocket.close();
+        this.connections.shutdownNow();
+        this.workers.shutdownNow();
+    }
+
+    /**
+     * @param socket socket closed without reporting errors
+     */
+    private static void closeQuietly(Socket socket) {
+        try {
+            socket.close();
+        } catch (IOException e) {
+            // nothing to do with a broken socket
+        }
+    }
+
+    /**
+     * Connected client, its input is peeked between requests only to find out whether it is still there
+     */
+    static final class Connection {
+        private final Socket socket;
+        private final BufferedReader input;
+        private final PushbackInputStream bytes;
+
+        /**
+         * @param socket connected client
+         * @param input reader of requests
+         * @param bytes stream under the reader, peeked bytes are pushed back to it
+         */
+        Connection(Socket socket, BufferedReader input, PushbackInputStream bytes) {
+            this.socket = socket;
+            this.input = input;
+            this.bytes = bytes;
+        }
+
+        /**
+         * @throws IOException if the client closed the connection or it is broken
+         */
+        void checkOpen() throws IOException {
+            // the next request is already sent, so the client is still there
+            if (this.input.ready()) {
+                return;
+            }
+            this.socket.setSoTimeout(1);
+            try {
+                int next = this.bytes.read();
+                if (next < 0) {
+                    throw new EOFException("Client disconnected");
+                }
+                this.bytes.unread(next);
+            } catch (SocketTimeoutException e) {
+                // nothing sent, the connection is still open
+            } finally {
+                this.socket.setSoTimeout(0);
+            }
+        }
+    }
+}
@@ -8,28 +8,70 @@ import java.util.List;
 class Step implements Comparable<Step>{
     private final Board board;
     private final Step parent;
+    private final Heuristic heuristic;
+    private final MovePruner pruner;
+    private final int pruneState;
+    private final double weight;
     private final int moves;
     private final int cost;
+    private final int lowerBound;
 
     /**
      * Constructor for internal class
      * @param board - related Board
      * @param parent - parent step
      * @param move - number of moves from initial Board
+     * @param heuristic - heuristic used for the cost
+     * @param pruner - machine rejecting redundant moves, null if only moves back are rejected
+     * @param pruneState - state of the pruner after moves leading to this step
+     * @param weight - weight of the heuristic in the cost
+     * @param distance - distance of the board from the goal in the heuristic
      */
-    Step(Board board, Step parent, int move) {
+    private Step(Board board, Step parent, int move, Heuristic heuristic, MovePruner pruner, int pruneState,
+                 double weight, int distance) {
         this.board = board;
         this.parent = parent;
+        this.heuristic = heuristic;
+        this.pruner = pruner;
+        this.pruneState = pruneState;
+        this.weight = weight;
         this.moves = move;
-        this.cost = board.distanceFromSolution(Application.HEURISTICS) + this.moves;
+        this.lowerBound = distance + this.moves;
+        // rounding down keeps cost of every step on a solution path at most weight times its length
+        this.cost = weight == 1.0 ? this.lowerBound : this.moves + (int) (weight * distance);
     }
 
     /**
      * Constructor for internal class, for initial Board
      * @param board - related Board
+     * @param heuristic - heuristic used for the cost of this and all next steps
      */
-    Step(Board board) {
-        this(board, null, 0);
+    Step(Board board, Heuristic heuristic) {
+        this(board, heuristic, null);
+    }
+
+    /**
+     * Constructor for internal class, for initial Board
+     * @param board - related Board
+     * @param heuristic - heuristic used for the cost of this and all next steps
+     * @param pruner - machine rejecting redundant moves, null if only moves back are rejected
+     */
+    Step(Board board, Heuristic heuristic, MovePruner pruner) {
+        this(board, heuristic, pruner, 1.0);
+    }
+
+    /**
+     * Constructor for internal class, for initial Board of weighted search
+     * Cost of steps is moves + weight * distance, so solutions found by IDA*
+     * are at most weight times longer than the optimal one
+     * @param board - related Board
+     * @param heuristic - heuristic used for the cost of this and all next steps
+     * @param pruner - machine rejecting redundant moves, null if only moves back are rejected
+     * @param weight - weight of the heuristic in the cost, at least 1
+     */
+    Step(Board board, Heuristic heuristic, MovePruner pruner, double weight) {
+        this(board, null, 0, heuristic, pruner, pruner == null ? 0 : pruner.start(), weight,
+                board.distanceFromSolution(heuristic));
     }
 
     /**
@@ -60,20 +102,42 @@ class Step implements Comparable<Step>{
         return this.cost;
     }
 
+    /**
+     * @return moves + distance, every solution going through this step has at least so many moves
+     */
+    int getLowerBound() {
+        return this.lowerBound;
+    }
+
     /**
      * Function which generating next steps and return them
      * @return list of next step
      */
     List<Step> nextSteps() {
-        List<Step> nextSteps = new ArrayList<>();
-        Iterable<Board> possibleBoards = this.board.neighbors();
-        for (Board possibleBoard : possibleBoards) {
-            if (this.getParent() != null) {
-                if (possibleBoard.equals(this.getParent().getBoard())) {
+        return nextSteps(new ChildBatch(this.board.shape()));
+    }
+
+    /**
+     * Function which generating next steps in the batch and return them
+     * @param batch children buffer of the searching thread
+     * @return list of next step
+     */
+    List<Step> nextSteps(ChildBatch batch) {
+        // board of the parent is the only neighbour with the same blank position
+        int skippedBlank = this.parent == null ? BoardShape.NO_NEIGHBOR : this.parent.board.zeroPosition();
+        int children = batch.generate(this.board, this.heuristic, skippedBlank);
+        List<Step> nextSteps = new ArrayList<>(children);
+        for (int i=0; i<children; i++) {
+            int direction = batch.direction(i);
+            int pruneState = 0;
+            if (this.pruner != null) {
+                pruneState = this.pruner.next(this.pruneState, direction);
+                if (pruneState == MovePruner.PRUNED) {
                     continue;
                 }
             }
-            nextSteps.add(new Step(possibleBoard, this, this.moves+1));
+            nextSteps.add(new Step(this.board.neighbor(direction), this, this.moves+1, this.heuristic, this.pruner,
+                    pruneState, this.weight, batch.distance(i)));
         }
         return nextSteps;
     }
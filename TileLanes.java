@@ -0,0 +1,40 @@
+/**
+ * Kernels visiting every tile of a board, used by full evaluations and by ChildBatch
+ * VectorTileLanes in the vector directory runs them on tile lanes with jdk.incubator.vector,
+ * it is compiled and run with --add-modules jdk.incubator.vector. When the class or the module
+ * is not available, ScalarTileLanes gives the same results with plain loops
+ */
+interface TileLanes {
+
+    /**
+     * @return lanes shared by all boards in the JVM, vector ones when they can be loaded
+     */
+    static TileLanes get() {
+        return ScalarTileLanes.LANES;
+    }
+
+    /**
+     * @return true if kernels use SIMD instructions
+     */
+    boolean isVector();
+
+    /**
+     * Copies tiles stored as unsigned bytes into ints
+     * @param tiles tiles in row order
+     * @param destination array of at least tiles.length ints
+     */
+    void widen(byte[] tiles, int[] destination);
+
+    /**
+     * @param tiles tiles in row order, 0 is the blank
+     * @return number of tiles out of place
+     */
+    int hamming(int[] tiles);
+
+    /**
+     * @param tiles tiles in row order, 0 is the blank
+     * @param shape shape of the board
+     * @return sum of Manhattan distances between tiles and their goal positions
+     */
+    int manhattan(int[] tiles, BoardShape shape);
+}
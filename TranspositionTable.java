@@ -0,0 +1,161 @@
+/**
+ * Fixed-size, lock-free transposition table for IDA*
+ * For every stored board it keeps the smallest number of moves it was reached with
+ * in the current iteration and the best known lower bound of the distance to the goal.
+ * Entries are written without locks: key words are stored XOR-ed with the data word,
+ * so an entry torn by concurrent writers does not match any key and is ignored.
+ * Every bucket has two entries, entries from older iterations and with more moves are replaced first
+ */
+final class TranspositionTable {
+    static final long EMPTY = 0L;
+    private static final long VALID = 1L << 63;
+    private static final long COMPLETE = 1L << 62;
+    private static final int FIELD_BITS = 16;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final int ENTRIES_PER_BUCKET = 2;
+
+    private final int keyWords;
+    private final int entryWords;
+    private final long[] table;
+    private final int bucketMask;
+
+    /**
+     * @param megabytes memory used by the table
+     * @param keyWords number of words of packed boards
+     */
+    TranspositionTable(int megabytes, int keyWords) {
+        if (megabytes < 1) {
+            throw new IllegalArgumentException("Transposition table size has to be positive: " + megabytes);
+        }
+        this.keyWords = keyWords;
+        this.entryWords = keyWords + 1;
+        long bucketBytes = 8L * this.entryWords * ENTRIES_PER_BUCKET;
+        long buckets = Long.highestOneBit(Math.max(1, (megabytes * (1L << 20)) / bucketBytes));
+        buckets = Math.min(buckets, Integer.highestOneBit(Integer.MAX_VALUE / (this.entryWords * ENTRIES_PER_BUCKET)));
+        this.bucketMask = (int) buckets - 1;
+        this.table = new long[(int) buckets * this.entryWords * ENTRIES_PER_BUCKET];
+    }
+
+    /**
+     * @param key packed board
+     * @return index of the first word of the first entry in the bucket
+     */
+    private int bucket(long[] key) {
+        return ((int) PackedBoard.hash(key) & this.bucketMask) * this.entryWords * ENTRIES_PER_BUCKET;
+    }
+
+    /**
+     * @param entry index of the entry
+     * @param key packed board
+     * @param data data word read from the entry
+     * @return true if the entry holds the key
+     */
+    private boolean matches(int entry, long[] key, long data) {
+        if ((data & VALID) == 0) { return false; }
+        for (int i=0; i<this.keyWords; i++) {
+            if ((this.table[entry+1+i] ^ data) != key[i]) { return false; }
+        }
+        return true;
+    }
+
+    /**
+     * @param key packed board
+     * @return data word of the board or EMPTY if the board is not stored
+     */
+    long probe(long[] key) {
+        int bucket = bucket(key);
+        for (int i=0; i<ENTRIES_PER_BUCKET; i++) {
+            int entry = bucket + i*this.entryWords;
+            long data = this.table[entry];
+            if (matches(entry, key, data)) { return data; }
+        }
+        return EMPTY;
+    }
+
+    /**
+     * Stores information about the board, replacing the least valuable entry of the bucket
+     * @param key packed board
+     * @param moves number of moves to the board
+     * @param bound lower bound of the distance to the goal
+     * @param threshold threshold of the iteration
+     * @param complete true if the subtree of the board is fully searched
+     */
+    void store(long[] key, int moves, int bound, int threshold, boolean complete) {
+        int bucket = bucket(key);
+        int victim = -1;
+        long victimData = 0;
+        for (int i=0; i<ENTRIES_PER_BUCKET; i++) {
+            int entry = bucket + i*this.entryWords;
+            long data = this.table[entry];
+            if (matches(entry, key, data)) {
+                // known bound is kept if it is better
+                bound = Math.max(bound, bound(data));
+                victim = entry;
+                break;
+            }
+            if (victim < 0 || isLessValuable(data, victimData)) {
+                victim = entry;
+                victimData = data;
+            }
+        }
+        long data = VALID | (complete ? COMPLETE : 0)
+                | (field(threshold) << (2*FIELD_BITS))
+                | (field(bound) << FIELD_BITS)
+                | field(moves);
+        for (int i=0; i<this.keyWords; i++) {
+            this.table[victim+1+i] = key[i] ^ data;
+        }
+        this.table[victim] = data;
+    }
+
+    /**
+     * @param value value of the field, clamped to the field range
+     * @return bits of the field
+     */
+    private static long field(int value) {
+        return Math.max(0, Math.min(value, FIELD_MASK));
+    }
+
+    /**
+     * @return true if the first entry should be replaced before the second one
+     */
+    private static boolean isLessValuable(long data, long other) {
+        if ((data & VALID) == 0) { return true; }
+        if ((other & VALID) == 0) { return false; }
+        if (threshold(data) != threshold(other)) { return threshold(data) < threshold(other); }
+        // entries closer to the root have bigger subtrees
+        return moves(data) > moves(other);
+    }
+
+    /**
+     * @param data data word
+     * @return number of moves stored in the entry
+     */
+    static int moves(long data) {
+        return (int) (data & FIELD_MASK);
+    }
+
+    /**
+     * @param data data word
+     * @return lower bound of the distance to the goal stored in the entry
+     */
+    static int bound(long data) {
+        return (int) ((data >>> FIELD_BITS) & FIELD_MASK);
+    }
+
+    /**
+     * @param data data word
+     * @return threshold of the iteration in which the entry was stored
+     */
+    static int threshold(long data) {
+        return (int) ((data >>> (2*FIELD_BITS)) & FIELD_MASK);
+    }
+
+    /**
+     * @param data data word
+     * @return true if the subtree of the board was fully searched
+     */
+    static boolean isComplete(long data) {
+        return (data & COMPLETE) != 0;
+    }
+}
@@ -0,0 +1,225 @@
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Walking distance heuristic
+ * Vertical state of the board is a table: for every row, how many tiles of every goal row
+ * are in it, together with the row of the blank. The number of vertical moves needed
+ * to reach the goal table is precomputed by breadth first search over all tables.
+ * Horizontal moves use the same tables for columns, the heuristic is the sum of both.
+ * Moves between tables are precomputed too, so a move is one table read
+ */
+final class WalkingDistanceHeuristic implements Heuristic {
+    private static final ConcurrentHashMap<Integer, WalkingDistanceHeuristic> HEURISTICS = new ConcurrentHashMap<>();
+    // 4x4 has 24964 tables, tables of 5x5 boards do not fit in memory
+    static final int MAX_DIMENSION = 4;
+    private static final int BITS = 3;
+
+    private final int n;
+    // sorted keys of all tables, index in this array is the table id
+    private final long[] keys;
+    private final byte[] distances;
+    // links[id*2n + direction*n + goalLine] is the id after the move, -1 if move is impossible
+    private final int[] links;
+
+    /**
+     * @param n board dimension
+     * @return heuristic shared by all solvers in the JVM
+     */
+    static WalkingDistanceHeuristic forDimension(int n) {
+        if (n > MAX_DIMENSION) {
+            throw new IllegalArgumentException("Walking distance supports boards up to "
+                    + MAX_DIMENSION + "x" + MAX_DIMENSION);
+        }
+        return HEURISTICS.computeIfAbsent(n, WalkingDistanceHeuristic::new);
+    }
+
+    /**
+     * Generates all tables by breadth first search from the goal table
+     * @param n board dimension
+     */
+    private WalkingDistanceHeuristic(int n) {
+        this.n = n;
+        int[][] counts = new int[n][n];
+        for (int line=0; line<n; line++) {
+            counts[line][line] = line == n-1 ? n-1 : n;
+        }
+        LongIntHashMap ids = new LongIntHashMap(1 << 16);
+        long[] order = new long[1 << 16];
+        byte[] depth = new byte[order.length];
+        int size = 0;
+        order[size++] = encode(counts, n-1);
+        ids.put(order[0], 0);
+        for (int i=0; i<size; i++) {
+            int blank = decode(order[i], counts);
+            for (int direction=0; direction<2; direction++) {
+                int other = direction == 0 ? blank-1 : blank+1;
+                if (other < 0 || other >= n) { continue; }
+                for (int goalLine=0; goalLine<n; goalLine++) {
+                    if (counts[other][goalLine] == 0) { continue; }
+                    counts[other][goalLine]--;
+                    counts[blank][goalLine]++;
+                    long key = encode(counts, other);
+                    counts[other][goalLine]++;
+                    counts[blank][goalLine]--;
+                    if (ids.putIfAbsent(key, size) == LongIntHashMap.NOT_FOUND) {
+                        if (size == order.length) {
+                            order = Arrays.copyOf(order, size*2);
+                            depth = Arrays.copyOf(depth, size*2);
+                        }
+                        order[size] = key;
+                        depth[size++] = (byte) (depth[i]+1);
+                    }
+                }
+            }
+        }
+
+        this.keys = Arrays.copyOf(order, size);
+        Arrays.sort(this.keys);
+        this.distances = new byte[this.keys.length];
+        this.links = new int[this.keys.length*2*n];
+        for (int id=0; id<this.keys.length; id++) {
+            this.distances[id] = depth[ids.get(this.keys[id])];
+            int blank = decode(this.keys[id], counts);
+            for (int direction=0; direction<2; direction++) {
+                int other = direction == 0 ? blank-1 : blank+1;
+                for (int goalLine=0; goalLine<n; goalLine++) {
+                    int link = id*2*n + direction*n + goalLine;
+                    if (other < 0 || other >= n || counts[other][goalLine] == 0) {
+                        this.links[link] = -1;
+                        continue;
+                    }
+                    counts[other][goalLine]--;
+                    counts[blank][goalLine]++;
+                    this.links[link] = Arrays.binarySearch(this.keys, encode(counts, other));
+                    counts[other][goalLine]++;
+                    counts[blank][goalLine]--;
+                }
+            }
+        }
+    }
+
+    /**
+     * Key of the table, the last count of every line is skipped
+     * because it follows from the number of tiles in the line
+     * @param counts counts[line][goalLine]
+     * @param blank line of the blank
+     * @return key of the table
+     */
+    private long encode(int[][] counts, int blank) {
+        long key = blank;
+        for (int line=0; line<this.n; line++) {
+            for (int goalLine=0; goalLine<this.n-1; goalLine++) {
+                key = (key << BITS) | counts[line][goalLine];
+            }
+        }
+        return key;
+    }
+
+    /**
+     * @param key key of the table
+     * @param counts array filled with counts[line][goalLine]
+     * @return line of the blank
+     */
+    private int decode(long key, int[][] counts) {
+        for (int line=this.n-1; line>=0; line--) {
+            int sum = 0;
+            for (int goalLine=this.n-2; goalLine>=0; goalLine--) {
+                counts[line][goalLine] = (int) (key & ((1 << BITS) - 1));
+                sum += counts[line][goalLine];
+                key >>>= BITS;
+            }
+            counts[line][this.n-1] = -sum;
+        }
+        int blank = (int) key;
+        for (int line=0; line<this.n; line++) {
+            counts[line][this.n-1] += line == blank ? this.n-1 : this.n;
+        }
+        return blank;
+    }
+
+    /**
+     * @param tiles tiles in row order
+     * @param rows true for rows, false for columns
+     * @return id of the table of the board
+     */
+    private int tableOf(int[] tiles, boolean rows) {
+        int[][] counts = new int[this.n][this.n];
+        int blank = 0;
+        for (int position=0; position<tiles.length; position++) {
+            int line = rows ? position/this.n : position%this.n;
+            if (tiles[position] == 0) {
+                blank = line;
+                continue;
+            }
+            int goalLine = rows ? (tiles[position]-1)/this.n : (tiles[position]-1)%this.n;
+            counts[line][goalLine]++;
+        }
+        return Arrays.binarySearch(this.keys, encode(counts, blank));
+    }
+
+    /**
+     * @return number of precomputed tables
+     */
+    int tableCount() {
+        return this.keys.length;
+    }
+
+    @Override
+    public int evaluate(int[] tiles) {
+        return this.distances[tableOf(tiles, true)] + this.distances[tableOf(tiles, false)];
+    }
+
+    @Override
+    public Evaluator newEvaluator(int[] tiles) {
+        return new WalkingDistanceEvaluator(tableOf(tiles, true), tableOf(tiles, false));
+    }
+
+    private final class WalkingDistanceEvaluator implements Evaluator {
+        private int rowTable;
+        private int columnTable;
+
+        WalkingDistanceEvaluator(int rowTable, int columnTable) {
+            this.rowTable = rowTable;
+            this.columnTable = columnTable;
+        }
+
+        /**
+         * @return id of the row table after the move
+         */
+        private int rowTableAfterMove(int tile, int from, int to) {
+            int fromRow = from/n, toRow = to/n;
+            if (fromRow == toRow) { return this.rowTable; }
+            // blank goes from the row of "to" to the row of "from"
+            int direction = fromRow < toRow ? 0 : 1;
+            return links[this.rowTable*2*n + direction*n + (tile-1)/n];
+        }
+
+        /**
+         * @return id of the column table after the move
+         */
+        private int columnTableAfterMove(int tile, int from, int to) {
+            int fromColumn = from%n, toColumn = to%n;
+            if (fromColumn == toColumn) { return this.columnTable; }
+            int direction = fromColumn < toColumn ? 0 : 1;
+            return links[this.columnTable*2*n + direction*n + (tile-1)%n];
+        }
+
+        @Override
+        public int distance() {
+            return distances[this.rowTable] + distances[this.columnTable];
+        }
+
+        @Override
+        public int distanceAfterMove(int tile, int from, int to) {
+            return distances[rowTableAfterMove(tile, from, to)] + distances[columnTableAfterMove(tile, from, to)];
+        }
+
+        @Override
+        public void move(int tile, int from, int to) {
+            int rowTable = rowTableAfterMove(tile, from, to);
+            this.columnTable = columnTableAfterMove(tile, from, to);
+            this.rowTable = rowTable;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Fixed corpus of boards used by benchmarks
+ * Boards are created by random walks of the blank from the goal with a fixed seed,
+ * so every run and every machine uses the same boards. Longer walks give harder boards
+ */
+public final class BenchmarkCorpus {
+    private static final long SEED = 20240611L;
+    public static final int BOARDS_PER_GROUP = 10;
+
+    /**
+     * Difficulty groups of 4x4 boards
+     */
+    public enum Difficulty {
+        EASY(30),
+        MEDIUM(60),
+        HARD(100);
+
+        private final int walkLength;
+
+        Difficulty(int walkLength) {
+            this.walkLength = walkLength;
+        }
+    }
+
+    private BenchmarkCorpus() {
+    }
+
+    /**
+     * @param difficulty chosen group
+     * @return boards of the group, always the same for given group
+     */
+    public static List<Board> boards(Difficulty difficulty) {
+        Random random = new Random(SEED + difficulty.ordinal());
+        List<Board> boards = new ArrayList<>(BOARDS_PER_GROUP);
+        for (int i = 0; i < BOARDS_PER_GROUP; i++) {
+            boards.add(randomWalk(4, difficulty.walkLength, random));
+        }
+        return boards;
+    }
+
+    /**
+     * @param n board dimension
+     * @param length number of blank moves from the goal board
+     * @param random source of moves
+     * @return board reached by the walk, moves which undo the previous one are skipped
+     */
+    public static Board randomWalk(int n, int length, Random random) {
+        int m = n*n;
+        int[][] blocks = new int[n][n];
+        for (int i = 0; i < m-1; i++) {
+            blocks[i/n][i%n] = i+1;
+        }
+        int zero = m-1;
+        int previous = -1;
+        for (int moves = 0; moves < length; ) {
+            int next;
+            switch (random.nextInt(4)) {
+                case 0: next = zero%n > 0 ? zero-1 : -1; break;
+                case 1: next = zero%n < n-1 ? zero+1 : -1; break;
+                case 2: next = zero >= n ? zero-n : -1; break;
+                default: next = zero < m-n ? zero+n : -1; break;
+            }
+            if (next < 0 || next == previous) { continue; }
+            blocks[zero/n][zero%n] = blocks[next/n][next%n];
+            blocks[next/n][next%n] = 0;
+            previous = zero;
+            zero = next;
+            moves++;
+        }
+        return new Board(blocks);
+    }
+}
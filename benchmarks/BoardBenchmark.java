@@ -0,0 +1,62 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of the immutable Board and Step used by the step based engine
+ * Run with -prof gc to see allocation rate of every operation, per tile work grows with the dimension
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class BoardBenchmark {
+    @Param({"4", "7", "10"})
+    public int dimension;
+
+    private Board board;
+    private Board equalBoard;
+    private Board otherBoard;
+    private Step step;
+
+    @Setup
+    public void setup() {
+        this.board = BenchmarkCorpus.randomWalk(this.dimension, 60, new Random(1));
+        this.equalBoard = new Board(this.board.toArray());
+        this.otherBoard = BenchmarkCorpus.randomWalk(this.dimension, 60, new Random(2));
+        this.step = new Step(this.board, Heuristics.MANHATTAN.forDimension(this.dimension));
+    }
+
+    @Benchmark
+    public Object neighbors() {
+        return this.board.neighbors();
+    }
+
+    @Benchmark
+    public Object nextSteps() {
+        return this.step.nextSteps();
+    }
+
+    @Benchmark
+    public boolean equalsSame() {
+        return this.board.equals(this.equalBoard);
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return this.board.equals(this.otherBoard);
+    }
+}
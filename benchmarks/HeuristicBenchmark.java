@@ -0,0 +1,82 @@
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks of heuristic evaluation: full evaluation of a board
+ * and incremental evaluation of a move as done by the in-place engine
+ * Precomputed tables are created in setup, so they are not measured
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HeuristicBenchmark {
+    private static final int[] SEARCH_ORDER = {
+            PuzzleState.DOWN, PuzzleState.UP, PuzzleState.RIGHT, PuzzleState.LEFT};
+
+    @Param({"HAMMING", "MANHATTAN", "LINEAR_CONFLICT", "WALKING_DISTANCE", "PATTERN_DATABASE"})
+    public Heuristics heuristics;
+
+    private Board board;
+    private int[] tiles;
+    private Heuristic heuristic;
+    private PuzzleState state;
+
+    @Setup
+    public void setup() {
+        this.board = BenchmarkCorpus.randomWalk(4, 60, new Random(1));
+        this.tiles = this.board.toArray();
+        this.heuristic = this.heuristics.forDimension(4);
+        this.state = new PuzzleState(this.board, this.heuristic);
+    }
+
+    @Benchmark
+    public int evaluate() {
+        return this.heuristic.evaluate(this.tiles);
+    }
+
+    @Benchmark
+    public int distanceFromSolution() {
+        return this.board.distanceFromSolution(this.heuristic);
+    }
+
+    /**
+     * Costs of all children of the board, as computed for every node of the in-place search
+     */
+    @Benchmark
+    public int distanceAfterMove() {
+        int sum = 0;
+        for (int direction : SEARCH_ORDER) {
+            if (this.state.canMove(direction)) {
+                sum += this.state.distanceAfterMove(direction);
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Move and undo with incremental update of the heuristic
+     */
+    @Benchmark
+    public int moveAndUndo() {
+        int direction = this.state.canMove(PuzzleState.LEFT) ? PuzzleState.LEFT : PuzzleState.RIGHT;
+        this.state.move(direction);
+        int distance = this.state.distanceFromSolution();
+        this.state.undo(direction);
+        return distance;
+    }
+}
@@ -0,0 +1,53 @@
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Scaling of the parallel engine with the number of threads
+ * One operation solves all boards of the difficulty group, speedup of n threads is the time
+ * of one thread divided by the time of n threads. Other counts are chosen by -p threads=...
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ScalingBenchmark {
+
+    @Param({"MEDIUM", "HARD"})
+    public BenchmarkCorpus.Difficulty difficulty;
+
+    @Param({"1", "2", "4", "8"})
+    public int threads;
+
+    private List<Board> boards;
+    private SolverConfiguration configuration;
+
+    @Setup
+    public void setup() {
+        this.boards = BenchmarkCorpus.boards(this.difficulty);
+        this.configuration = new SolverConfiguration(Heuristics.MANHATTAN, SearchEngine.PARALLEL)
+                .setThreads(this.threads);
+    }
+
+    @Benchmark
+    public int solve() {
+        int moves = 0;
+        for (Board board : this.boards) {
+            moves += new Solver(board, this.configuration).getMoves();
+        }
+        return moves;
+    }
+}
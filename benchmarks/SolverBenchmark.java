@@ -0,0 +1,77 @@
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * End to end benchmark of the Solver over the fixed corpus
+ * One operation solves all boards of the difficulty group, created nodes are reported
+ * as an additional counter, so nodes per second of engines and heuristics can be compared.
+ * HARD boards take too long with the STEP_BASED engine and HAMMING heuristic,
+ * they are run with -p difficulty=HARD for other engines and heuristics
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SolverBenchmark {
+
+    @Param({"EASY", "MEDIUM"})
+    public BenchmarkCorpus.Difficulty difficulty;
+
+    @Param({"STEP_BASED", "IN_PLACE", "PARALLEL", "FRINGE"})
+    public SearchEngine engine;
+
+    @Param({"HAMMING", "MANHATTAN", "LINEAR_CONFLICT", "WALKING_DISTANCE", "PATTERN_DATABASE"})
+    public Heuristics heuristics;
+
+    private List<Board> boards;
+    private SolverConfiguration configuration;
+
+    /**
+     * Counter of created nodes, reported as nodes per second
+     */
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    @State(Scope.Thread)
+    public static class Nodes {
+        public long nodes;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            this.nodes = 0;
+        }
+    }
+
+    @Setup
+    public void setup() {
+        this.boards = BenchmarkCorpus.boards(this.difficulty);
+        this.configuration = new SolverConfiguration(this.heuristics, this.engine);
+        // tables of the heuristic are created before measurement
+        this.configuration.heuristicFor(4, 4);
+    }
+
+    @Benchmark
+    public int solve(Nodes counter) {
+        int moves = 0;
+        for (Board board : this.boards) {
+            Solver solver = new Solver(board, this.configuration);
+            moves += solver.getMoves();
+            counter.nodes += solver.createdNodes();
+        }
+        return moves;
+    }
+}
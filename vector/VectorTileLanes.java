@@ -0,0 +1,90 @@
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Tile kernels on lanes of the widest int vector of the CPU, loaded by ScalarTileLanes when available
+ * Goal rows and columns of tiles are gathered from BoardShape tables, converting lanes between ints
+ * and floats to divide by the width is not compiled to vector instructions on every JDK.
+ * Tiles after the last full vector are done by the scalar loop
+ */
+final class VectorTileLanes implements TileLanes {
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // bytes widened into one int vector, null on CPUs without so short byte vectors
+    private static final VectorSpecies<Byte> BYTES = byteSpecies();
+    // positions of the lanes in one vector, 0, 1, 2, ...
+    private static final IntVector LANES = IntVector.zero(INTS).addIndex(1);
+
+    /**
+     * @return byte species with as many lanes as INTS, null if there is none
+     */
+    private static VectorSpecies<Byte> byteSpecies() {
+        try {
+            return VectorSpecies.of(byte.class, VectorShape.forBitSize(INTS.length() * Byte.SIZE));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return true on CPUs with int vectors of at least 8 lanes, narrower ones are slower than scalar loops
+     */
+    @Override
+    public boolean isVector() {
+        return BYTES != null;
+    }
+
+    @Override
+    public void widen(byte[] tiles, int[] destination) {
+        int i = 0;
+        for (int bound = BYTES.loopBound(tiles.length); i < bound; i += BYTES.length()) {
+            ((IntVector) ByteVector.fromArray(BYTES, tiles, i).convertShape(VectorOperators.B2I, INTS, 0))
+                    .and(0xFF)
+                    .intoArray(destination, i);
+        }
+        for (; i<tiles.length; i++) {
+            destination[i] = tiles[i] & 0xFF;
+        }
+    }
+
+    @Override
+    public int hamming(int[] tiles) {
+        int hamming = 0;
+        int i = 0;
+        for (int bound = INTS.loopBound(tiles.length); i < bound; i += INTS.length()) {
+            IntVector tile = IntVector.fromArray(INTS, tiles, i);
+            VectorMask<Integer> misplaced = tile.compare(VectorOperators.NE, LANES.add(i+1))
+                    .and(tile.compare(VectorOperators.NE, 0));
+            hamming += misplaced.trueCount();
+        }
+        for (; i<tiles.length; i++) {
+            if (tiles[i] != 0 && tiles[i] != i+1) { hamming++; }
+        }
+        return hamming;
+    }
+
+    @Override
+    public int manhattan(int[] tiles, BoardShape shape) {
+        int[] rows = shape.goalRows();
+        int[] columns = shape.goalColumns();
+        IntVector sum = IntVector.zero(INTS);
+        int i = 0;
+        for (int bound = INTS.loopBound(tiles.length); i < bound; i += INTS.length()) {
+            IntVector tile = IntVector.fromArray(INTS, tiles, i);
+            // goal rows and columns are gathered by tile, rows and columns of the positions are read in order
+            IntVector rowDistance = IntVector.fromArray(INTS, rows, 0, tiles, i)
+                    .sub(IntVector.fromArray(INTS, rows, i+1)).abs();
+            IntVector columnDistance = IntVector.fromArray(INTS, columns, 0, tiles, i)
+                    .sub(IntVector.fromArray(INTS, columns, i+1)).abs();
+            sum = sum.add(rowDistance.add(columnDistance).blend(0, tile.eq(0)));
+        }
+        int manhattan = sum.reduceLanes(VectorOperators.ADD);
+        for (; i<tiles.length; i++) {
+            if (tiles[i] != 0) { manhattan += shape.distance(tiles[i], i); }
+        }
+        return manhattan;
+    }
+}